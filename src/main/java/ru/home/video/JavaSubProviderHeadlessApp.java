@@ -0,0 +1,224 @@
+package ru.home.video;
+
+import ru.home.video.config.JavaSubProviderAppConfig;
+import ru.home.video.config.LanguageConfig;
+import ru.home.video.config.ServerConfig;
+import ru.home.video.config.SubtitleConfig;
+import ru.home.video.controller.JobHttpController;
+import ru.home.video.model.enums.LanguageType;
+import ru.home.video.model.jobs.VideoJob;
+import ru.home.video.model.jobs.VideoJobResult;
+import ru.home.video.model.subtitles.SubtitleStyle;
+import ru.home.video.service.CancellationToken;
+import ru.home.video.service.ClipPreviewService;
+import ru.home.video.service.DistributedJobService;
+import ru.home.video.service.LiveSubtitleService;
+import ru.home.video.service.SubtitleIntervalIndex;
+import ru.home.video.service.SubtitleService;
+import ru.home.video.service.TranscriptFile;
+import ru.home.video.service.VideoJobService;
+import ru.home.video.service.VideoProcessService;
+import ru.home.video.service.WatchFolderService;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * The entry point of the app without the graphical user interface (for launching from a terminal or other tools)
+ */
+public class JavaSubProviderHeadlessApp {
+
+    private static final String USAGE = """
+            Usage:
+              live <audio source> <language> <output .vtt>
+                  audio source - a growing .wav/.pcm file (16000 Hz, 16 bit, mono) or '-' for a pipe (stdin)
+                  language     - a language of the speech (en, ru)
+              submit <spool> <input video> <output folder> <original language> <subtitles language>
+                  puts a job into the shared job directory (spool)
+              coordinator <spool>
+                  reassigns jobs with expired leases and prints reports of workers
+              worker <spool> [--simulate <millis>] [--exit-when-idle]
+                  claims and processes jobs, '--simulate' replaces the pipeline by CPU work (for benchmarks)
+              server [port]
+                  accepts jobs by HTTP: POST /jobs, GET /jobs/{id}, DELETE /jobs/{id}, GET /jobs/{id}/subtitles
+              transcript <transcript .jspt> <ass|srt|vtt>
+                  prints a saved transcript in the given format of subtitles
+              watch <folder> <output folder> [original language] [subtitles language]
+                  processes videos which appear in the folder (the languages of the form by default)
+              preview <input video> <transcript .jspt> <original language> <subtitles language> <start seconds>
+                      <seconds> <output .mp4> [--frames <n>] [--size <Small|Medium|Large>]
+                      [--position <Top|Center|Bottom>]
+                  burns subtitles into a short window of the video only, with '--frames' the output is a folder
+                  of still frames; phrases of the transcript are translated and split into rows as for the video
+            """;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.out.println(USAGE);
+            return;
+        }
+        switch (args[0]) {
+            case "live" -> launchLiveMode(args);
+            case "submit" -> submitJob(args);
+            case "coordinator" -> launchCoordinator(args);
+            case "worker" -> launchWorker(args);
+            case "server" -> launchServer(args);
+            case "transcript" -> printTranscript(args);
+            case "watch" -> launchWatchMode(args);
+            case "preview" -> renderPreview(args);
+            default -> System.out.println(USAGE);
+        }
+    }
+
+    // the live mode prints provisional lines and finished phrases while they are being recognized
+    private static void launchLiveMode(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println(USAGE);
+            return;
+        }
+        var audioStream = args[1].equals("-") ? System.in :
+                LiveSubtitleService.openGrowingFile(Path.of(args[1]),
+                        SubtitleConfig.LIVE_GROWING_FILE_IDLE_TIMEOUT_MILLIS);
+        var modelPath = JavaSubProviderAppConfig.getVoskModelPathByLanguageType(LanguageType.valueOf(args[2]));
+        LiveSubtitleService.recognizeLiveStream(audioStream, modelPath, Path.of(args[3]), event ->
+                System.out.printf("[%s, %d ms] %.2f - %.2f: %s%n", event.type(), event.latencyMillis(),
+                        event.item().start(), event.item().end(), event.item().text()));
+    }
+
+    private static void submitJob(String[] args) throws IOException {
+        if (args.length < 6) {
+            System.out.println(USAGE);
+            return;
+        }
+        var job = new VideoJob(UUID.randomUUID().toString(), Path.of(args[2]).toAbsolutePath().toString(),
+                Path.of(args[3]).toAbsolutePath().toString(), LanguageType.valueOf(args[4]).name(),
+                LanguageType.valueOf(args[5]).name(), SubtitleStyle.getDefaultStyle());
+        try {
+            DistributedJobService.submitJob(Path.of(args[1]), job);
+            System.out.println(job.id());
+        } catch (IllegalArgumentException e) {
+            System.out.println("The job wasn't submitted: " + e.getMessage());
+        }
+    }
+
+    private static void launchCoordinator(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println(USAGE);
+            return;
+        }
+        DistributedJobService.launchCoordinator(Path.of(args[1]));
+    }
+
+    private static void launchWorker(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println(USAGE);
+            return;
+        }
+        List<String> options = Arrays.asList(args);
+        var simulateIndex = options.indexOf("--simulate");
+        Function<VideoJob, VideoJobResult> processor = simulateIndex > 0 ?
+                job -> simulateJob(job, Long.parseLong(args[simulateIndex + 1])) :
+                job -> VideoProcessService.processVideo(job, (progress, message) ->
+                        System.out.printf("Job %s: %.0f%% %s%n", job.id(), progress * 100, message));
+        var workerId = ProcessHandle.current().pid() + "@" + InetAddress.getLocalHost().getHostName();
+        DistributedJobService.launchWorker(Path.of(args[1]), workerId, processor,
+                options.contains("--exit-when-idle"));
+    }
+
+    private static void launchServer(String[] args) throws IOException {
+        var port = args.length > 1 ? Integer.parseInt(args[1]) : ServerConfig.SERVER_PORT;
+        var videoJobService = new VideoJobService(ServerConfig.SERVER_JOB_WORKERS, ServerConfig.SERVER_QUEUE_CAPACITY);
+        new JobHttpController(port, videoJobService).start();
+    }
+
+    private static void printTranscript(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println(USAGE);
+            return;
+        }
+        var phrases = TranscriptFile.load(Path.of(args[1])).toSubtitleItems();
+        switch (args[2]) {
+            case "ass" -> System.out.print(SubtitleService.createStyledSubtitles(phrases,
+                    SubtitleStyle.getDefaultStyle()));
+            case "srt" -> System.out.print(SubtitleService.createSrtSubtitles(phrases));
+            case "vtt" -> System.out.print(SubtitleService.createWebVttSubtitles(phrases));
+            default -> System.out.println(USAGE);
+        }
+    }
+
+    // videos are processed by the same workers and queue as in the server mode
+    private static void launchWatchMode(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.out.println(USAGE);
+            return;
+        }
+        var defaultLanguages = LanguageConfig.DEFAULT_LANGUAGE_PAIR.split(" → ");
+        var originalLanguage = args.length > 3 ? LanguageType.valueOf(args[3]) :
+                LanguageType.getTypeByLanguageName(defaultLanguages[0]);
+        var subtitlesLanguage = args.length > 4 ? LanguageType.valueOf(args[4]) :
+                LanguageType.getTypeByLanguageName(defaultLanguages[1]);
+        var videoJobService = new VideoJobService(ServerConfig.SERVER_JOB_WORKERS, ServerConfig.SERVER_QUEUE_CAPACITY);
+        try {
+            new WatchFolderService(Path.of(args[1]), Path.of(args[2]), originalLanguage, subtitlesLanguage,
+                    videoJobService).watch();
+        } catch (IllegalArgumentException e) {
+            System.out.println("The folder isn't watched: " + e.getMessage());
+        } finally {
+            videoJobService.shutdown();
+        }
+    }
+
+    // a style is tried on a window of the video, so the whole video isn't re-encoded for every try
+    private static void renderPreview(String[] args) throws IOException {
+        if (args.length < 8) {
+            System.out.println(USAGE);
+            return;
+        }
+        List<String> options = Arrays.asList(args);
+        var style = SubtitleStyle.getDefaultStyle();
+        var sizeIndex = options.indexOf("--size");
+        if (sizeIndex > 0) {
+            style.setFontSize(style.getFontSize(args[sizeIndex + 1]));
+        }
+        var positionIndex = options.indexOf("--position");
+        if (positionIndex > 0) {
+            style.setPosition(style.getDigitalViewOfPosition(args[positionIndex + 1]));
+        }
+        double start = Double.parseDouble(args[5]);
+        double seconds = Double.parseDouble(args[6]);
+        // the transcript keeps recognized phrases, the preview shows the same subtitles as the processed video:
+        // phrases of the window are made ready (translated, split into rows) as a job does it
+        var phrases = new SubtitleIntervalIndex(TranscriptFile.load(Path.of(args[2])).toSubtitleItems());
+        var subtitles = new SubtitleIntervalIndex(SubtitleService.getReadySubtitles(
+                phrases.getInRange(start, start + seconds), LanguageType.valueOf(args[3]), args[4], style,
+                new CancellationToken()));
+        var framesIndex = options.indexOf("--frames");
+        long started = System.nanoTime();
+        if (framesIndex > 0) {
+            var frames = ClipPreviewService.renderFrames(JavaSubProviderAppConfig.FFMPEG_PATH, args[1], subtitles,
+                    style, start, seconds, Integer.parseInt(args[framesIndex + 1]), Path.of(args[7]),
+                    new CancellationToken());
+            frames.forEach(System.out::println);
+        } else {
+            ClipPreviewService.renderClip(JavaSubProviderAppConfig.FFMPEG_PATH, args[1], subtitles, style, start,
+                    seconds, args[7], new CancellationToken());
+            System.out.println(args[7]);
+        }
+        System.out.printf("The preview took %.1f s%n", (System.nanoTime() - started) / 1e9);
+    }
+
+    // keeps one core busy during the given time instead of processing a video
+    private static VideoJobResult simulateJob(VideoJob job, long millis) {
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        long checksum = 0;
+        while (System.nanoTime() < deadline) {
+            checksum += Long.rotateLeft(checksum ^ deadline, 7) + 1;
+        }
+        return new VideoJobResult(job.outputVideoFilePath(), String.valueOf(checksum));
+    }
+}
@@ -0,0 +1,89 @@
+package ru.home.video.benchmark;
+
+import ru.home.video.JavaSubProviderHeadlessApp;
+import ru.home.video.config.WorkerConfig;
+import ru.home.video.model.jobs.VideoJob;
+import ru.home.video.model.subtitles.SubtitleStyle;
+import ru.home.video.service.DistributedJobService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The benchmark launches several worker processes (JVMs) on one host over a temp shared job directory and measures
+ * the throughput of jobs for every number of workers. Jobs are simulated by CPU work of the given duration.
+ * <p>
+ * Usage: {@code DistributedWorkerScalingBenchmark [jobs] [job millis] [numbers of workers...]}
+ */
+public class DistributedWorkerScalingBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        long jobMillis = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        List<Integer> workerCounts = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            workerCounts.add(Integer.parseInt(args[i]));
+        }
+        if (workerCounts.isEmpty()) {
+            for (int workers = 1; workers <= Runtime.getRuntime().availableProcessors(); workers *= 2) {
+                workerCounts.add(workers);
+            }
+        }
+
+        System.out.printf("%8s %10s %12s %10s%n", "workers", "wall, ms", "jobs/second", "speedup");
+        double baseline = 0;
+        for (int workers : workerCounts) {
+            double throughput = measureThroughput(workers, jobs, jobMillis);
+            baseline = baseline == 0 ? throughput : baseline;
+            System.out.printf("%8d %10.0f %12.2f %10.2f%n", workers, jobs / throughput * 1000, throughput,
+                    throughput / baseline);
+        }
+    }
+
+    // gives jobs per second: from the moment when workers were launched till the moment when all reports exist
+    private static double measureThroughput(int workers, int jobs, long jobMillis)
+            throws IOException, InterruptedException {
+        var spool = Files.createTempDirectory("javasubprovider_spool_");
+        try {
+            for (int i = 0; i < jobs; i++) {
+                DistributedJobService.submitJob(spool, new VideoJob("job" + i, "input" + i + ".mp4",
+                        spool.toString(), "en", "en", SubtitleStyle.getDefaultStyle()), 0.0);
+            }
+            long started = System.nanoTime();
+            List<Process> processes = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                processes.add(new ProcessBuilder(getJavaPath(), "-cp", System.getProperty("java.class.path"),
+                        JavaSubProviderHeadlessApp.class.getName(), "worker", spool.toString(),
+                        "--simulate", String.valueOf(jobMillis), "--exit-when-idle")
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start());
+            }
+            for (Process process : processes) {
+                process.waitFor();
+            }
+            long finishedJobs;
+            try (Stream<Path> results = Files.list(spool.resolve(WorkerConfig.RESULTS_FOLDER))) {
+                finishedJobs = results.filter(path -> path.toString().endsWith(".result")).count();
+            }
+            if (finishedJobs != jobs) {
+                throw new IllegalStateException("Only " + finishedJobs + " of " + jobs + " jobs were finished");
+            }
+            return jobs / ((System.nanoTime() - started) / 1e9);
+        } finally {
+            try (Stream<Path> files = Files.walk(spool)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static String getJavaPath() {
+        return System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    }
+}
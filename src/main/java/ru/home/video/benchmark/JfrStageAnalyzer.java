@@ -0,0 +1,121 @@
+package ru.home.video.benchmark;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * The analyzer prints, where jobs spent their time, by events of the app in a JFR recording
+ * (see {@link ru.home.video.jfr.JobEvent}):
+ * <ul>
+ *     <li>every stage (external apps by their names, translation requests by their outcomes): a number of events,
+ *     a total, a mean, p95 and the longest duration</li>
+ *     <li>every job: a total time of its stages (a translation request is counted for every job of its batch)</li>
+ * </ul>
+ * Usage: {@code JfrStageAnalyzer <recording.jfr> [job id]}, a recording is made by the app with
+ * {@code -XX:StartFlightRecording=filename=<recording.jfr>} (the events are enabled by default).
+ */
+public class JfrStageAnalyzer {
+
+    private static final String EVENT_PREFIX = "javasubprovider.";
+    // the columns of the table of jobs: names of events and short headers
+    private static final Map<String, String> JOB_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        JOB_COLUMNS.put("AudioExtraction", "extract");
+        JOB_COLUMNS.put("RecognitionChunk", "recognize");
+        JOB_COLUMNS.put("ResultParsing", "parse");
+        JOB_COLUMNS.put("PhraseMerging", "merge");
+        JOB_COLUMNS.put("TranslationRequest", "translate");
+        JOB_COLUMNS.put("SubtitleGeneration", "ass");
+        JOB_COLUMNS.put("SubtitleBurning", "burn");
+        JOB_COLUMNS.put("ExternalProcess", "processes");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: JfrStageAnalyzer <recording.jfr> [job id]");
+            return;
+        }
+        String jobFilter = args.length > 1 ? args[1] : null;
+
+        // 1. reads events of the app (of the job, if it's given)
+        Map<String, List<Long>> stageDurations = new TreeMap<>();
+        Map<String, Map<String, Long>> jobStageNanos = new LinkedHashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(Path.of(args[0]))) {
+            var eventName = event.getEventType().getName();
+            if (!eventName.startsWith(EVENT_PREFIX)) {
+                continue;
+            }
+            var jobIds = getJobIds(event);
+            if (jobFilter != null && !jobIds.contains(jobFilter)) {
+                continue;
+            }
+            long durationNanos = event.getDuration().toNanos();
+            stageDurations.computeIfAbsent(getStageName(event), stage -> new ArrayList<>()).add(durationNanos);
+            for (String jobId : jobIds) {
+                if (jobFilter == null || jobFilter.equals(jobId)) {
+                    jobStageNanos.computeIfAbsent(jobId, job -> new HashMap<>())
+                            .merge(eventName.substring(EVENT_PREFIX.length()), durationNanos, Long::sum);
+                }
+            }
+        }
+        if (stageDurations.isEmpty()) {
+            System.out.println("There aren't events of the app in the recording" +
+                    (jobFilter != null ? " for the job " + jobFilter : ""));
+            return;
+        }
+
+        // 2. stages: the longest total first
+        System.out.printf("%-40s %8s %11s %10s %10s %10s%n", "stage", "events", "total, s", "mean, ms", "p95, ms",
+                "max, ms");
+        stageDurations.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> -entry.getValue().stream().mapToLong(Long::longValue).sum()))
+                .forEach(entry -> printStage(entry.getKey(), entry.getValue()));
+
+        // 3. jobs: a total of every stage (ms), external apps are a part of extraction and burning
+        System.out.println();
+        System.out.printf("%-36s", "job");
+        JOB_COLUMNS.values().forEach(header -> System.out.printf(" %10s", header));
+        System.out.println();
+        jobStageNanos.forEach((jobId, stageNanos) -> {
+            System.out.printf("%-36s", jobId);
+            JOB_COLUMNS.keySet().forEach(stage -> System.out.printf(" %10.1f",
+                    stageNanos.getOrDefault(stage, 0L) / 1e6));
+            System.out.println();
+        });
+    }
+
+    // === Auxiliary methods ===
+
+    // a translation request is sent for several jobs, events of other stages belong to one job
+    private static List<String> getJobIds(RecordedEvent event) {
+        String jobIds = event.hasField("jobIds") ? event.getString("jobIds") : event.getString("jobId");
+        if (jobIds == null || jobIds.isEmpty()) {
+            return List.of("(without a job)");
+        }
+        return List.of(jobIds.split(","));
+    }
+
+    private static String getStageName(RecordedEvent event) {
+        var label = event.getEventType().getLabel();
+        if (event.hasField("tool")) {
+            return label + " (" + event.getString("tool") + ")";
+        }
+        if (event.hasField("outcome") && !"OK".equals(event.getString("outcome"))) {
+            return label + " (" + event.getString("outcome") + ")";
+        }
+        return label;
+    }
+
+    private static void printStage(String stage, List<Long> durations) {
+        long[] sorted = durations.stream().mapToLong(Long::longValue).sorted().toArray();
+        long total = Arrays.stream(sorted).sum();
+        long p95 = sorted[Math.max(0, (int) Math.ceil(sorted.length * 0.95) - 1)];
+        System.out.printf("%-40s %8d %11.2f %10.2f %10.2f %10.2f%n", stage, sorted.length, total / 1e9,
+                total / 1e6 / sorted.length, p95 / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+}
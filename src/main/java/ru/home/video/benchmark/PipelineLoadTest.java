@@ -0,0 +1,181 @@
+package ru.home.video.benchmark;
+
+import ru.home.video.model.jobs.VideoJob;
+import ru.home.video.model.subtitles.SubtitleStyle;
+import ru.home.video.service.VideoProcessService;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * The load test drives the whole pipeline ({@link VideoProcessService}) without real films and LibreTranslate:
+ * <ul>
+ *     <li>the input is a synthetic speech-like audio of the given length (see {@link SyntheticSpeechGenerator})</li>
+ *     <li>'ffmpeg' is a fake script: the extraction copies the input, adding subtitles writes only a stub file</li>
+ *     <li>the translation service is a stub with a fixed latency (see {@link StubTranslatorServer})</li>
+ *     <li>the recognition is real, so a 'VOSK' model is needed</li>
+ * </ul>
+ * Every length is processed by its own JVM (so RSS of a run doesn't include previous runs), every stage is measured
+ * (see {@link StageMetricsRecorder}). At the end, peaks of memory of the longest input are compared with the shortest
+ * one: memory is bounded, when it grows much slower than the input.
+ * <p>
+ * Usage: {@code PipelineLoadTest <vosk model folder> [minutes of audio...]}, e.g. {@code ... model 1 10 60 600}.
+ * Options: {@code -Dloadtest.translationLatencyMillis=5} (a latency of the stub translator).
+ * The fake 'ffmpeg' is a shell script, so the test is run on Linux/macOS.
+ */
+public class PipelineLoadTest {
+
+    private static final double[] DEFAULT_MINUTES = {1, 10, 60};
+    private static final double MEMORY_GROWTH_TOLERANCE = 2.0; // peaks can grow twice while the input grows more
+    private static final String RESULT_PREFIX = "STAGE\t";
+    private static final String FAKE_FFMPEG = """
+            #!/bin/sh
+            # a fake of 'ffmpeg' for the load test: the extraction copies the input (it's a WAV already),
+            # adding subtitles writes only the filter into the output (a video isn't encoded)
+            input=""; filter=""
+            while [ $# -gt 1 ]; do
+              case "$1" in
+                -i) input="$2" ;;
+                -filter_complex) filter="$2" ;;
+              esac
+              shift
+            done
+            if [ -n "$filter" ]; then echo "$filter" > "$1"; else cp "$input" "$1"; fi
+            """;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length >= 3 && args[0].equals("--single")) {
+            runSingle(args[1], Double.parseDouble(args[2]));
+            return;
+        }
+        if (args.length < 1) {
+            System.out.println("Usage: PipelineLoadTest <vosk model folder> [minutes of audio...]");
+            return;
+        }
+        double[] minutes = args.length > 1 ?
+                Arrays.stream(args, 1, args.length).mapToDouble(Double::parseDouble).sorted().toArray() :
+                DEFAULT_MINUTES;
+
+        Map<Double, List<String[]>> results = new LinkedHashMap<>();
+        for (double length : minutes) {
+            System.out.printf("%n=== %.1f minute(s) of audio ===%n", length);
+            results.put(length, runInOwnJvm(args[0], length));
+        }
+        if (results.size() > 1) {
+            printMemoryGrowth(results, minutes[0], minutes[minutes.length - 1]);
+        }
+    }
+
+    // === A run of one length (inside its own JVM) ===
+
+    private static void runSingle(String modelPath, double minutes) throws IOException {
+        var workFolder = Files.createTempDirectory("javasubprovider_load_");
+        long latencyMillis = Long.getLong("loadtest.translationLatencyMillis", 5);
+        try (var translator = new StubTranslatorServer(latencyMillis)) {
+            // 1. Replaces external apps before the config of the app is loaded
+            var appComponents = createFakeAppComponents(workFolder, Path.of(modelPath));
+            System.setProperty("javasubprovider.appComponentsPath", appComponents.toString());
+            System.setProperty("javasubprovider.libreUrl", translator.getUrl());
+
+            // 2. Generates the input
+            var inputPath = workFolder.resolve("synthetic_" + (long) (minutes * 60) + "s.wav");
+            long started = System.nanoTime();
+            SyntheticSpeechGenerator.writeWav(inputPath, minutes * 60, 42);
+            System.out.printf("The input was generated: %d MB in %d ms%n", Files.size(inputPath) >> 20,
+                    (System.nanoTime() - started) / 1_000_000);
+
+            // 3. Processes it as a usual job
+            var job = new VideoJob(UUID.randomUUID().toString(), inputPath.toString(), workFolder.toString(),
+                    "en", "ru", SubtitleStyle.getDefaultStyle());
+            try (var recorder = new StageMetricsRecorder()) {
+                try {
+                    VideoProcessService.processVideo(job, recorder);
+                } catch (RuntimeException e) {
+                    System.out.println("The pipeline failed: " + e.getMessage());
+                }
+                for (var stage : recorder.getStages()) {
+                    System.out.println(RESULT_PREFIX + String.join("\t", stage.getName(),
+                            String.valueOf(stage.getWallMillis()), String.valueOf(stage.getPeakHeapBytes()),
+                            String.valueOf(stage.getPeakRssBytes()), String.valueOf(stage.getGcPauses()),
+                            String.valueOf(stage.getGcPauseMillis()), String.valueOf(stage.getMaxGcPauseMillis())));
+                }
+            }
+            System.out.printf("Translation requests: %d (texts: %d), VmHWM: %d MB%n", translator.getRequests(),
+                    translator.getTexts(), StageMetricsRecorder.getPeakRssBytes() >> 20);
+        } finally {
+            try (Stream<Path> files = Files.walk(workFolder)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    // the same layout as 'app_components': 'vosk/en/vosk-model' and 'ffmpeg/bin/ffmpeg.exe'
+    private static Path createFakeAppComponents(Path workFolder, Path modelPath) throws IOException {
+        var appComponents = workFolder.resolve("app_components");
+        var voskFolder = Files.createDirectories(appComponents.resolve("vosk").resolve("en"));
+        Files.createSymbolicLink(voskFolder.resolve("vosk-model"), modelPath.toAbsolutePath());
+        var ffmpegPath = Files.createDirectories(appComponents.resolve("ffmpeg").resolve("bin"))
+                .resolve("ffmpeg.exe");
+        Files.writeString(ffmpegPath, FAKE_FFMPEG);
+        Files.setPosixFilePermissions(ffmpegPath, PosixFilePermissions.fromString("rwxr-xr-x"));
+        return appComponents;
+    }
+
+    // === Reports ===
+
+    // launches a JVM with the same options, prints its output and collects measures of stages
+    private static List<String[]> runInOwnJvm(String modelPath, double minutes)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), PipelineLoadTest.class.getName(),
+                "--single", modelPath, String.valueOf(minutes)));
+        var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String[]> stages = new ArrayList<>();
+        try (var reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    stages.add(line.substring(RESULT_PREFIX.length()).split("\t"));
+                } else {
+                    System.out.println("  " + line);
+                }
+            }
+        }
+        process.waitFor();
+        System.out.printf("%-40s %10s %10s %10s %8s %10s %10s%n", "stage", "wall, ms", "heap, MB", "RSS, MB",
+                "GCs", "GC, ms", "max GC, ms");
+        for (String[] stage : stages) {
+            System.out.printf("%-40s %10s %10d %10d %8s %10s %10s%n", stage[0], stage[1],
+                    Long.parseLong(stage[2]) >> 20, Long.parseLong(stage[3]) >> 20, stage[4], stage[5], stage[6]);
+        }
+        return stages;
+    }
+
+    // compares peaks of every stage of the longest input with the shortest one
+    private static void printMemoryGrowth(Map<Double, List<String[]>> results, double shortest, double longest) {
+        System.out.printf("%n=== Memory growth: %.1f -> %.1f minute(s), the input grew %.1fx ===%n",
+                shortest, longest, longest / shortest);
+        System.out.printf("%-40s %12s %12s%n", "stage", "heap growth", "RSS growth");
+        boolean bounded = true;
+        var shortRun = results.get(shortest);
+        var longRun = results.get(longest);
+        for (int i = 0; i < Math.min(shortRun.size(), longRun.size()); i++) {
+            double heapGrowth = (double) Long.parseLong(longRun.get(i)[2]) / Long.parseLong(shortRun.get(i)[2]);
+            double rssGrowth = (double) Long.parseLong(longRun.get(i)[3]) / Long.parseLong(shortRun.get(i)[3]);
+            bounded &= heapGrowth <= MEMORY_GROWTH_TOLERANCE && rssGrowth <= MEMORY_GROWTH_TOLERANCE;
+            System.out.printf("%-40s %11.2fx %11.2fx%n", longRun.get(i)[0], heapGrowth, rssGrowth);
+        }
+        System.out.println(bounded ? "Memory is bounded" :
+                "Memory grows with the input (more than " + MEMORY_GROWTH_TOLERANCE + "x)");
+    }
+}
@@ -0,0 +1,104 @@
+package ru.home.video.benchmark;
+
+import ru.home.video.model.jobs.VideoJob;
+import ru.home.video.model.subtitles.SubtitleStyle;
+import ru.home.video.service.AudioFingerprintService;
+import ru.home.video.service.CancellationToken;
+import ru.home.video.service.RepeatedSegmentService;
+import ru.home.video.service.SeriesFingerprintIndex;
+import ru.home.video.service.SpeechRecognitionService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static ru.home.video.config.SubtitleConfig.RECOGNITION_CHUNK_SIZE;
+
+/**
+ * The benchmark makes a synthetic series: every episode is the same intro, its own speech and the same outro.
+ * Episodes are processed one by one, so the first one is recognized entirely and the next ones find the intro and
+ * the outro in the index of the series:
+ * <ul>
+ *     <li>without a model - time of fingerprints and of matching, found segments against the real ones</li>
+ *     <li>with a model - also time of the recognition of an episode: entirely and without repeated segments</li>
+ * </ul>
+ * Usage: {@code RepeatedSegmentBenchmark [episodes] [seconds of an episode] [seconds of the intro]
+ * [vosk model folder]} (the outro is a half of the intro).
+ */
+public class RepeatedSegmentBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int episodes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        double episodeSeconds = args.length > 1 ? Double.parseDouble(args[1]) : 300;
+        double introSeconds = args.length > 2 ? Double.parseDouble(args[2]) : 60;
+        String modelPath = args.length > 3 ? args[3] : null;
+        double outroSeconds = introSeconds / 2;
+
+        var workFolder = Files.createTempDirectory("javasubprovider_series_");
+        try {
+            // 1. the shared intro and outro, every episode has its own speech between them
+            var seriesFolder = Files.createDirectories(workFolder.resolve("series"));
+            var outputFolder = Files.createDirectories(workFolder.resolve("output"));
+            var introPath = workFolder.resolve("intro.wav");
+            var outroPath = workFolder.resolve("outro.wav");
+            SyntheticSpeechGenerator.writeWav(introPath, introSeconds, 1);
+            SyntheticSpeechGenerator.writeWav(outroPath, outroSeconds, 2);
+            System.out.printf("Episodes: %d x %.0f s, the intro: %.0f s, the outro: %.0f s%n", episodes,
+                    episodeSeconds, introSeconds, outroSeconds);
+
+            System.out.printf("%-8s %10s %10s %-36s %12s %12s%n", "episode", "print, ms", "match, ms",
+                    "repeated segments (s)", "full, s", "reuse, s");
+            for (int episode = 1; episode <= episodes; episode++) {
+                var bodyPath = workFolder.resolve("body_" + episode + ".wav");
+                SyntheticSpeechGenerator.writeWav(bodyPath, episodeSeconds - introSeconds - outroSeconds,
+                        100 + episode);
+                var episodePath = seriesFolder.resolve("episode_" + episode + ".wav");
+                SyntheticSpeechGenerator.concatenateWav(episodePath, List.of(introPath, bodyPath, outroPath));
+                var job = new VideoJob("episode-" + episode, episodePath.toString(), outputFolder.toString(),
+                        "en", "ru", SubtitleStyle.getDefaultStyle());
+
+                // 2. the fingerprint and the matching with earlier episodes
+                long started = System.nanoTime();
+                var fingerprint = AudioFingerprintService.compute(episodePath);
+                long printed = System.nanoTime();
+                var index = SeriesFingerprintIndex.forVideo(job.inputVideoFilePath(), job.outputVideoFilePath(),
+                        job.originalVideoLanguage());
+                var segments = index.findRepeatedSegments(fingerprint);
+                long matched = System.nanoTime();
+                var foundSegments = String.join(" ", segments.stream()
+                        .map(segment -> String.format("[%.1f-%.1f]", segment.start(), segment.end()))
+                        .toList());
+
+                // 3. the recognition: entirely and without repeated segments (it adds the episode to the index)
+                double fullSeconds = Double.NaN;
+                double reuseSeconds = Double.NaN;
+                if (modelPath != null) {
+                    long recognitionStarted = System.nanoTime();
+                    SpeechRecognitionService.recognizeSpeech(episodePath.toString(), modelPath,
+                            RECOGNITION_CHUNK_SIZE, new CancellationToken());
+                    long recognized = System.nanoTime();
+                    RepeatedSegmentService.recognizeSpeech(job, episodePath.toString(), modelPath,
+                            new CancellationToken());
+                    fullSeconds = (recognized - recognitionStarted) / 1e9;
+                    reuseSeconds = (System.nanoTime() - recognized) / 1e9;
+                } else {
+                    index.addEpisode(job.id(), fingerprint, List.of());
+                }
+                System.out.printf("%-8d %10.1f %10.1f %-36s %12.1f %12.1f%n", episode, (printed - started) / 1e6,
+                        (matched - printed) / 1e6, foundSegments.isEmpty() ? "-" : foundSegments, fullSeconds,
+                        reuseSeconds);
+                Files.delete(bodyPath);
+            }
+            System.out.printf("Expected segments: [0.0-%.1f] [%.1f-%.1f]%n", introSeconds,
+                    episodeSeconds - outroSeconds, episodeSeconds);
+        } finally {
+            try (Stream<Path> files = Files.walk(workFolder)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+}
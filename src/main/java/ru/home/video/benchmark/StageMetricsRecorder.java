@@ -0,0 +1,168 @@
+package ru.home.video.benchmark;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import lombok.Getter;
+import ru.home.video.service.ProgressListener;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The class measures every stage of the pipeline: a stage begins when the pipeline reports a new progress message.
+ * For every stage it records:
+ * <ul>
+ *     <li>wall time</li>
+ *     <li>peak heap - a sum of peaks of heap pools (peaks are reset when a stage begins)</li>
+ *     <li>peak RSS - resident memory of the process (heap, native memory of 'VOSK', mapped files), it's sampled</li>
+ *     <li>GC pauses - a number, a total and the longest pause (by notifications of collectors)</li>
+ * </ul>
+ * RSS is read from '/proc/self/status', so it's measured on Linux only (-1 on other systems).
+ */
+public class StageMetricsRecorder implements ProgressListener, AutoCloseable {
+
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+    private static final long RSS_SAMPLE_MILLIS = 20;
+
+    private final List<StageMetrics> stages = new ArrayList<>();
+    private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+    private final NotificationListener gcListener = (notification, handback) -> {
+        if (notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+            var info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            recordGcPause(info.getGcInfo().getDuration());
+        }
+    };
+    private final Thread rssSampler;
+    private StageMetrics currentStage;
+    private long stageStartedNanos;
+
+    public StageMetricsRecorder() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) collector).addNotificationListener(gcListener, null, null);
+        }
+        rssSampler = Thread.ofPlatform().daemon().name("RssSampler").start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                recordRss(readProcStatusBytes("VmRSS:"));
+                try {
+                    Thread.sleep(RSS_SAMPLE_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    @Override
+    public synchronized void updateProgress(double progress, String message) {
+        if (currentStage == null || !currentStage.name.equals(message)) {
+            finishStage();
+            currentStage = new StageMetrics(message);
+            stageStartedNanos = System.nanoTime();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        }
+    }
+
+    /**
+     * @return measured stages in the order of the pipeline
+     */
+    public synchronized List<StageMetrics> getStages() {
+        finishStage();
+        return List.copyOf(stages);
+    }
+
+    /**
+     * @return RSS of the process at the moment (bytes) or -1, if it isn't known
+     */
+    public static long getRssBytes() {
+        return readProcStatusBytes("VmRSS:");
+    }
+
+    /**
+     * @return the high water mark of RSS of the process (bytes) or -1, if it isn't known
+     */
+    public static long getPeakRssBytes() {
+        return readProcStatusBytes("VmHWM:");
+    }
+
+    @Override
+    public void close() {
+        rssSampler.interrupt();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            try {
+                ((NotificationEmitter) collector).removeNotificationListener(gcListener);
+            } catch (Exception e) {
+                System.out.println("The listener of GC wasn't removed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Measures of one stage
+     */
+    @Getter
+    public static class StageMetrics {
+        private final String name;
+        private long wallMillis;
+        private long peakHeapBytes;
+        private long peakRssBytes = -1;
+        private int gcPauses;
+        private long gcPauseMillis;
+        private long maxGcPauseMillis;
+
+        private StageMetrics(String name) {
+            this.name = name;
+        }
+    }
+
+    // === Auxiliary methods ===
+
+    private void finishStage() {
+        if (currentStage == null) {
+            return;
+        }
+        currentStage.wallMillis = (System.nanoTime() - stageStartedNanos) / 1_000_000;
+        currentStage.peakHeapBytes = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        recordRss(readProcStatusBytes("VmRSS:"));
+        stages.add(currentStage);
+        currentStage = null;
+    }
+
+    private synchronized void recordGcPause(long millis) {
+        if (currentStage != null) {
+            currentStage.gcPauses++;
+            currentStage.gcPauseMillis += millis;
+            currentStage.maxGcPauseMillis = Math.max(currentStage.maxGcPauseMillis, millis);
+        }
+    }
+
+    private synchronized void recordRss(long rssBytes) {
+        if (currentStage != null) {
+            currentStage.peakRssBytes = Math.max(currentStage.peakRssBytes, rssBytes);
+        }
+    }
+
+    // a value of '/proc/self/status' in bytes (the file gives kB)
+    private static long readProcStatusBytes(String key) {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith(key)) {
+                    return Long.parseLong(line.substring(key.length()).trim().split("\\s+")[0]) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.home.video.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The benchmark compares launchers of the headless app (the JVM and the native executable of the 'native' profile),
+ * every launcher is started several times with the same arguments:
+ * <ul>
+ *     <li>startup - time till the first byte of the output (the app is loaded and has started its work)</li>
+ *     <li>job - time till the exit (the whole command, for short clips it's mostly startup and warming up)</li>
+ * </ul>
+ * The first launch is shown apart: a job launcher starts the app once for every file, so every launch is the first.
+ * Usage: {@code StartupLatencyBenchmark <runs> <launcher>... -- <arguments of the headless app>}, for example:
+ * {@code StartupLatencyBenchmark 10 "java -cp <classpath> ru.home.video.JavaSubProviderHeadlessApp"
+ * target/javasubprovider -- transcript episode.jspt ass}.
+ */
+public class StartupLatencyBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        var separator = Arrays.asList(args).indexOf("--");
+        if (args.length < 2 || separator == 1) {
+            System.out.println("Usage: StartupLatencyBenchmark <runs> <launcher>... -- <arguments of the app>");
+            return;
+        }
+        int runs = Integer.parseInt(args[0]);
+        var launchers = Arrays.asList(args).subList(1, separator < 0 ? args.length : separator);
+        var appArguments = separator < 0 ? List.<String>of() : Arrays.asList(args).subList(separator + 1, args.length);
+
+        for (int i = 0; i < launchers.size(); i++) {
+            System.out.printf("#%d: %s%n", i + 1, launchers.get(i));
+        }
+        System.out.printf("%-8s %12s %12s %12s %12s %6s%n", "launcher", "first, ms", "startup, ms", "job, ms",
+                "max job, ms", "exit");
+        for (int i = 0; i < launchers.size(); i++) {
+            List<String> command = new ArrayList<>(Arrays.asList(launchers.get(i).trim().split("\\s+")));
+            command.addAll(appArguments);
+            long[] startupNanos = new long[runs];
+            long[] jobNanos = new long[runs];
+            int exitCode = 0;
+            for (int run = 0; run < runs; run++) {
+                long[] result = launch(command);
+                startupNanos[run] = result[0];
+                jobNanos[run] = result[1];
+                exitCode = (int) result[2];
+            }
+            System.out.printf("%-8s %12.1f %12.1f %12.1f %12.1f %6d%n", "#" + (i + 1), jobNanos[0] / 1e6,
+                    getMedian(startupNanos) / 1e6, getMedian(jobNanos) / 1e6,
+                    Arrays.stream(jobNanos).max().orElse(0) / 1e6, exitCode);
+        }
+        System.out.println("first - the job of the first launch, startup and job - medians of all launches");
+    }
+
+    // === Auxiliary methods ===
+
+    // time till the first byte of the output, time till the exit (nanoseconds) and the exit code
+    private static long[] launch(List<String> command) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        var process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .start();
+        long firstOutput = -1;
+        try (InputStream output = process.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = output.read(buffer)) != -1) {
+                if (firstOutput < 0 && read > 0) {
+                    firstOutput = System.nanoTime();
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        long finished = System.nanoTime();
+        return new long[]{(firstOutput < 0 ? finished : firstOutput) - started, finished - started, exitCode};
+    }
+
+    private static long getMedian(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
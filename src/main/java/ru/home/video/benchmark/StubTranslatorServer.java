@@ -0,0 +1,105 @@
+package ru.home.video.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class replaces LibreTranslate in benchmarks: 'POST /translate' gives the text back with a prefix of the target
+ * language after the given delay (a latency of a real translation). Both a text and an array of texts are accepted
+ * in the field 'q', as LibreTranslate does. Optionally every text adds its own delay (a real service translates texts
+ * of a batch one by one, a batch saves only round trips).
+ */
+public class StubTranslatorServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final long latencyPerTextMicros;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong texts = new AtomicLong();
+
+    /**
+     * @param latencyMillis - a delay of every response (milliseconds)
+     */
+    public StubTranslatorServer(long latencyMillis) throws IOException {
+        this(latencyMillis, 0);
+    }
+
+    /**
+     * @param latencyMillis        - a delay of every response (milliseconds)
+     * @param latencyPerTextMicros - an additional delay for every text of the request (microseconds)
+     */
+    public StubTranslatorServer(long latencyMillis, long latencyPerTextMicros) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.latencyPerTextMicros = latencyPerTextMicros;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/translate", this::handleTranslate);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.start();
+    }
+
+    /**
+     * @return the url for '-Djavasubprovider.libreUrl'
+     */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/translate";
+    }
+
+    /**
+     * @return a number of received requests
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return a number of translated texts (a request can contain several texts)
+     */
+    public long getTexts() {
+        return texts.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    // === Event handler ===
+    private void handleTranslate(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            var body = new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            var prefix = "[" + body.optString("target") + "] ";
+            var q = body.get("q");
+            Object translated;
+            int textCount = 1;
+            if (q instanceof JSONArray textArray) {
+                var translatedArray = new JSONArray();
+                for (int i = 0; i < textArray.length(); i++) {
+                    translatedArray.put(prefix + textArray.getString(i));
+                }
+                textCount = textArray.length();
+                translated = translatedArray;
+            } else {
+                translated = prefix + q;
+            }
+            texts.addAndGet(textCount);
+            Thread.sleep(latencyMillis + textCount * latencyPerTextMicros / 1000);
+            byte[] response = new JSONObject().put("translatedText", translated).toString()
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
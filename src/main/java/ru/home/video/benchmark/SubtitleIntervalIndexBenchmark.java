@@ -0,0 +1,126 @@
+package ru.home.video.benchmark;
+
+import ru.home.video.model.subtitles.SubtitleItem;
+import ru.home.video.service.SubtitleIntervalIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The benchmark compares queries of {@link SubtitleIntervalIndex} with a scan of the whole list of subtitles:
+ * <ul>
+ *     <li>point - a subtitle, which is shown at a random moment (a player, the live mode)</li>
+ *     <li>range - a number of subtitles in a random window of 30 seconds (previews, parts of a video)</li>
+ * </ul>
+ * Subtitles follow one another with pauses, some of them overlap and every 1000th one is shown for a minute
+ * (a sign on the screen), answers of both ways are compared. The second case adds a subtitle for the whole video
+ * (e.g. a title, which is always shown): a long subtitle mustn't make queries of the others slower.
+ * Usage: {@code SubtitleIntervalIndexBenchmark [subtitles] [queries]}.
+ */
+public class SubtitleIntervalIndexBenchmark {
+
+    private static final double RANGE_SECONDS = 30;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        // 1. subtitles in the order of starts and random moments of the video
+        var random = new Random(42);
+        List<SubtitleItem> subtitles = new ArrayList<>(size);
+        double time = 0;
+        for (int i = 0; i < size; i++) {
+            time += 0.5 + random.nextDouble() * 3.5;
+            double duration = i % 1000 == 0 ? 60 : 1 + random.nextDouble() * 5;
+            subtitles.add(new SubtitleItem(time, time + duration, "phrase " + i, null));
+        }
+        double[] moments = new double[queries];
+        for (int i = 0; i < queries; i++) {
+            moments[i] = random.nextDouble() * time;
+        }
+
+        System.out.printf("Subtitles: %d (%.1f hours)%n", size, time / 3600);
+        runCase("Typical subtitles", subtitles, moments);
+        List<SubtitleItem> withLongSubtitle = new ArrayList<>(size + 1);
+        withLongSubtitle.add(new SubtitleItem(0, time + 60, "the whole video", null));
+        withLongSubtitle.addAll(subtitles);
+        runCase("A subtitle for the whole video", withLongSubtitle, moments);
+    }
+
+    // === Auxiliary methods ===
+
+    private static void runCase(String name, List<SubtitleItem> subtitles, double[] moments) {
+        int queries = moments.length;
+        long buildStarted = System.nanoTime();
+        var index = new SubtitleIntervalIndex(subtitles);
+        System.out.printf("%n%s: the index was built in %.1f ms%n", name, (System.nanoTime() - buildStarted) / 1e6);
+
+        // 1. both ways give the same answers
+        for (double moment : moments) {
+            int expected = findActiveByScan(subtitles, moment);
+            int actual = index.findActive(moment);
+            if ((expected < 0) != (actual < 0) || expected >= 0 && subtitles.get(expected) != index.get(actual)) {
+                throw new IllegalStateException("Different subtitles at " + moment);
+            }
+            if (countInRangeByScan(subtitles, moment, moment + RANGE_SECONDS) !=
+                    index.countInRange(moment, moment + RANGE_SECONDS)) {
+                throw new IllegalStateException("Different subtitles in the range from " + moment);
+            }
+        }
+
+        // 2. time of a query (the last round, earlier rounds warm up the JIT)
+        System.out.printf("%-8s %14s %14s %10s%n", "query", "scan, ns", "index, ns", "speedup");
+        double scanPoint = 0, indexPoint = 0, scanRange = 0, indexRange = 0;
+        long checksum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long started = System.nanoTime();
+            for (double moment : moments) {
+                checksum += findActiveByScan(subtitles, moment);
+            }
+            long scanned = System.nanoTime();
+            for (double moment : moments) {
+                checksum += index.findActive(moment);
+            }
+            long indexed = System.nanoTime();
+            for (double moment : moments) {
+                checksum += countInRangeByScan(subtitles, moment, moment + RANGE_SECONDS);
+            }
+            long rangeScanned = System.nanoTime();
+            for (double moment : moments) {
+                checksum += index.countInRange(moment, moment + RANGE_SECONDS);
+            }
+            long rangeIndexed = System.nanoTime();
+            scanPoint = (double) (scanned - started) / queries;
+            indexPoint = (double) (indexed - scanned) / queries;
+            scanRange = (double) (rangeScanned - indexed) / queries;
+            indexRange = (double) (rangeIndexed - rangeScanned) / queries;
+        }
+        System.out.printf("%-8s %14.0f %14.0f %9.0fx%n", "point", scanPoint, indexPoint, scanPoint / indexPoint);
+        System.out.printf("%-8s %14.0f %14.0f %9.0fx%n", "range", scanRange, indexRange, scanRange / indexRange);
+        System.out.println("Checksum: " + checksum);
+    }
+
+    // the latest started subtitle, which is shown at the moment (subtitles are in the order of starts)
+    private static int findActiveByScan(List<SubtitleItem> subtitles, double moment) {
+        int found = -1;
+        for (int i = 0; i < subtitles.size(); i++) {
+            var item = subtitles.get(i);
+            if (item.start() <= moment && moment < item.end()) {
+                found = i;
+            }
+        }
+        return found;
+    }
+
+    private static int countInRangeByScan(List<SubtitleItem> subtitles, double from, double to) {
+        int count = 0;
+        for (var item : subtitles) {
+            if (item.start() < to && from < item.end()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,170 @@
+package ru.home.video.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static ru.home.video.config.SubtitleConfig.*;
+
+/**
+ * The class writes a WAV file (16000 Hz, 16 bit, mono) with a speech-like signal of any duration: phrases of words,
+ * words of syllables, a syllable is a buzz of vocal cords (a pitch glides) filtered by two formants, sometimes
+ * with a noisy consonant in front, pauses between words and phrases contain a quiet noise. A recognizer treats it
+ * as a speech (it produces words and phrases), so every stage of the pipeline gets a realistic load.
+ * The file is written by portions, so hours of audio don't need memory.
+ */
+public class SyntheticSpeechGenerator {
+
+    private static final int WAV_HEADER_SIZE = 44;
+
+    private final Random random;
+    private final OutputStream out;
+    private final ByteBuffer portion = ByteBuffer.allocate(AUDIO_SAMPLE_RATE * 2).order(ByteOrder.LITTLE_ENDIAN);
+    private long samplesLeft;
+    // states of the formant filters and of the glottal pulse
+    private double phase;
+    private double f1y1, f1y2, f2y1, f2y2, noiseY;
+
+    private SyntheticSpeechGenerator(OutputStream out, long samples, long seed) {
+        this.out = out;
+        this.samplesLeft = samples;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * The method writes a speech-like WAV file
+     *
+     * @param wavPath         - a path of the new file
+     * @param durationSeconds - a duration of the audio
+     * @param seed            - the same seed gives the same file
+     */
+    public static void writeWav(Path wavPath, double durationSeconds, long seed) throws IOException {
+        long samples = (long) (durationSeconds * AUDIO_SAMPLE_RATE);
+        if (samples * 2 > 0xFFFFFFFFL - 36) {
+            throw new IllegalArgumentException("A WAV file can't contain more than ~37 hours of audio");
+        }
+        try (var out = new BufferedOutputStream(Files.newOutputStream(wavPath), 1 << 16)) {
+            out.write(getWavHeader(samples * 2));
+            var generator = new SyntheticSpeechGenerator(out, samples, seed);
+            generator.writeSpeech();
+            generator.flushPortion();
+        }
+    }
+
+    /**
+     * The method joins WAV files of the generator into one file (e.g. episodes of a series, which share an intro)
+     *
+     * @param wavPath - a path of the new file
+     * @param parts   - files in the order of playing
+     */
+    public static void concatenateWav(Path wavPath, List<Path> parts) throws IOException {
+        long dataSize = 0;
+        for (Path part : parts) {
+            dataSize += Files.size(part) - WAV_HEADER_SIZE;
+        }
+        try (var out = new BufferedOutputStream(Files.newOutputStream(wavPath), 1 << 16)) {
+            out.write(getWavHeader(dataSize));
+            for (Path part : parts) {
+                try (var in = Files.newInputStream(part)) {
+                    in.skipNBytes(WAV_HEADER_SIZE);
+                    in.transferTo(out);
+                }
+            }
+        }
+    }
+
+    // === Auxiliary methods ===
+
+    // phrases of 3..10 words, a word of 1..3 syllables
+    private void writeSpeech() throws IOException {
+        while (samplesLeft > 0) {
+            int words = 3 + random.nextInt(8);
+            for (int word = 0; word < words && samplesLeft > 0; word++) {
+                int syllables = 1 + random.nextInt(3);
+                double pitch = 100 + random.nextDouble() * 120; // a voice of a speaker (Hz)
+                for (int syllable = 0; syllable < syllables; syllable++) {
+                    if (random.nextBoolean()) {
+                        writeConsonant(0.02 + random.nextDouble() * 0.04);
+                    }
+                    writeVowel(0.12 + random.nextDouble() * 0.16, pitch,
+                            300 + random.nextDouble() * 500, 900 + random.nextDouble() * 1400);
+                }
+                writeSilence(0.04 + random.nextDouble() * 0.08); // between words
+            }
+            writeSilence(0.4 + random.nextDouble() * 0.8); // between phrases
+        }
+    }
+
+    // a sawtooth of vocal cords, its pitch glides down, two resonators give formants of a vowel
+    private void writeVowel(double seconds, double pitch, double formant1, double formant2) throws IOException {
+        int length = (int) (seconds * AUDIO_SAMPLE_RATE);
+        double r1 = Math.exp(-Math.PI * 80 / AUDIO_SAMPLE_RATE), r2 = Math.exp(-Math.PI * 120 / AUDIO_SAMPLE_RATE);
+        double a11 = -2 * r1 * Math.cos(2 * Math.PI * formant1 / AUDIO_SAMPLE_RATE), a12 = r1 * r1;
+        double a21 = -2 * r2 * Math.cos(2 * Math.PI * formant2 / AUDIO_SAMPLE_RATE), a22 = r2 * r2;
+        for (int i = 0; i < length && samplesLeft > 0; i++) {
+            double frequency = pitch * (1.1 - 0.2 * i / length);
+            phase += frequency / AUDIO_SAMPLE_RATE;
+            phase -= Math.floor(phase);
+            double source = 2 * phase - 1;
+            double y1 = source * (1 - r1) - a11 * f1y1 - a12 * f1y2;
+            f1y2 = f1y1;
+            f1y1 = y1;
+            double y2 = source * (1 - r2) - a21 * f2y1 - a22 * f2y2;
+            f2y2 = f2y1;
+            f2y1 = y2;
+            double envelope = Math.sin(Math.PI * i / length); // a smooth beginning and ending of the syllable
+            writeSample((y1 + 0.6 * y2) * envelope * 6000 + getNoise(30));
+        }
+    }
+
+    // a hiss ('s', 'sh', 'f'): a white noise without low frequencies
+    private void writeConsonant(double seconds) throws IOException {
+        int length = (int) (seconds * AUDIO_SAMPLE_RATE);
+        for (int i = 0; i < length && samplesLeft > 0; i++) {
+            double noise = random.nextGaussian();
+            double highPassed = noise - noiseY;
+            noiseY = noise * 0.3 + noiseY * 0.7;
+            writeSample(highPassed * 1500 * Math.sin(Math.PI * i / length));
+        }
+    }
+
+    private void writeSilence(double seconds) throws IOException {
+        int length = (int) (seconds * AUDIO_SAMPLE_RATE);
+        for (int i = 0; i < length && samplesLeft > 0; i++) {
+            writeSample(getNoise(30));
+        }
+    }
+
+    private double getNoise(double amplitude) {
+        return random.nextGaussian() * amplitude;
+    }
+
+    private void writeSample(double value) throws IOException {
+        portion.putShort((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value))));
+        samplesLeft--;
+        if (!portion.hasRemaining()) {
+            flushPortion();
+        }
+    }
+
+    private void flushPortion() throws IOException {
+        out.write(portion.array(), 0, portion.position());
+        portion.clear();
+    }
+
+    private static byte[] getWavHeader(long dataSize) {
+        return ByteBuffer.allocate(WAV_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .put("RIFF".getBytes()).putInt((int) (36 + dataSize)).put("WAVE".getBytes())
+                .put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) AUDIO_CHANNELS)
+                .putInt(AUDIO_SAMPLE_RATE).putInt(BYTES_PER_SECOND_OF_AUDIO)
+                .putShort((short) (AUDIO_CHANNELS * AUDIO_BITS_PER_SAMPLE / 8)).putShort((short) AUDIO_BITS_PER_SAMPLE)
+                .put("data".getBytes()).putInt((int) dataSize)
+                .array();
+    }
+}
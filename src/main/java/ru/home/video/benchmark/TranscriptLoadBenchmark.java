@@ -0,0 +1,82 @@
+package ru.home.video.benchmark;
+
+import ru.home.video.model.subtitles.SubtitleItem;
+import ru.home.video.service.SubtitleService;
+import ru.home.video.service.TranscriptFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The benchmark saves a synthetic transcript and measures its loading: mapping of the file (it's what is needed
+ * to read any phrase), reading of all phrases and rendering of subtitles in SRT format.
+ * <p>
+ * Usage: {@code TranscriptLoadBenchmark [phrases] [iterations]}
+ */
+public class TranscriptLoadBenchmark {
+
+    private static final String[] WORDS = {"the", "video", "subtitles", "привет", "как", "дела", "speech", "model"};
+
+    public static void main(String[] args) throws IOException {
+        int phraseCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        var transcriptPath = Files.createTempFile("javasubprovider_transcript_", ".jspt");
+        try {
+            TranscriptFile.save(transcriptPath, createPhrases(phraseCount));
+            System.out.printf("%d phrases, %d bytes%n", phraseCount, Files.size(transcriptPath));
+
+            // 1. a warm-up: the file gets into the page cache, the JIT compiles the loops
+            long checksum = 0;
+            for (int i = 0; i < iterations; i++) {
+                checksum += SubtitleService.createSrtSubtitles(TranscriptFile.load(transcriptPath).toSubtitleItems())
+                        .length();
+            }
+            // 2. every step is measured separately, the result is the median of iterations
+            long[] load = new long[iterations];
+            long[] items = new long[iterations];
+            long[] srt = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                long started = System.nanoTime();
+                var transcript = TranscriptFile.load(transcriptPath);
+                long loaded = System.nanoTime();
+                var phrases = transcript.toSubtitleItems();
+                long converted = System.nanoTime();
+                checksum += SubtitleService.createSrtSubtitles(phrases).length();
+                long rendered = System.nanoTime();
+                load[i] = loaded - started;
+                items[i] = converted - loaded;
+                srt[i] = rendered - converted;
+            }
+            System.out.printf("%-28s %12s%n", "step", "median, us");
+            System.out.printf("%-28s %12.1f%n", "load (map + header)", getMedian(load) / 1e3);
+            System.out.printf("%-28s %12.1f%n", "all phrases -> SubtitleItem", getMedian(items) / 1e3);
+            System.out.printf("%-28s %12.1f%n", "SubtitleItem -> SRT", getMedian(srt) / 1e3);
+            System.out.println("(checksum " + checksum + ")");
+        } finally {
+            Files.deleteIfExists(transcriptPath);
+        }
+    }
+
+    // phrases of 3..10 words, one phrase per 2.5 seconds
+    private static List<SubtitleItem> createPhrases(int phraseCount) {
+        List<SubtitleItem> phrases = new ArrayList<>(phraseCount);
+        for (int i = 0; i < phraseCount; i++) {
+            var text = new StringBuilder();
+            for (int word = 0; word < 3 + i % 8; word++) {
+                text.append(word == 0 ? "" : " ").append(WORDS[(i + word) % WORDS.length]);
+            }
+            phrases.add(new SubtitleItem(i * 2.5, i * 2.5 + 2.0, text.toString(), null));
+        }
+        return phrases;
+    }
+
+    private static long getMedian(long[] values) {
+        var sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,120 @@
+package ru.home.video.benchmark;
+
+import ru.home.video.model.enums.LanguageType;
+import ru.home.video.model.subtitles.SubtitleItem;
+import ru.home.video.model.subtitles.SubtitleStyle;
+import ru.home.video.service.CancellationToken;
+import ru.home.video.service.SubtitleService;
+import ru.home.video.service.TranslationBackendService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The benchmark compares two ways of translation of concurrent jobs (a stub of LibreTranslate answers with a latency
+ * of a request and a latency of every text, see {@link StubTranslatorServer}):
+ * <ul>
+ *     <li>per phrase - every phrase of every job is a request (as it was before the aggregator), requests go
+ *     through the same adaptive limit of concurrent requests (see {@link TranslationBackendService})</li>
+ *     <li>aggregated - {@link SubtitleService#getReadySubtitles}, phrases of all jobs are sent by batches, the same
+ *     phrases of different jobs are translated once</li>
+ * </ul>
+ * Jobs share a part of phrases (e.g. episodes of a series with the same opening).
+ * <p>
+ * Usage: {@code TranslationThroughputBenchmark [jobs] [phrases of a job] [shared part 0..1]}.
+ * Options: {@code -Dbenchmark.requestLatencyMillis=30}, {@code -Dbenchmark.textLatencyMicros=500}.
+ */
+public class TranslationThroughputBenchmark {
+
+    private static final String[] WORDS = {"the", "door", "is", "open", "we", "have", "to", "go", "now", "where",
+            "are", "you", "he", "said", "nothing", "again", "tomorrow", "night", "look", "here"};
+
+    public static void main(String[] args) throws Exception {
+        int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int phrasesPerJob = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        double sharedPart = args.length > 2 ? Double.parseDouble(args[2]) : 0.3;
+        long requestLatencyMillis = Long.getLong("benchmark.requestLatencyMillis", 30);
+        long textLatencyMicros = Long.getLong("benchmark.textLatencyMicros", 500);
+
+        try (var translator = new StubTranslatorServer(requestLatencyMillis, textLatencyMicros)) {
+            // the url has to be set before the config of the app is loaded
+            System.setProperty("javasubprovider.libreUrl", translator.getUrl());
+            var transcripts = createTranscripts(jobs, phrasesPerJob, sharedPart);
+            System.out.printf("%d jobs x %d phrases (shared: %.0f%%), a request: %d ms + %d µs per text%n",
+                    jobs, phrasesPerJob, sharedPart * 100, requestLatencyMillis, textLatencyMicros);
+            System.out.printf("%-14s %10s %10s %10s %14s%n", "mode", "wall, ms", "requests", "texts", "phrases/s");
+
+            run("per phrase", translator, transcripts, TranslationThroughputBenchmark::translatePerPhrase);
+            run("aggregated", translator, transcripts, transcript -> SubtitleService.getReadySubtitles(transcript,
+                    LanguageType.en, "ru", SubtitleStyle.getDefaultStyle(), new CancellationToken()));
+        }
+    }
+
+    // === Auxiliary methods ===
+
+    private interface Translation {
+        List<SubtitleItem> translate(List<SubtitleItem> transcript);
+    }
+
+    // runs all jobs concurrently, as the job service does
+    private static void run(String mode, StubTranslatorServer translator, List<List<SubtitleItem>> transcripts,
+                            Translation translation) throws Exception {
+        long requestsBefore = translator.getRequests();
+        long textsBefore = translator.getTexts();
+        long started = System.nanoTime();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<SubtitleItem>>> results = new ArrayList<>();
+            for (var transcript : transcripts) {
+                results.add(executor.submit(() -> translation.translate(transcript)));
+            }
+            for (var result : results) {
+                result.get();
+            }
+        }
+        long wallMillis = (System.nanoTime() - started) / 1_000_000;
+        long phrases = transcripts.stream().mapToLong(List::size).sum();
+        System.out.printf("%-14s %10d %10d %10d %14.0f%n", mode, wallMillis,
+                translator.getRequests() - requestsBefore, translator.getTexts() - textsBefore,
+                phrases * 1000.0 / Math.max(1, wallMillis));
+    }
+
+    private static List<SubtitleItem> translatePerPhrase(List<SubtitleItem> transcript) {
+        return transcript.stream()
+                .map(item -> new SubtitleItem(item.start(), item.end(),
+                        TranslationBackendService.translateBatch(List.of(item.text()), LanguageType.en, "ru", "")
+                                .get(0),
+                        item.style()))
+                .toList();
+    }
+
+    // every job gets the same 'shared' phrases in the same places and its own phrases in other places
+    private static List<List<SubtitleItem>> createTranscripts(int jobs, int phrasesPerJob, double sharedPart) {
+        var random = new Random(42);
+        List<String> sharedPhrases = new ArrayList<>();
+        for (int i = 0; i < phrasesPerJob; i++) {
+            sharedPhrases.add(createPhrase(random));
+        }
+        List<List<SubtitleItem>> transcripts = new ArrayList<>();
+        for (int job = 0; job < jobs; job++) {
+            List<SubtitleItem> transcript = new ArrayList<>();
+            for (int i = 0; i < phrasesPerJob; i++) {
+                var text = random.nextDouble() < sharedPart ? sharedPhrases.get(i) : createPhrase(random);
+                transcript.add(new SubtitleItem(i * 3.0, i * 3.0 + 2.5, text, null));
+            }
+            transcripts.add(transcript);
+        }
+        return transcripts;
+    }
+
+    private static String createPhrase(Random random) {
+        var phrase = new StringBuilder();
+        int words = 3 + random.nextInt(8);
+        for (int i = 0; i < words; i++) {
+            phrase.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return phrase.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package ru.home.video.benchmark;
+
+import ru.home.video.service.CancellationToken;
+import ru.home.video.service.JobContext;
+import ru.home.video.service.NativeHandleTracker;
+import ru.home.video.service.SpeechRecognitionService;
+import ru.home.video.service.VoskResourceService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static ru.home.video.config.SubtitleConfig.RECOGNITION_CHUNK_SIZE;
+
+/**
+ * The soak test recognizes hundreds of short clips one by one, as a long-running server does, and checks that
+ * native memory doesn't grow: RSS is sampled after every clip, the growth is estimated by a line fitted to samples
+ * of the second half of the run (the first half warms up allocators of the JVM and 'VOSK').
+ * Every clip is a job of its own (see {@link NativeHandleTracker#openLeakCheck}), the leak detection mode is enabled,
+ * so a native object, which isn't closed, is reported at once.
+ * <p>
+ * Usage: {@code VoskSoakTest <vosk model folder> [clips] [seconds of a clip]}.
+ * Options: {@code -Dsoak.keepModel=true} - the model is leased for the whole run, so only recognizers are created
+ * and closed (by default the model is loaded and closed for every clip, as it happens for jobs one by one).
+ * RSS is read from '/proc/self/status' (see {@link StageMetricsRecorder}), so the test is run on Linux.
+ */
+public class VoskSoakTest {
+
+    private static final int DISTINCT_CLIPS = 8;
+    private static final double MAX_GROWTH_MEGABYTES_PER_100_CLIPS = 5.0;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: VoskSoakTest <vosk model folder> [clips] [seconds of a clip]");
+            return;
+        }
+        // the mode has to be enabled before the config of the app is loaded
+        System.setProperty("javasubprovider.leakDetection", "true");
+        String modelPath = args[0];
+        int clips = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        double clipSeconds = args.length > 2 ? Double.parseDouble(args[2]) : 5;
+
+        var workFolder = Files.createTempDirectory("javasubprovider_soak_");
+        try (var keptModel = Boolean.getBoolean("soak.keepModel") ? VoskResourceService.acquireModel(modelPath) :
+                null) {
+            // 1. a few distinct clips are generated and recognized in turn
+            List<Path> clipPaths = new ArrayList<>();
+            for (int i = 0; i < DISTINCT_CLIPS; i++) {
+                var clipPath = workFolder.resolve("clip_" + i + ".wav");
+                SyntheticSpeechGenerator.writeWav(clipPath, clipSeconds, i);
+                clipPaths.add(clipPath);
+            }
+
+            // 2. every clip is a job: a model lease (or the kept model) and a recognizer are opened and closed
+            long[] rssSamples = new long[clips];
+            long started = System.nanoTime();
+            for (int clip = 0; clip < clips; clip++) {
+                try (var job = JobContext.enter("clip-" + clip);
+                     var nativeHandles = NativeHandleTracker.openLeakCheck("clip-" + clip)) {
+                    var phrases = SpeechRecognitionService.recognizeSpeech(
+                            clipPaths.get(clip % DISTINCT_CLIPS).toString(), modelPath, RECOGNITION_CHUNK_SIZE,
+                            new CancellationToken());
+                    if (phrases == null) {
+                        System.out.println("The recognition failed, the soak test is stopped");
+                        return;
+                    }
+                }
+                rssSamples[clip] = StageMetricsRecorder.getRssBytes();
+                if ((clip + 1) % 50 == 0 || clip == clips - 1) {
+                    System.out.printf("%5d clips: RSS %5d MB, live native objects: %d (~%d MB), %.1f s%n",
+                            clip + 1, rssSamples[clip] >> 20, NativeHandleTracker.getLiveHandles().size(),
+                            NativeHandleTracker.getLiveBytes() >> 20, (System.nanoTime() - started) / 1e9);
+                }
+            }
+
+            // 3. the growth of the second half: the slope of a fitted line
+            double growthPer100Clips = getSlope(rssSamples, clips / 2, clips) * 100 / (1 << 20);
+            System.out.printf("RSS growth: %.2f MB per 100 clips (the limit: %.1f)%n", growthPer100Clips,
+                    MAX_GROWTH_MEGABYTES_PER_100_CLIPS);
+            System.out.println(growthPer100Clips <= MAX_GROWTH_MEGABYTES_PER_100_CLIPS ? "RSS is flat" :
+                    "RSS grows, native memory leaks");
+        } finally {
+            try (Stream<Path> files = Files.walk(workFolder)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+        System.out.println("Live native objects at the end: " + NativeHandleTracker.getLiveHandles());
+    }
+
+    // === Auxiliary methods ===
+
+    // the least squares slope of samples [from, to) (bytes per clip)
+    private static double getSlope(long[] samples, int from, int to) {
+        int count = to - from;
+        if (count < 2) {
+            return 0;
+        }
+        double meanX = (from + to - 1) / 2.0;
+        double meanY = 0;
+        for (int i = from; i < to; i++) {
+            meanY += (double) samples[i] / count;
+        }
+        double covariance = 0;
+        double variance = 0;
+        for (int i = from; i < to; i++) {
+            covariance += (i - meanX) * (samples[i] - meanY);
+            variance += (i - meanX) * (i - meanX);
+        }
+        return covariance / variance;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.home.video.benchmark;
+
+import org.vosk.LibVosk;
+import org.vosk.LogLevel;
+import org.vosk.Model;
+import org.vosk.Recognizer;
+import ru.home.video.service.WavAudioSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The benchmark sweeps sizes of audio portions, which are given to the recognizer, so the best size
+ * (the highest throughput) can be chosen for a 'VOSK' model (see 'SubtitleConfig.RECOGNITION_CHUNK_SIZE').
+ * <p>
+ * Usage: {@code WavChunkSizeBenchmark <audio .wav> <vosk model folder> [chunk sizes in bytes...]}
+ */
+public class WavChunkSizeBenchmark {
+
+    private static final int[] DEFAULT_CHUNK_SIZES = {1024, 2048, 4096, 8192, 16384, 32768, 65536, 131072};
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: WavChunkSizeBenchmark <audio .wav> <vosk model folder> [chunk sizes...]");
+            return;
+        }
+        var audioPath = Path.of(args[0]);
+        int[] chunkSizes = args.length > 2 ?
+                Arrays.stream(args, 2, args.length).mapToInt(Integer::parseInt).toArray() : DEFAULT_CHUNK_SIZES;
+
+        LibVosk.setLogLevel(LogLevel.WARNINGS);
+        try (var model = new Model(args[1])) {
+            // 1. a warm-up run: the file gets into the page cache, the JIT compiles the hot loop
+            recognize(model, audioPath, chunkSizes[chunkSizes.length / 2]);
+            // 2. every size is measured on the same model, the model loading isn't included into the result
+            System.out.printf("%12s %12s %12s %14s%n", "chunk, bytes", "chunk, ms", "wall, ms", "x real-time");
+            for (int chunkSize : chunkSizes) {
+                long started = System.nanoTime();
+                double audioSeconds = recognize(model, audioPath, chunkSize);
+                double wallSeconds = (System.nanoTime() - started) / 1e9;
+                System.out.printf("%12d %12.1f %12.0f %14.2f%n", chunkSize, chunkSize / 32.0,
+                        wallSeconds * 1000, audioSeconds / wallSeconds);
+            }
+        }
+    }
+
+    // the same loop as in 'SpeechRecognitionService.recognizeSpeech', it gives a duration of the audio (seconds)
+    private static double recognize(Model model, Path audioPath, int chunkSize) throws IOException {
+        try (var recognizer = new Recognizer(model, 16000.0f);
+             var audioSource = WavAudioSource.open(audioPath)) {
+            recognizer.setWords(true);
+            byte[] buffer = new byte[audioSource.getFrameAlignedSize(chunkSize)];
+            int bytesRead;
+            while ((bytesRead = audioSource.read(buffer)) != -1) {
+                if (recognizer.acceptWaveForm(buffer, bytesRead)) {
+                    recognizer.getResult();
+                }
+            }
+            recognizer.getFinalResult();
+            return audioSource.getDurationSeconds();
+        }
+    }
+}
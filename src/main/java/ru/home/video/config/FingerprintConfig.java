@@ -0,0 +1,45 @@
+package ru.home.video.config;
+
+public class FingerprintConfig {
+    // === REUSE OF REPEATED SEGMENTS (INTROS, OUTROS, RECAPS OF A SERIES) ===
+
+    // segments of audio, which were heard in earlier episodes of the series, aren't recognized again, their phrases
+    // are taken from the earlier episode ('-Djavasubprovider.reuseRepeatedSegments=true')
+    public static final boolean REUSE_REPEATED_SEGMENTS = Boolean.getBoolean("javasubprovider.reuseRepeatedSegments");
+    // an index of a series is kept in this folder of the output folder (a series is a folder with episodes)
+    public static final String SERIES_INDEX_FOLDER_NAME = ".javasubprovider_series";
+    public static final int SERIES_MAX_EPISODES = 12; // the oldest episodes are removed from the index
+    // an episode, which is repeated almost entirely (the same video again), isn't added to the index
+    public static final double SERIES_MAX_REUSED_SHARE_TO_INDEX = 0.95;
+
+    // === SPECTRAL PEAKS ===
+
+    public static final int FINGERPRINT_FRAME_SIZE = 2048; // samples (128 ms of 16 kHz audio), a power of two
+    public static final int FINGERPRINT_HOP_SIZE = 1024; // samples (64 ms), the time resolution of the index
+    // peaks are searched in bands of FFT bins (~31 Hz - 4 kHz), so every band gives its strongest frequency
+    public static final int[] FINGERPRINT_BAND_EDGES = {4, 16, 32, 64, 128, 256, 512};
+    public static final int FINGERPRINT_PEAKS_PER_FRAME = 3;
+    public static final double FINGERPRINT_SILENCE_RMS = 100; // quieter frames (16 bit samples) don't give peaks
+    // a hash is a pair of peaks: an anchor and one of the next peaks within the target zone (frames)
+    public static final int FINGERPRINT_TARGET_ZONE_FRAMES = 16;
+    public static final int FINGERPRINT_FAN_OUT = 3;
+
+    // === MATCHING ===
+
+    // a hash, which is met too often in an episode (a tone, a hum), doesn't tell anything about the time
+    public static final int FINGERPRINT_MAX_HASH_OCCURRENCES = 32;
+    public static final int FINGERPRINT_OFFSET_TOLERANCE_FRAMES = 1; // an offset drifts after re-encoding
+    public static final int FINGERPRINT_MIN_OFFSET_MATCHES = 40; // offsets with less matches are random
+    public static final int FINGERPRINT_MAX_OFFSETS_PER_EPISODE = 16;
+    public static final double FINGERPRINT_MIN_SEGMENT_SECONDS = 8; // shorter repeats aren't worth skipping
+    public static final double FINGERPRINT_MAX_GAP_SECONDS = 2; // a segment goes on through a short gap of matches
+    public static final double FINGERPRINT_MIN_MATCHES_PER_FRAME = 0.5;
+    // edges of a segment are trimmed, till they have enough matches within the window (random matches at the same
+    // offset would stretch a segment into new audio, a shorter segment is only recognized again)
+    public static final double FINGERPRINT_EDGE_WINDOW_SECONDS = 1.0;
+    public static final int FINGERPRINT_MIN_EDGE_MATCHES = 8;
+    // a segment is shrunk by this guard at both sides: edges are known up to a frame and a pair of peaks spans frames
+    public static final double FINGERPRINT_EDGE_GUARD_SECONDS = 1.0;
+    // the audio around a segment is recognized too (with this margin), so words at the edges aren't cut
+    public static final double RECOGNITION_MARGIN_SECONDS = 1.0;
+}
@@ -9,16 +9,23 @@ public class JavaSubProviderAppConfig {
 
     // === PATH VARIABLES ===
 
+    // the model of the last 'setAppComponentsByLanguageType' call (jobs take their models by their own languages)
     @Getter
     private static String VOSK_MODEL_PATH;
 
-    public static final String APP_COMPONENTS_PATH = System.getProperty("user.dir") + File.separator +
-            "src" + File.separator + "main" + File.separator + "resources" + File.separator + "app_components";
+    // it can be replaced by '-Djavasubprovider.appComponentsPath=<folder>' (the same layout of folders is expected)
+    public static final String APP_COMPONENTS_PATH = System.getProperty("javasubprovider.appComponentsPath",
+            System.getProperty("user.dir") + File.separator + "src" + File.separator + "main" + File.separator +
+                    "resources" + File.separator + "app_components");
 
     // a path to 'FFMPEG' app, which was installed locally and works with video and audio files
     public static final String FFMPEG_PATH = APP_COMPONENTS_PATH + File.separator + "ffmpeg" +
             File.separator + "bin" + File.separator + "ffmpeg.exe";
 
+    // a path to 'FFPROBE' app from the same bundle, it gives a duration and streams of a video file
+    public static final String FFPROBE_PATH = APP_COMPONENTS_PATH + File.separator + "ffmpeg" +
+            File.separator + "bin" + File.separator + "ffprobe.exe";
+
     public static final String PYTHON_SCRIPTS_PATH = APP_COMPONENTS_PATH + File.separator + "Python" +
             File.separator + "Python312" + File.separator + "Scripts"; // a path to python scripts folder
 
@@ -27,17 +34,42 @@ public class JavaSubProviderAppConfig {
 
     public static final String HOST = "127.0.0.1"; // a host where will be launched the translation service
     public static final String PORT = "5000"; // the exact address where the translation service will be listening requests
-    // url of the translator service (127.0.0.1 - localhost)
-    public static final String LIBRE_URL = "http://" + HOST + ":" + PORT + "/translate";
+    // url of the translator service (127.0.0.1 - localhost), it can be replaced by '-Djavasubprovider.libreUrl=<url>'
+    public static final String LIBRE_URL = System.getProperty("javasubprovider.libreUrl",
+            "http://" + HOST + ":" + PORT + "/translate");
 
     /**
      * The method sets language models for extracting audio track from video (.mp4 -> .wav) and convert an audio into text
      *
      * @param languageType - the language of a provided audio
+     * @deprecated concurrent jobs have different languages, use {@link #getVoskModelPathByLanguageType} instead
      */
+    @Deprecated
     public static void setAppComponentsByLanguageType(LanguageType languageType) {
         // a path to language model, which extracts phrases from an audio track and converts it into text (string)
-        VOSK_MODEL_PATH = APP_COMPONENTS_PATH + File.separator +
+        VOSK_MODEL_PATH = getVoskModelPathByLanguageType(languageType);
+    }
+
+    /**
+     * The method gives a path to the 'VOSK' language model without changing the global app components
+     *
+     * @param languageType - the language of a provided audio
+     * @return a path to the folder with the language model
+     */
+    public static String getVoskModelPathByLanguageType(LanguageType languageType) {
+        return APP_COMPONENTS_PATH + File.separator +
                 "vosk" + File.separator + languageType + File.separator + "vosk-model";
     }
+
+    /**
+     * The method gives a path to a small 'VOSK' language model (tens of MB), it's used for preview subtitles
+     * (the folder is optional, without it the recognition is done in one pass)
+     *
+     * @param languageType - the language of a provided audio
+     * @return a path to the folder with the small language model
+     */
+    public static String getSmallVoskModelPathByLanguageType(LanguageType languageType) {
+        return APP_COMPONENTS_PATH + File.separator +
+                "vosk" + File.separator + languageType + File.separator + "vosk-model-small";
+    }
 }
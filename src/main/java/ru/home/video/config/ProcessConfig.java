@@ -0,0 +1,42 @@
+package ru.home.video.config;
+
+import java.util.Map;
+
+public class ProcessConfig {
+
+    // === OUTPUT OF EXTERNAL APPS ===
+
+    // only the last bytes of stdout/stderr are kept (a progress of 'ffmpeg' can be printed for hours)
+    public static final int PROCESS_OUTPUT_BUFFER_SIZE = 64 * 1024;
+    // timestamps and flags of all packets of a video (~ 16 bytes for every frame: ~ 7 MB for 2 hours of 60 fps),
+    // a longer list is truncated and the video is re-encoded whole instead of being cut by keyframes
+    public static final int KEYFRAMES_OUTPUT_BUFFER_SIZE = 16 * 1024 * 1024;
+
+    // === TIMEOUTS OF EXTERNAL APPS ===
+
+    public static final long PROBE_TIMEOUT_MILLIS = 30_000;
+    public static final long KEYFRAMES_PROBE_TIMEOUT_MILLIS = 10 * 60_000; // 10 minutes (all packets are read)
+    public static final long AUDIO_EXTRACTION_TIMEOUT_MILLIS = 30 * 60_000; // 30 minutes
+    public static final long SUBTITLES_BURNING_TIMEOUT_MILLIS = 6 * 60 * 60_000; // 6 hours (a long film, a slow CPU)
+
+    // === SMART RENDER (only parts of a video with subtitles are re-encoded) ===
+
+    // it's enabled by '-Djavasubprovider.smartRender=true', otherwise every frame is re-encoded
+    public static final boolean SMART_RENDER = Boolean.getBoolean("javasubprovider.smartRender");
+    // when subtitles cover a bigger share of a video, the whole video is re-encoded (cutting doesn't pay off)
+    public static final double SMART_RENDER_MAX_SHARE_WITH_SUBTITLES = 0.8;
+    // video codecs, which can be cut and re-encoded by the same codec ('ffprobe' name -> 'ffmpeg' encoder)
+    public static final Map<String, String> SMART_RENDER_ENCODERS = Map.of(
+            "h264", "libx264",
+            "hevc", "libx265"
+    );
+
+    // === CLIP PREVIEW (a short window of a video with subtitles, see ClipPreviewService) ===
+
+    public static final long PREVIEW_TIMEOUT_MILLIS = 2 * 60_000; // 2 minutes (only seconds of a video are decoded)
+    // a longer window is cut, so a preview takes seconds regardless of what was asked
+    public static final double PREVIEW_MAX_SECONDS = 60;
+    public static final int PREVIEW_MAX_FRAMES = 12;
+    // a fast preset of 'libx264': a preview is watched once, its size doesn't matter
+    public static final String PREVIEW_ENCODER_PRESET = "veryfast";
+}
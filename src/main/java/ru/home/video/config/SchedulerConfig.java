@@ -0,0 +1,35 @@
+package ru.home.video.config;
+
+public class SchedulerConfig {
+    // === BUDGETS OF RESOURCES (they are derived from the machine, where the app is launched) ===
+    public static final int AVAILABLE_CORES = Runtime.getRuntime().availableProcessors();
+    public static final int CORES_PER_FFMPEG_PROCESS = 4; // 'ffmpeg' encodes a video by several threads
+    // a recognizer needs (a size of the language model on a disk * this factor) bytes of native memory
+    public static final double MODEL_MEMORY_FACTOR = 1.5;
+    // a part of physical memory (except the java heap) which can be taken by recognizers
+    public static final double RECOGNITION_MEMORY_SHARE = 0.75;
+    // a part of recognition slots, which can be taken by background recognitions (refinements of previews), so
+    // recognitions of other jobs in the foreground always find a free core
+    public static final double BACKGROUND_RECOGNITION_SHARE = 0.5;
+
+    // === ORDER OF JOBS (SHORTEST JOB FIRST) ===
+    // seconds of work for one second of a video at every stage (real-time factors), they define a cost of a job
+    public static final double REAL_TIME_FACTOR_OF_AUDIO_EXTRACTION = 0.02;
+    public static final double REAL_TIME_FACTOR_OF_RECOGNITION = 0.3;
+    public static final double REAL_TIME_FACTOR_OF_TRANSLATION = 0.05;
+    public static final double REAL_TIME_FACTOR_OF_BURNING = 0.5;
+    // every second of waiting reduces the cost of a job by this number of seconds, so long jobs aren't starved
+    public static final double AGING_SECONDS_PER_SECOND_OF_WAITING = 4.0;
+    // a video, which wasn't probed, gets the median cost of recently probed videos (of this number of the last ones)
+    // or the cost of a video of this duration, when nothing was probed yet
+    public static final int RECENT_ESTIMATES_SIZE = 64;
+    public static final double DEFAULT_VIDEO_DURATION_SECONDS = 45 * 60;
+
+    // === NATIVE MEMORY OF 'VOSK' ===
+    // native memory of one recognizer (decoding graphs, lattices of a phrase), it's approximate, every recognition
+    // reserves it in addition to the model, which is shared by recognitions of its language
+    public static final int RECOGNIZER_APPROXIMATE_MEGABYTES = 16;
+    // '-Djavasubprovider.leakDetection=true': places where native objects are opened are remembered, native objects
+    // which weren't closed by a job are reported when the job ends
+    public static final boolean LEAK_DETECTION = Boolean.getBoolean("javasubprovider.leakDetection");
+}
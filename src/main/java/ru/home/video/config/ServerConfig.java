@@ -0,0 +1,46 @@
+package ru.home.video.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ServerConfig {
+    // === HTTP SERVER (HEADLESS MODE) ===
+    public static final int SERVER_PORT = 8080; // a port by default, where jobs are submitted
+    // the server doesn't check who sends jobs, so it's reachable only from this machine by default,
+    // other hosts can reach it only by '-Djavasubprovider.serverHost=0.0.0.0' (or an address of an interface)
+    public static final String SERVER_HOST = System.getProperty("javasubprovider.serverHost",
+            JavaSubProviderAppConfig.HOST);
+    // videos are read and new videos are written only within these folders (separated by ';' on Windows,
+    // ':' on Linux/Mac): '-Djavasubprovider.serverInputRoots=...', '-Djavasubprovider.serverOutputRoots=...',
+    // the working folder of the app by default
+    public static final List<Path> SERVER_INPUT_ROOTS = getRoots("javasubprovider.serverInputRoots");
+    public static final List<Path> SERVER_OUTPUT_ROOTS = getRoots("javasubprovider.serverOutputRoots");
+    // a number of videos which are processed at the same time, their stages are limited by 'ResourceSchedulerService'
+    public static final int SERVER_JOB_WORKERS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    // a number of jobs which can wait for a worker, the next jobs are rejected (429 - Too Many Requests)
+    public static final int SERVER_QUEUE_CAPACITY = 16;
+    public static final int SERVER_RETRY_AFTER_SECONDS = 30; // a hint for a client, when it can try again
+    // finished jobs (with their subtitles) are kept for a client during this time, but no more than the last ones
+    public static final long SERVER_FINISHED_JOB_TTL_MILLIS = 60 * 60_000; // 1 hour
+    public static final int SERVER_MAX_FINISHED_JOBS = 256;
+
+    // real paths (without links) of the folders of the property
+    private static List<Path> getRoots(String propertyName) {
+        var property = System.getProperty(propertyName, System.getProperty("user.dir"));
+        List<Path> roots = new ArrayList<>();
+        for (String root : property.split(File.pathSeparator)) {
+            if (root.isBlank()) {
+                continue;
+            }
+            try {
+                roots.add(Path.of(root.trim()).toRealPath());
+            } catch (IOException e) {
+                System.out.println("The folder of '" + propertyName + "' doesn't exist: " + root);
+            }
+        }
+        return List.copyOf(roots);
+    }
+}
@@ -11,6 +11,12 @@ public class SubtitleConfig {
     public static final int CENTER_POSITION = 5;
     public static final int TOP_POSITION = 8;
 
+    // === SUBTITLES STYLE BY DEFAULT (the same values as the user form has by default) ===
+    public static final String DEFAULT_SIZE_OF_FONT = "Small";
+    public static final String DEFAULT_POSITION = "Below";
+    public static final String DEFAULT_TEXT_COLOR = "&H02FFFFFF"; // white, 0% of transparency
+    public static final String DEFAULT_BACKGROUND_COLOR = "&H99000000"; // black, the background for 0% of the font
+
     // === SUBTITLES PARAMETERS ===
 
     // ~ 35 chars for one line of subtitle
@@ -20,4 +26,42 @@ public class SubtitleConfig {
     public static final int MAX_COUNT_OF_WORDS_FOR_ONE_PORTION_SUBTITLES = 16;
     public static final double MAX_DURATION_OF_SECONDS_FOR_ONE_SUBTITLE_ON_THE_SCREEN = 7.2;
     public static final double MIN_DURATION_OF_SECONDS_FOR_ONE_SUBTITLE_ON_THE_SCREEN = 0.2;
+
+    // === AUDIO FOR SPEECH RECOGNITION ===
+
+    public static final int AUDIO_SAMPLE_RATE = 16000; // Hz, it's the standard for speech recognition
+    public static final int AUDIO_CHANNELS = 1; // mono
+    public static final int AUDIO_BITS_PER_SAMPLE = 16;
+    // a size of a portion of audio for the recognizer (bytes), it can be tuned by 'WavChunkSizeBenchmark'
+    public static final int RECOGNITION_CHUNK_SIZE = 16384;
+
+    // === LIVE MODE ===
+
+    // 16000 Hz * 2 bytes (16 bit) * 1 channel (mono) - the format of audio, which is recognized by 'VOSK'
+    public static final int BYTES_PER_SECOND_OF_AUDIO = 32000;
+    public static final int BYTES_PER_AUDIO_FRAME = 2; // a sample of the only channel
+    public static final int LIVE_BUFFER_SIZE = 3200; // 100 ms of audio, a small portion keeps the latency low
+    public static final long LIVE_GROWING_FILE_POLL_MILLIS = 100; // how often a growing file is checked for new data
+    // a growing file is treated as finished, when nothing was written into it during this time
+    public static final long LIVE_GROWING_FILE_IDLE_TIMEOUT_MILLIS = 10_000;
+
+    // === TRANSCRIPTS ===
+
+    public static final String TRANSCRIPT_EXTENSION = ".jspt";
+    // the recognized transcript is saved next to the new video ('-Djavasubprovider.saveTranscript=true')
+    public static final boolean SAVE_TRANSCRIPT = Boolean.getBoolean("javasubprovider.saveTranscript");
+
+    // === TWO-PASS RECOGNITION ===
+
+    // a small model gives preview subtitles at first, then the large model refines them in the background
+    // ('-Djavasubprovider.twoPassRecognition=true', a small model is expected in 'vosk/<language>/vosk-model-small')
+    public static final boolean TWO_PASS_RECOGNITION = Boolean.getBoolean("javasubprovider.twoPassRecognition");
+    // preview subtitles are saved next to the new video, they're replaced by refined ones, when they are ready
+    public static final String PREVIEW_SUBTITLES_EXTENSION = ".preview.ass";
+
+    // === MULTI-TRACK RECOGNITION ===
+
+    // every audio track of a known language is recognized by its own model at the same time, a subtitles file
+    // in the language of the track is saved next to the new video ('-Djavasubprovider.multiTrackRecognition=true')
+    public static final boolean MULTI_TRACK_RECOGNITION = Boolean.getBoolean("javasubprovider.multiTrackRecognition");
 }
@@ -0,0 +1,49 @@
+package ru.home.video.config;
+
+public class TranslationConfig {
+
+    // === MICRO-BATCHES OF TRANSLATION (phrases of all jobs are sent together) ===
+
+    // a batch is sent when it has this number of phrases...
+    public static final int TRANSLATION_BATCH_MAX_SIZE = 32;
+    // ...or this number of chars (a long request keeps the translation service busy, others wait for it)...
+    public static final int TRANSLATION_BATCH_MAX_CHARS = 4000;
+    // ...or when this time passed since the first phrase of the batch came
+    public static final long TRANSLATION_BATCH_WINDOW_MILLIS = 20;
+
+    // === REQUESTS TO THE TRANSLATION SERVICE ===
+
+    // a request which isn't answered in this time is a failure (a stalled service doesn't hang jobs)
+    public static final int TRANSLATION_REQUEST_TIMEOUT_MILLIS = 60_000;
+    // a batch is sent this number of times at most, pauses between attempts are random ("full jitter")...
+    public static final int TRANSLATION_MAX_ATTEMPTS = 4;
+    // ...from 0 to (this pause * 2^attempt)...
+    public static final long TRANSLATION_RETRY_BASE_DELAY_MILLIS = 250;
+    // ...but not longer than this pause
+    public static final long TRANSLATION_RETRY_MAX_DELAY_MILLIS = 8_000;
+
+    // === ADAPTIVE LIMIT OF CONCURRENT REQUESTS (AIMD by latency) ===
+
+    // the limit begins here and moves between the bounds: +1 per a window of fast responses...
+    public static final int TRANSLATION_INITIAL_CONCURRENCY = 2;
+    public static final int TRANSLATION_MIN_CONCURRENCY = 1;
+    public static final int TRANSLATION_MAX_CONCURRENCY = 64;
+    // ...and it's multiplied by this ratio after a failure or a slow response...
+    public static final double TRANSLATION_CONCURRENCY_BACKOFF_RATIO = 0.8;
+    // ...a response is slow, when its latency is this number of times longer than the best known one for batches of
+    // a similar size (1, 2, 3-4, 5-8, ... texts)
+    public static final double TRANSLATION_LATENCY_TOLERANCE = 2.0;
+    // the best known latency takes this part of a difference with every response (it follows a service for good slower)
+    public static final double TRANSLATION_BASELINE_LATENCY_DRIFT = 0.001;
+
+    // === CIRCUIT BREAKER ===
+
+    // the breaker is opened after this number of failed requests in a row, requests aren't sent then...
+    public static final int TRANSLATION_BREAKER_FAILURE_THRESHOLD = 5;
+    // ...during this time, then one request is sent as a probe: a success closes the breaker, a failure opens it again
+    public static final long TRANSLATION_BREAKER_OPEN_MILLIS = 10_000;
+    // a batch waits for the open circuit (its rejections aren't attempts) this time at most: two open windows and
+    // a probe between them, so an outage of several seconds doesn't fail jobs after hours of recognition
+    public static final long TRANSLATION_CIRCUIT_MAX_WAIT_MILLIS = 2 * TRANSLATION_BREAKER_OPEN_MILLIS +
+            TRANSLATION_REQUEST_TIMEOUT_MILLIS;
+}
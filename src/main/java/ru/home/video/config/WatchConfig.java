@@ -0,0 +1,17 @@
+package ru.home.video.config;
+
+import java.util.Set;
+
+public class WatchConfig {
+    // === WATCH FOLDER (HEADLESS MODE) ===
+    public static final Set<String> WATCH_VIDEO_EXTENSIONS = Set.of("mp4", "avi", "mov", "mkv", "wmv");
+    // a file is taken, when its size and its time of modification weren't changed during this time (it's copied)
+    public static final long WATCH_STABLE_MILLIS = 5_000;
+    public static final long WATCH_POLL_INTERVAL_MILLIS = 1_000; // how often new files and jobs are checked
+    // new files wait in the watcher, while this number of jobs waits for a worker (a burst doesn't flood the queue)
+    public static final int WATCH_MAX_QUEUED_JOBS = 2;
+    // a fingerprint of a file is made of its size, the first and the last bytes (a video isn't read entirely)
+    public static final int WATCH_FINGERPRINT_SAMPLE_BYTES = 1 << 20;
+    // fingerprints of processed files are kept in this file of the output folder, they're skipped after restarts
+    public static final String WATCH_LEDGER_FILE_NAME = ".javasubprovider_processed";
+}
@@ -0,0 +1,16 @@
+package ru.home.video.config;
+
+public class WorkerConfig {
+    // === SHARED JOB DIRECTORY (SPOOL) ===
+    public static final String PENDING_FOLDER = "pending"; // jobs which wait for a worker
+    public static final String LEASES_FOLDER = "leases"; // jobs which were claimed by workers
+    public static final String EXPIRED_FOLDER = "expired"; // leases which weren't renewed in time
+    public static final String RESULTS_FOLDER = "results"; // reports of workers about finished jobs
+
+    // === LEASES ===
+    // a job is given to another worker, if its lease wasn't renewed during this time (clocks of nodes have to be synced)
+    public static final long LEASE_DURATION_MILLIS = 60_000;
+    public static final long LEASE_RENEWAL_INTERVAL_MILLIS = 15_000; // a worker renews its leases this often
+    public static final long SPOOL_POLL_INTERVAL_MILLIS = 1_000; // how often workers and a coordinator look for jobs
+    public static final int MAX_ATTEMPTS_OF_JOB = 3; // a job is failed after this number of expired leases
+}
@@ -0,0 +1,226 @@
+package ru.home.video.controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONException;
+import org.json.JSONObject;
+import ru.home.video.config.ServerConfig;
+import ru.home.video.model.enums.JobStatus;
+import ru.home.video.model.enums.LanguageType;
+import ru.home.video.model.jobs.VideoJob;
+import ru.home.video.model.jobs.VideoJobState;
+import ru.home.video.model.subtitles.SubtitleStyle;
+import ru.home.video.service.TranslationBackendService;
+import ru.home.video.service.VideoJobService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The class responds for the HTTP interface of the headless mode (jobs are submitted by other tools).
+ * Endpoints:
+ * <ul>
+ *     <li>POST /jobs - submits a job, the body is a JSON with paths, languages and fields of a subtitle style</li>
+ *     <li>GET /jobs/{id} - a status and a progress of a job</li>
+ *     <li>DELETE /jobs/{id} - cancels a job</li>
+ *     <li>GET /jobs/{id}/subtitles - the generated subtitles (ASS)</li>
+ *     <li>GET /metrics/translation - the limit of concurrent requests and the state of the circuit breaker
+ *     in front of the translation service</li>
+ * </ul>
+ * Every request is handled by its own virtual thread. The server listens on the loopback address by default
+ * (see {@link ServerConfig#SERVER_HOST}) and reads and writes videos only within the configured folders
+ * ({@link ServerConfig#SERVER_INPUT_ROOTS}, {@link ServerConfig#SERVER_OUTPUT_ROOTS}), other paths are refused (403).
+ */
+public class JobHttpController {
+
+    private final VideoJobService videoJobService;
+    private final HttpServer server;
+
+    /**
+     * @param port            - a port where requests are listened (on {@link ServerConfig#SERVER_HOST})
+     * @param videoJobService - a service which runs submitted jobs
+     */
+    public JobHttpController(int port, VideoJobService videoJobService) throws IOException {
+        this.videoJobService = videoJobService;
+        this.server = HttpServer.create(new InetSocketAddress(ServerConfig.SERVER_HOST, port), 0);
+        this.server.createContext("/jobs", this::handleJobs);
+        this.server.createContext("/metrics/translation", this::handleTranslationMetrics);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * The method starts listening of requests
+     */
+    public void start() {
+        server.start();
+        System.out.println("The server is listening on " + ServerConfig.SERVER_HOST + ":" +
+                server.getAddress().getPort());
+    }
+
+    /**
+     * The method stops listening of requests
+     */
+    public void stop() {
+        server.stop(0);
+    }
+
+    // === Event handler ===
+    private void handleJobs(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            // '/jobs', '/jobs/{id}' or '/jobs/{id}/subtitles'
+            var pathParts = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+            var method = exchange.getRequestMethod();
+            if (pathParts.length == 2 && method.equals("POST")) {
+                handleSubmitJob(exchange);
+            } else if (pathParts.length == 3 && method.equals("GET")) {
+                sendJobState(exchange, videoJobService.getJobState(pathParts[2]));
+            } else if (pathParts.length == 3 && method.equals("DELETE")) {
+                sendJobState(exchange, videoJobService.cancelJob(pathParts[2]));
+            } else if (pathParts.length == 4 && pathParts[3].equals("subtitles") && method.equals("GET")) {
+                handleGetSubtitles(exchange, videoJobService.getJobState(pathParts[2]));
+            } else {
+                sendJson(exchange, 404, new JSONObject().put("error", "Unknown endpoint"));
+            }
+        } catch (Exception e) {
+            System.out.println("Method handleJobs was failure.\nError: " + e.getMessage());
+        }
+    }
+
+    private void handleTranslationMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            var metrics = TranslationBackendService.getMetrics();
+            sendJson(exchange, 200, new JSONObject()
+                    .put("concurrencyLimit", metrics.concurrencyLimit())
+                    .put("inFlight", metrics.inFlight())
+                    .put("circuitState", metrics.circuitState())
+                    .put("baselineLatencyMillis", metrics.baselineLatencyMillis())
+                    .put("succeeded", metrics.succeeded())
+                    .put("failed", metrics.failed())
+                    .put("retried", metrics.retried())
+                    .put("rejected", metrics.rejected()));
+        }
+    }
+
+    private void handleSubmitJob(HttpExchange exchange) throws IOException {
+        VideoJob job;
+        try {
+            job = getJobByRequestBody(exchange.getRequestBody());
+        } catch (AccessDeniedException e) {
+            sendJson(exchange, 403, new JSONObject().put("error", e.getMessage()));
+            return;
+        } catch (NoSuchFileException e) {
+            sendJson(exchange, 400, new JSONObject().put("error", "The file or the folder doesn't exist: " +
+                    e.getMessage()));
+            return;
+        } catch (JSONException | IllegalArgumentException e) {
+            sendJson(exchange, 400, new JSONObject().put("error", e.getMessage()));
+            return;
+        }
+        try {
+            var state = videoJobService.submitJob(job);
+            sendJson(exchange, 202, getJsonByJobState(state));
+        } catch (IllegalArgumentException e) {
+            sendJson(exchange, 422, new JSONObject().put("error", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(ServerConfig.SERVER_RETRY_AFTER_SECONDS));
+            sendJson(exchange, 429, new JSONObject().put("error", "Too many jobs, try again later"));
+        }
+    }
+
+    private void handleGetSubtitles(HttpExchange exchange, Optional<VideoJobState> state) throws IOException {
+        if (state.isEmpty()) {
+            sendJson(exchange, 404, new JSONObject().put("error", "Unknown job"));
+        } else if (state.get().getResult() == null) {
+            sendJson(exchange, 409, new JSONObject().put("error", "Subtitles aren't ready")
+                    .put("status", state.get().getStatus()));
+        } else {
+            send(exchange, 200, "text/x-ssa; charset=utf-8", state.get().getResult().subtitles());
+        }
+    }
+
+    private void sendJobState(HttpExchange exchange, Optional<VideoJobState> state) throws IOException {
+        if (state.isPresent()) {
+            sendJson(exchange, 200, getJsonByJobState(state.get()));
+        } else {
+            sendJson(exchange, 404, new JSONObject().put("error", "Unknown job"));
+        }
+    }
+
+    // === Auxiliary methods ===
+
+    // the style fields are optional, the values of the user form by default are used instead of the missing fields,
+    // the paths are replaced by real ones (without links and '..'), which are checked against the roots
+    private static VideoJob getJobByRequestBody(InputStream requestBody) throws IOException {
+        var body = new JSONObject(new String(requestBody.readAllBytes(), StandardCharsets.UTF_8));
+        var style = SubtitleStyle.getDefaultStyle();
+        style.setTextColor(body.optString("textColor", style.getTextColor()));
+        style.setBackgroundColor(body.optString("backgroundColor", style.getBackgroundColor()));
+        style.setFontSize(body.optInt("fontSize", style.getFontSize()));
+        style.setPosition(body.optInt("position", style.getPosition()));
+        return new VideoJob(UUID.randomUUID().toString(),
+                getPathWithinRoots(Path.of(body.getString("inputVideoFilePath")).toRealPath(),
+                        ServerConfig.SERVER_INPUT_ROOTS),
+                getPathWithinRoots(getRealOutputFolder(Path.of(body.getString("outputVideoFilePath"))),
+                        ServerConfig.SERVER_OUTPUT_ROOTS),
+                LanguageType.valueOf(body.getString("originalVideoLanguage")).name(),
+                LanguageType.valueOf(body.getString("subtitlesLanguage")).name(),
+                style);
+    }
+
+    // the output path is a folder, where the new video and temp files of the job are written
+    private static Path getRealOutputFolder(Path outputFolder) throws IOException {
+        var realFolder = outputFolder.toRealPath();
+        if (!Files.isDirectory(realFolder)) {
+            throw new IllegalArgumentException("The output path isn't a folder: " + outputFolder);
+        }
+        return realFolder;
+    }
+
+    private static String getPathWithinRoots(Path realPath, List<Path> roots) throws AccessDeniedException {
+        for (var root : roots) {
+            if (realPath.startsWith(root)) {
+                return realPath.toString();
+            }
+        }
+        throw new AccessDeniedException(realPath.toString(), null, "The path is outside the allowed folders");
+    }
+
+    private static JSONObject getJsonByJobState(VideoJobState state) {
+        var json = new JSONObject()
+                .put("id", state.getJob().id())
+                .put("status", state.getStatus())
+                .put("progress", state.getProgress())
+                .put("message", state.getMessage())
+                .put("estimatedSeconds", state.getEstimatedSeconds());
+        if (state.getStatus() == JobStatus.DONE) {
+            json.put("outputVideoPath", state.getResult().outputVideoPath());
+        }
+        if (state.getError() != null) {
+            json.put("error", state.getError());
+        }
+        return json;
+    }
+
+    private static void sendJson(HttpExchange exchange, int statusCode, JSONObject json) throws IOException {
+        send(exchange, statusCode, "application/json; charset=utf-8", json.toString());
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
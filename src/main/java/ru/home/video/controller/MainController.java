@@ -13,6 +13,7 @@ import lombok.Setter;
 import ru.home.video.config.LanguageConfig;
 import ru.home.video.model.enums.LanguageType;
 import ru.home.video.model.subtitles.SubtitleStyle;
+import ru.home.video.service.CancellationToken;
 import ru.home.video.service.TranslatorService;
 import ru.home.video.service.VideoProcessService;
 
@@ -58,6 +59,7 @@ public class MainController {
     private String targetLanguage;
     private SubtitleStyle subtitleStyle;
     private ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private CancellationToken cancellationToken = new CancellationToken();
 
     /**
      * Initialization of controller automatically after FXML file was loaded
@@ -122,6 +124,7 @@ public class MainController {
 
     @FXML
     private void handleClearForm() { // clearing of fxml form
+        cancellationToken.cancel(); // stops 'ffmpeg', the recognizer and translation of the previous flow at once
         executorService.shutdownNow(); // finish the previous flow
         init();
     }
@@ -129,17 +132,19 @@ public class MainController {
     @FXML
     private void handleExit() { // way out from app
         TranslatorService.stopTranslatorService(); // closes translate service, when a user doesn't use the app
+        cancellationToken.cancel();
         executorService.shutdownNow(); // finish the previous flow
         primaryStage.close();
     }
 
     // === Base logic of a video treatment ===
-    private void processVideo() {
+    private void processVideo(CancellationToken cancellationToken) {
         VideoProcessService.processVideo(inputVideoFilePath, outputVideoFilePath, selectedLanguage, targetLanguage,
-                subtitleStyle, progressBar, progressLabel);
+                subtitleStyle, progressBar, progressLabel, cancellationToken);
     }
 
     private void createMainFlow() {
+        cancellationToken = new CancellationToken(); // every flow has its own token
         executorService = Executors.newSingleThreadExecutor(r -> {
             Thread task = new Thread(r, "VideoProcessingThread");
             task.setDaemon(true); // the flow will be finished together with app
@@ -148,9 +153,10 @@ public class MainController {
     }
 
     private void launchMainFlow() {
+        var flowCancellationToken = cancellationToken;
         executorService.submit(() -> {
             try {
-                processVideo();
+                processVideo(flowCancellationToken);
             } catch (Exception e) {
                 TranslatorService.stopTranslatorService(); // closes translate service, when there is occurred error
                 showError("Error processing: " + e.getMessage());
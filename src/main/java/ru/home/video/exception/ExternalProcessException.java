@@ -0,0 +1,17 @@
+package ru.home.video.exception;
+
+import lombok.Getter;
+
+/**
+ * The exception is thrown when an external app ('ffmpeg', 'ffprobe') wasn't started or didn't finish its work
+ */
+@Getter
+public class ExternalProcessException extends RuntimeException {
+
+    private final String toolName;
+
+    public ExternalProcessException(String toolName, String message, Throwable cause) {
+        super(toolName + ": " + message, cause);
+        this.toolName = toolName;
+    }
+}
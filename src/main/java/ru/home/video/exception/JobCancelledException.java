@@ -0,0 +1,13 @@
+package ru.home.video.exception;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * The exception is thrown by a stage of a video treatment process, when the job was cancelled by a user
+ */
+public class JobCancelledException extends CancellationException {
+
+    public JobCancelledException() {
+        super("The job was cancelled");
+    }
+}
@@ -0,0 +1,25 @@
+package ru.home.video.exception;
+
+import lombok.Getter;
+
+/**
+ * The exception is thrown when an external app finished with a non-zero exit code
+ */
+@Getter
+public class ProcessFailedException extends ExternalProcessException {
+
+    private final int exitCode;
+    private final String stderr;
+
+    public ProcessFailedException(String toolName, int exitCode, String stderr) {
+        super(toolName, "exit code " + exitCode + getLastLine(stderr), null);
+        this.exitCode = exitCode;
+        this.stderr = stderr;
+    }
+
+    // the last line of the error output usually says what was wrong
+    private static String getLastLine(String stderr) {
+        var lines = stderr.strip().split("\\R");
+        return lines[lines.length - 1].isEmpty() ? "" : " (" + lines[lines.length - 1] + ")";
+    }
+}
@@ -0,0 +1,17 @@
+package ru.home.video.exception;
+
+import lombok.Getter;
+
+/**
+ * The exception is thrown when an external app didn't finish its work in time (the app is killed)
+ */
+@Getter
+public class ProcessTimeoutException extends ExternalProcessException {
+
+    private final long timeoutMillis;
+
+    public ProcessTimeoutException(String toolName, long timeoutMillis) {
+        super(toolName, "it didn't finish in " + timeoutMillis + " ms and was killed", null);
+        this.timeoutMillis = timeoutMillis;
+    }
+}
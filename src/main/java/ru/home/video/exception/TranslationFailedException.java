@@ -0,0 +1,12 @@
+package ru.home.video.exception;
+
+/**
+ * The exception is thrown when the translation service didn't translate texts (it's unavailable, it's too slow or
+ * it gave an unexpected response), texts aren't replaced by their originals silently
+ */
+public class TranslationFailedException extends RuntimeException {
+
+    public TranslationFailedException(String message, Throwable cause) {
+        super("The translation failed: " + message, cause);
+    }
+}
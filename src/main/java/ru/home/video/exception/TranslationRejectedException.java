@@ -0,0 +1,19 @@
+package ru.home.video.exception;
+
+import lombok.Getter;
+
+/**
+ * The exception is thrown when the translation service rejected a request (a response '4xx', e.g. an unsupported
+ * language or a too long text): the same request fails again, so it isn't repeated, and the service is healthy,
+ * so it isn't counted as its failure
+ */
+@Getter
+public class TranslationRejectedException extends TranslationFailedException {
+
+    private final int statusCode;
+
+    public TranslationRejectedException(int statusCode, String responseBody) {
+        super("the translation service rejected the request " + statusCode + ": " + responseBody, null);
+        this.statusCode = statusCode;
+    }
+}
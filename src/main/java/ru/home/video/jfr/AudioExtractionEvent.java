@@ -0,0 +1,19 @@
+package ru.home.video.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+/**
+ * An audio track is extracted from a video by 'ffmpeg'
+ */
+@Setter
+@Name("javasubprovider.AudioExtraction")
+@Label("Audio Extraction")
+@Description("An audio track is extracted from a video by 'ffmpeg'")
+public class AudioExtractionEvent extends JobEvent {
+
+    @Label("Video Path")
+    private String videoPath;
+}
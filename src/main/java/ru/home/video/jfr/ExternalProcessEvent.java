@@ -0,0 +1,30 @@
+package ru.home.video.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+/**
+ * An external app ('ffmpeg', 'ffprobe') is working
+ */
+@Setter
+@Name("javasubprovider.ExternalProcess")
+@Label("External Process")
+@Description("An external app ('ffmpeg', 'ffprobe') is working")
+public class ExternalProcessEvent extends JobEvent {
+
+    @Label("Tool")
+    private String tool;
+
+    @Label("Command")
+    private String command;
+
+    @Label("Exit Code")
+    @Description("-1, if the app was killed (a timeout or a cancellation) or it was not started")
+    private int exitCode;
+
+    @Label("Outcome")
+    @Description("OK, FAILED, TIMEOUT, CANCELLED or NOT_STARTED")
+    private String outcome;
+}
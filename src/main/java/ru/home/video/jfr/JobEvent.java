@@ -0,0 +1,23 @@
+package ru.home.video.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+import ru.home.video.service.JobContext;
+
+/**
+ * A base of JFR events of the app: an event knows the job of the thread, which created it (see {@link JobContext}).
+ * Events are written only while a recording is on ('-XX:StartFlightRecording'), otherwise 'begin()' and 'commit()'
+ * do nothing. Stack traces aren't written, the events are timed often (a field of a base event is recorded, when
+ * it isn't private).
+ */
+@Setter
+@StackTrace(false)
+@Category({"JavaSubProvider", "Pipeline"})
+public abstract class JobEvent extends Event {
+
+    @Label("Job Id")
+    protected String jobId = JobContext.getCurrentJobId();
+}
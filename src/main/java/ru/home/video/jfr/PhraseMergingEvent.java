@@ -0,0 +1,23 @@
+package ru.home.video.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+/**
+ * Recognized words are merged into phrases
+ */
+@Setter
+@Name("javasubprovider.PhraseMerging")
+@Label("Phrase Merging")
+@Description("Recognized words are merged into phrases")
+public class PhraseMergingEvent extends JobEvent {
+
+    @Label("Words")
+    private int words;
+
+    @Label("Phrases")
+    @Description("Phrases, which were completed by the words")
+    private int phrases;
+}
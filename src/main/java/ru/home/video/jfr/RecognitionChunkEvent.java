@@ -0,0 +1,25 @@
+package ru.home.video.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+/**
+ * A portion of audio is given to the recognizer 'VOSK' (acceptWaveForm)
+ */
+@Setter
+@Name("javasubprovider.RecognitionChunk")
+@Label("Recognition Chunk")
+@Description("A portion of audio is given to the recognizer 'VOSK' (acceptWaveForm)")
+public class RecognitionChunkEvent extends JobEvent {
+
+    @Label("Audio")
+    @DataAmount
+    private int bytes;
+
+    @Label("Result Ready")
+    @Description("The recognizer has an intermediate result after the portion")
+    private boolean resultReady;
+}
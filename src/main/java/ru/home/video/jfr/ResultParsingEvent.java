@@ -0,0 +1,23 @@
+package ru.home.video.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+/**
+ * A result of the recognizer (JSON) is parsed into words
+ */
+@Setter
+@Name("javasubprovider.ResultParsing")
+@Label("Result Parsing")
+@Description("A result of the recognizer (JSON) is parsed into words")
+public class ResultParsingEvent extends JobEvent {
+
+    @Label("Result")
+    @Description("Characters")
+    private int resultChars;
+
+    @Label("Words")
+    private int words;
+}
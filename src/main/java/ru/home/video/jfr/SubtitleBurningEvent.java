@@ -0,0 +1,23 @@
+package ru.home.video.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+/**
+ * Subtitles are burnt into a video by 'ffmpeg'
+ */
+@Setter
+@Name("javasubprovider.SubtitleBurning")
+@Label("Subtitle Burning")
+@Description("Subtitles are burnt into a video by 'ffmpeg'")
+public class SubtitleBurningEvent extends JobEvent {
+
+    @Label("Output Path")
+    private String outputPath;
+
+    @Label("Smart Render")
+    @Description("Only parts of the video with subtitles are re-encoded")
+    private boolean smartRender;
+}
@@ -0,0 +1,23 @@
+package ru.home.video.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+/**
+ * Subtitles of the ASS format are created from phrases
+ */
+@Setter
+@Name("javasubprovider.SubtitleGeneration")
+@Label("Subtitle Generation")
+@Description("Subtitles of the ASS format are created from phrases")
+public class SubtitleGenerationEvent extends JobEvent {
+
+    @Label("Subtitles")
+    private int subtitles;
+
+    @Label("Size")
+    @Description("Characters")
+    private int chars;
+}
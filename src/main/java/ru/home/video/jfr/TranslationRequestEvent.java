@@ -0,0 +1,37 @@
+package ru.home.video.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+/**
+ * A request to the translation service: an attempt to translate a batch of texts
+ */
+@Setter
+@Name("javasubprovider.TranslationRequest")
+@Label("Translation Request")
+@Description("A request to the translation service: an attempt to translate a batch of texts")
+public class TranslationRequestEvent extends JobEvent {
+
+    @Label("Job Ids")
+    @Description("Jobs, whose texts are in the batch (comma separated)")
+    private String jobIds;
+
+    @Label("Language Pair")
+    private String languagePair;
+
+    @Label("Texts")
+    private int texts;
+
+    @Label("Payload")
+    @Description("Characters")
+    private int payloadChars;
+
+    @Label("Attempt")
+    private int attempt;
+
+    @Label("Outcome")
+    @Description("OK, FAILED, REJECTED (the circuit is open) or REJECTED_BY_SERVICE (a response 4xx)")
+    private String outcome;
+}
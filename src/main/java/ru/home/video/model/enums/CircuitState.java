@@ -0,0 +1,11 @@
+package ru.home.video.model.enums;
+
+/**
+ * States of a circuit breaker in front of the translation service
+ */
+public enum CircuitState {
+
+    CLOSED, // requests are sent
+    OPEN, // the service failed several times in a row, requests aren't sent for a while
+    HALF_OPEN // one request is sent as a probe, its result closes or opens the circuit again
+}
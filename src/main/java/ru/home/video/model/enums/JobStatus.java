@@ -0,0 +1,13 @@
+package ru.home.video.model.enums;
+
+/**
+ * Stages of a video job life
+ */
+public enum JobStatus {
+
+    QUEUED, // the job waits for a worker
+    RUNNING, // the job is being processed
+    DONE, // the new video file was saved
+    FAILED, // the job was finished with an error
+    CANCELLED // the job was cancelled by a user
+}
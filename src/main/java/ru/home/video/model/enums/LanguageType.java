@@ -3,29 +3,37 @@ package ru.home.video.model.enums;
 import lombok.Getter;
 
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 public enum LanguageType {
 
     // You can add here your language type for downloading and using in the app context, by analogy as below, just like:
-    // "en("English"),", but before the LAST LINE WITH ';' !
-    en("English"),
+    // "en("English", "eng"),", but before the LAST LINE WITH ';' !
+    en("English", "eng"),
     // add here your language type if it's necessary. The full list of supported languages you can see here:
 
-    ru("Russian");
+    ru("Russian", "rus");
 
     @Getter
     private final String languageName;
+    // a code of ISO 639-2, video containers (MKV, MP4) mark a language of audio streams by it
+    @Getter
+    private final String languageCode;
     private static final Map<String, LanguageType> BY_LANGUAGE_NAME = new HashMap<>();
+    private static final Map<String, LanguageType> BY_LANGUAGE_TAG = new HashMap<>();
 
     static { // Initialize map when loading the class
         for (LanguageType lang : values()) {
             BY_LANGUAGE_NAME.put(lang.getLanguageName(), lang);
+            BY_LANGUAGE_TAG.put(lang.name(), lang);
+            BY_LANGUAGE_TAG.put(lang.getLanguageCode(), lang);
         }
     }
 
-    LanguageType(String languageName) {
+    LanguageType(String languageName, String languageCode) {
         this.languageName = languageName;
+        this.languageCode = languageCode;
     }
 
     /**
@@ -37,4 +45,14 @@ public enum LanguageType {
     public static LanguageType getTypeByLanguageName(String languageName) {
         return BY_LANGUAGE_NAME.getOrDefault(languageName, null);
     }
+
+    /**
+     * The method gives language type by a language tag of a media stream
+     *
+     * @param languageTag - a code of ISO 639-2 ('eng') or ISO 639-1 ('en') in any case
+     * @return - defined language type or null, if the language isn't supported (or it's unknown - 'und')
+     */
+    public static LanguageType getTypeByLanguageTag(String languageTag) {
+        return languageTag == null ? null : BY_LANGUAGE_TAG.get(languageTag.toLowerCase(Locale.ROOT));
+    }
 }
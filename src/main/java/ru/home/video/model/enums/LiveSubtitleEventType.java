@@ -0,0 +1,10 @@
+package ru.home.video.model.enums;
+
+/**
+ * Kinds of subtitles which are given by the live mode
+ */
+public enum LiveSubtitleEventType {
+
+    PARTIAL, // a provisional line, it can be changed by the next events
+    FINAL // a finished phrase, it won't be changed anymore
+}
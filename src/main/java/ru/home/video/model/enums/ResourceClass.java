@@ -0,0 +1,10 @@
+package ru.home.video.model.enums;
+
+/**
+ * Kinds of machine resources, which are used by stages of a video treatment process
+ */
+public enum ResourceClass {
+
+    FFMPEG, // extracting of audio and burning of subtitles (an external app 'ffmpeg', it uses several cores)
+    RECOGNITION // speech recognition by 'VOSK' (one core and a language model in native memory per recognizer)
+}
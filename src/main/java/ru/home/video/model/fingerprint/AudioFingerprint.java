@@ -0,0 +1,11 @@
+package ru.home.video.model.fingerprint;
+
+/**
+ * The class embodies a fingerprint of an audio track: hashes of pairs of spectral peaks with their time
+ *
+ * @param entries - a hash in the high 32 bits and a number of a frame in the low 32 bits (sorted)
+ * @param frames  - a number of frames of the audio (see FingerprintConfig.FINGERPRINT_HOP_SIZE)
+ */
+public record AudioFingerprint(long[] entries, int frames) {
+
+}
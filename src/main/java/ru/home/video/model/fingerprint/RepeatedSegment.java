@@ -0,0 +1,27 @@
+package ru.home.video.model.fingerprint;
+
+/**
+ * The class embodies a segment of an episode, which was already heard in an earlier episode of the series
+ *
+ * @param start        - beginning time of the segment in the episode (seconds)
+ * @param end          - ending time of the segment in the episode (seconds)
+ * @param episodeId    - an id of the earlier episode in the index of the series
+ * @param episodeStart - beginning time of the same audio in the earlier episode (seconds)
+ */
+public record RepeatedSegment(double start, double end, String episodeId, double episodeStart) {
+
+    /**
+     * @return a shift of time from the earlier episode to this one (seconds)
+     */
+    public double getShift() {
+        return start - episodeStart;
+    }
+
+    /**
+     * @param time - a time in the episode (seconds)
+     * @return 'true' if the time is within the segment
+     */
+    public boolean contains(double time) {
+        return time >= start && time < end;
+    }
+}
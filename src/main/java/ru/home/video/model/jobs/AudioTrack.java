@@ -0,0 +1,20 @@
+package ru.home.video.model.jobs;
+
+import ru.home.video.model.enums.LanguageType;
+
+/**
+ * The class embodies an audio stream of a video file, which was given by 'ffprobe'
+ *
+ * @param index       - an index among audio streams of the file ('ffmpeg' selects the stream by '0:a:<index>')
+ * @param languageTag - a language from metadata of the stream (ISO 639-2, e.g. 'eng') or 'und', if it's unknown
+ * @param title       - a title of the stream (e.g. 'Commentary') or an empty string
+ */
+public record AudioTrack(int index, String languageTag, String title) {
+
+    /**
+     * @return a language of the stream or null, if it isn't supported by the app
+     */
+    public LanguageType getLanguage() {
+        return LanguageType.getTypeByLanguageTag(languageTag);
+    }
+}
@@ -0,0 +1,10 @@
+package ru.home.video.model.jobs;
+
+/**
+ * The class embodies information about a video file, which was given by 'ffprobe'
+ * @param durationSeconds - a duration of the video file (seconds)
+ * @param hasAudio - true, if the file contains at least one audio stream
+ */
+public record MediaInfo(double durationSeconds, boolean hasAudio) {
+
+}
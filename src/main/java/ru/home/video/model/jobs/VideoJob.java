@@ -0,0 +1,17 @@
+package ru.home.video.model.jobs;
+
+import ru.home.video.model.subtitles.SubtitleStyle;
+
+/**
+ * The class embodies a request for adding subtitles to a video, it doesn't depend on the user form
+ * @param id - an unique identifier of the job (it's used for naming temp files)
+ * @param inputVideoFilePath - a current video file, which has to be treatment
+ * @param outputVideoFilePath - a directory (folder) where a new video file (with subtitles) has to be saved
+ * @param originalVideoLanguage - an original language of the initial video file (for example, 'en')
+ * @param subtitlesLanguage - language of subtitles, which has to be added to a new video file
+ * @param subtitleStyle - styling parameters for subtitles
+ */
+public record VideoJob(String id, String inputVideoFilePath, String outputVideoFilePath, String originalVideoLanguage,
+                       String subtitlesLanguage, SubtitleStyle subtitleStyle) {
+
+}
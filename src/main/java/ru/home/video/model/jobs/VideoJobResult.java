@@ -0,0 +1,10 @@
+package ru.home.video.model.jobs;
+
+/**
+ * The class embodies a result of a processed video job
+ * @param outputVideoPath - a path to the new video file with subtitles
+ * @param subtitles - the generated subtitles in ASS format
+ */
+public record VideoJobResult(String outputVideoPath, String subtitles) {
+
+}
@@ -0,0 +1,57 @@
+package ru.home.video.model.jobs;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import ru.home.video.model.enums.JobStatus;
+import ru.home.video.service.CancellationToken;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The class stores a current state of a submitted video job, it's updated by the thread which processes the job
+ */
+@Getter
+@Setter
+public class VideoJobState {
+
+    private final VideoJob job;
+    // a worker and a cancelling request change it at the same time, so it's changed only from an expected status
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicReference<JobStatus> status = new AtomicReference<>(JobStatus.QUEUED);
+    private volatile double progress = 0.0;
+    private volatile String message = "Waiting for a free worker...";
+    private volatile double estimatedSeconds = 0.0; // estimated seconds of processing (it defines the order of jobs)
+    private volatile VideoJobResult result;
+    private volatile String error;
+    private volatile Future<?> future;
+    private volatile long finishedMillis; // when the job was done, failed or cancelled (0 - it isn't finished)
+    private final CancellationToken cancellationToken = new CancellationToken();
+
+    public VideoJobState(VideoJob job) {
+        this.job = job;
+    }
+
+    public JobStatus getStatus() {
+        return status.get();
+    }
+
+    /**
+     * The method changes the status, only if nobody has changed it since it was read
+     *
+     * @param expected - a status, which the job must have
+     * @param next     - a new status
+     * @return true, if the status was changed
+     */
+    public boolean compareAndSetStatus(JobStatus expected, JobStatus next) {
+        if (!status.compareAndSet(expected, next)) {
+            return false;
+        }
+        if (next == JobStatus.DONE || next == JobStatus.FAILED || next == JobStatus.CANCELLED) {
+            finishedMillis = System.currentTimeMillis();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,13 @@
+package ru.home.video.model.process;
+
+/**
+ * The class embodies a finished external process
+ *
+ * @param exitCode          - an exit code of the process
+ * @param stdout            - the last bytes of the standard output (see 'ProcessConfig.PROCESS_OUTPUT_BUFFER_SIZE')
+ * @param stderr            - the last bytes of the error output
+ * @param isStdoutTruncated - true, if the standard output was longer than the buffer (its beginning is lost)
+ */
+public record ProcessResult(int exitCode, String stdout, String stderr, boolean isStdoutTruncated) {
+
+}
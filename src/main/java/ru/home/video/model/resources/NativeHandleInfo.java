@@ -0,0 +1,16 @@
+package ru.home.video.model.resources;
+
+/**
+ * The class embodies a native object of 'VOSK' (or a lease of it), which wasn't closed yet
+ *
+ * @param id               - a number of the handle (it's unique within the app)
+ * @param kind             - a kind of the object (a model, a lease of a model, a recognizer)
+ * @param description      - a path of a model or another detail, which helps to find the object
+ * @param approximateBytes - native memory held by the object (approximately)
+ * @param owner            - an id of the job, which opened the object (null for objects shared by jobs)
+ * @param creationTrace    - a place where the object was opened (only in the leak detection mode, otherwise null)
+ */
+public record NativeHandleInfo(long id, String kind, String description, long approximateBytes, String owner,
+                               Throwable creationTrace) {
+
+}
@@ -0,0 +1,13 @@
+package ru.home.video.model.subtitles;
+
+import ru.home.video.model.enums.LiveSubtitleEventType;
+
+/**
+ * The class embodies an incremental subtitle, which was given by the live mode
+ * @param type - a provisional line or a finished phrase
+ * @param item - subtitles itself with timestamps (seconds from the beginning of the stream)
+ * @param latencyMillis - milliseconds between receiving the last audio of the subtitle and emitting the event
+ */
+public record LiveSubtitleEvent(LiveSubtitleEventType type, SubtitleItem item, long latencyMillis) {
+
+}
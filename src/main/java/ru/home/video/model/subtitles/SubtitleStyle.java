@@ -20,6 +20,20 @@ public class SubtitleStyle {
     private String backgroundColor;
 
 
+    /**
+     * The method gives a style with the same values as the user form has by default (for launching without GUI)
+     *
+     * @return a new style of subtitles
+     */
+    public static SubtitleStyle getDefaultStyle() {
+        var style = new SubtitleStyle();
+        style.setFontSize(style.getFontSize(SubtitleConfig.DEFAULT_SIZE_OF_FONT));
+        style.setPosition(style.getDigitalViewOfPosition(SubtitleConfig.DEFAULT_POSITION));
+        style.setTextColor(SubtitleConfig.DEFAULT_TEXT_COLOR);
+        style.setBackgroundColor(SubtitleConfig.DEFAULT_BACKGROUND_COLOR);
+        return style;
+    }
+
     /**
      * Gets the font size based on the text description
      * @param subtitleSize text description of the size
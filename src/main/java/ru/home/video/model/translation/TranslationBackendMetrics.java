@@ -0,0 +1,21 @@
+package ru.home.video.model.translation;
+
+import ru.home.video.model.enums.CircuitState;
+
+/**
+ * The class embodies a state of requests to the translation service
+ *
+ * @param concurrencyLimit      - the current limit of concurrent requests (it's adapted by latency)
+ * @param inFlight              - a number of requests, which are being sent now
+ * @param circuitState          - a state of the circuit breaker
+ * @param baselineLatencyMillis - the best known latency of the biggest batches (-1, if there weren't such)
+ * @param succeeded             - a number of successful requests
+ * @param failed                - a number of failed requests (they can be retried)
+ * @param retried               - a number of repeated requests
+ * @param rejected              - a number of requests, which weren't sent because the circuit was open
+ */
+public record TranslationBackendMetrics(double concurrencyLimit, int inFlight, CircuitState circuitState,
+                                        double baselineLatencyMillis, long succeeded, long failed, long retried,
+                                        long rejected) {
+
+}
@@ -0,0 +1,178 @@
+package ru.home.video.service;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The class limits concurrent requests to a service, the limit follows the service itself (AIMD):
+ * <ul>
+ *     <li>a fast response, while the limit is used at least by half, adds 1/limit (+1 per a window of requests)</li>
+ *     <li>a failure or a slow response multiplies the limit by the backoff ratio</li>
+ * </ul>
+ * A response is slow, when its latency is several times longer than the best known latency (the baseline).
+ * The baseline forgets old values slowly, so it follows a service which became slower for good (a bigger model).
+ * Requests of different sizes (e.g. batches of 1 and of 32 texts) have different latencies, which don't divide into
+ * a latency per item: a part of it is fixed and a batch is translated in parallel. So they're compared only with
+ * requests of the same latency class, which has its own baseline.
+ * So the limit grows while the service answers as fast as alone and stops near the point, where requests begin
+ * to wait for each other inside the service.
+ * The limiter is used by virtual threads, so it waits on a lock (a monitor would pin carrier threads).
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final double baselineDrift;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    // the baselines of latency classes (-1, while a class hasn't got responses)
+    private final double[] baselineLatencyNanos;
+
+    /**
+     * @param initialLimit     - the limit at the beginning
+     * @param minLimit         - the limit never goes lower
+     * @param maxLimit         - the limit never goes higher
+     * @param backoffRatio     - the limit is multiplied by it after a failure or a slow response
+     * @param latencyTolerance - a response is slow, when its latency is longer than (the baseline * tolerance)
+     * @param baselineDrift    - a part of a difference between a latency and the baseline, which the baseline takes
+     * @param latencyClasses   - a number of latency classes (requests of comparable sizes), each has its baseline
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                      double latencyTolerance, double baselineDrift, int latencyClasses) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.baselineDrift = baselineDrift;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.baselineLatencyNanos = new double[latencyClasses];
+        Arrays.fill(baselineLatencyNanos, -1);
+    }
+
+    /**
+     * The method waits for a free place under the limit
+     *
+     * @return true, if the limit is used at least by half (only such requests change the limit by their latency)
+     */
+    public boolean acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) limit) {
+                released.await();
+            }
+            inFlight++;
+            return inFlight * 2 >= (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The method frees the place of a successful request and adapts the limit by its latency
+     *
+     * @param latencyNanos - a latency of the request
+     * @param latencyClass - a latency class of the request (0..latencyClasses-1), it's compared only within it
+     * @param isLoaded     - a value of {@link #acquire()}
+     */
+    public void onSuccess(long latencyNanos, int latencyClass, boolean isLoaded) {
+        lock.lock();
+        try {
+            release();
+            double baseline = baselineLatencyNanos[latencyClass];
+            boolean isSlow = baseline > 0 && latencyNanos > baseline * latencyTolerance;
+            if (baseline < 0 || latencyNanos < baseline) {
+                baselineLatencyNanos[latencyClass] = latencyNanos;
+            } else {
+                baselineLatencyNanos[latencyClass] += (latencyNanos - baseline) * baselineDrift;
+            }
+            if (!isLoaded) {
+                return; // a latency of a single request says nothing about concurrency
+            }
+            if (isSlow) {
+                decrease();
+            } else {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The method frees the place of a failed request and decreases the limit
+     */
+    public void onFailure() {
+        lock.lock();
+        try {
+            release();
+            decrease();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The method frees the place of a request, which gives nothing about the service (e.g. it was interrupted)
+     */
+    public void onIgnore() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the current limit
+     */
+    public double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a number of requests, which are being sent now
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param latencyClass - a latency class (0..latencyClasses-1)
+     * @return the best known latency of the class (nanoseconds) or -1, if there weren't its responses
+     */
+    public double getBaselineLatencyNanos(int latencyClass) {
+        lock.lock();
+        try {
+            return baselineLatencyNanos[latencyClass];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // === Auxiliary methods ===
+
+    private void release() {
+        inFlight--;
+        released.signalAll();
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+}
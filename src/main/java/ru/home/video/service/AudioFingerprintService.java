@@ -0,0 +1,364 @@
+package ru.home.video.service;
+
+import ru.home.video.model.fingerprint.AudioFingerprint;
+import ru.home.video.model.fingerprint.RepeatedSegment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static ru.home.video.config.FingerprintConfig.*;
+import static ru.home.video.config.SubtitleConfig.AUDIO_SAMPLE_RATE;
+
+/**
+ * The class makes fingerprints of audio tracks and finds segments, which two tracks have in common:
+ * <ul>
+ *     <li>the audio (16000 Hz, 16 bit, mono) is cut into overlapping frames, a frame gives the strongest frequencies
+ *     of several bands (a Hann window and FFT), quiet frames don't give anything</li>
+ *     <li>every peak is paired with the next peaks: a hash is made of both frequencies and the distance between them
+ *     (frames), so it doesn't depend on the time, the frame of the first peak is kept together with the hash</li>
+ *     <li>equal hashes of two tracks give an offset of time, many matches with the same offset over several seconds
+ *     mean the same audio</li>
+ * </ul>
+ * A fingerprint survives re-encoding and a change of the volume, but not a change of the speed of the audio.
+ */
+public class AudioFingerprintService {
+
+    private static final int MAGIC = 0x4650534A; // 'JSPF' in little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int[] NO_PEAKS = new int[0];
+
+    /**
+     * The method makes a fingerprint of an audio file
+     *
+     * @param audioPath - a path with an audio file with the 'wav' extend (the format of 'VOSK')
+     * @return the fingerprint
+     * @throws IOException if the file can't be read or the format isn't supported
+     */
+    public static AudioFingerprint compute(Path audioPath) throws IOException {
+        try (var audioSource = WavAudioSource.open(audioPath)) {
+            // 1. peaks of every frame, frames overlap (a frame begins every 'hop' samples)
+            List<int[]> framePeaks = new ArrayList<>();
+            var window = getHannWindow(FINGERPRINT_FRAME_SIZE);
+            double[] samples = new double[FINGERPRINT_FRAME_SIZE];
+            double[] re = new double[FINGERPRINT_FRAME_SIZE];
+            double[] im = new double[FINGERPRINT_FRAME_SIZE];
+            byte[] buffer = new byte[audioSource.getFrameAlignedSize(FINGERPRINT_HOP_SIZE * 2)];
+            int filled = 0;
+            int bytesRead;
+            while ((bytesRead = audioSource.read(buffer)) != -1) {
+                for (int i = 0; i + 1 < bytesRead; i += 2) {
+                    samples[filled++] = (short) ((buffer[i] & 0xFF) | (buffer[i + 1] << 8));
+                    if (filled == FINGERPRINT_FRAME_SIZE) {
+                        framePeaks.add(getPeaks(samples, window, re, im));
+                        System.arraycopy(samples, FINGERPRINT_HOP_SIZE, samples, 0,
+                                FINGERPRINT_FRAME_SIZE - FINGERPRINT_HOP_SIZE);
+                        filled -= FINGERPRINT_HOP_SIZE;
+                    }
+                }
+            }
+
+            // 2. pairs of peaks: an anchor and the first peaks of the next frames (the target zone)
+            long[] entries = new long[Math.max(16, framePeaks.size() * 4)];
+            int size = 0;
+            for (int frame = 0; frame < framePeaks.size(); frame++) {
+                for (int anchor : framePeaks.get(frame)) {
+                    int pairs = 0;
+                    for (int distance = 1; distance <= FINGERPRINT_TARGET_ZONE_FRAMES && pairs < FINGERPRINT_FAN_OUT &&
+                            frame + distance < framePeaks.size(); distance++) {
+                        for (int target : framePeaks.get(frame + distance)) {
+                            if (pairs == FINGERPRINT_FAN_OUT) {
+                                break;
+                            }
+                            if (size == entries.length) {
+                                entries = Arrays.copyOf(entries, size * 2);
+                            }
+                            entries[size++] = (long) getHash(anchor, target, distance) << 32 | frame;
+                            pairs++;
+                        }
+                    }
+                }
+            }
+            // 3. entries are sorted by hashes, so two fingerprints are matched by one pass
+            entries = Arrays.copyOf(entries, size);
+            Arrays.sort(entries);
+            return new AudioFingerprint(entries, framePeaks.size());
+        }
+    }
+
+    /**
+     * The method finds segments of a track, which are heard in another track too
+     *
+     * @param fingerprint      - a fingerprint of the track
+     * @param otherFingerprint - a fingerprint of the other track
+     * @param otherEpisodeId   - an id of the other track, it's given to the segments
+     * @return segments of the track (they can overlap, if a part of the other track is repeated in it)
+     */
+    public static List<RepeatedSegment> findCommonSegments(AudioFingerprint fingerprint,
+                                                           AudioFingerprint otherFingerprint, String otherEpisodeId) {
+        // 1. equal hashes give matches: a frame of the track and an offset to the frame of the other track
+        long[] entries = fingerprint.entries();
+        long[] otherEntries = otherFingerprint.entries();
+        int[] matchFrames = new int[1024];
+        int[] matchOffsets = new int[1024];
+        int matches = 0;
+        Map<Integer, Integer> offsetCounts = new HashMap<>();
+        int i = 0, j = 0;
+        while (i < entries.length && j < otherEntries.length) {
+            int hash = (int) (entries[i] >>> 32);
+            int otherHash = (int) (otherEntries[j] >>> 32);
+            if (hash != otherHash) {
+                if (hash < otherHash) {
+                    i++;
+                } else {
+                    j++;
+                }
+                continue;
+            }
+            int iEnd = i, jEnd = j;
+            while (iEnd < entries.length && (int) (entries[iEnd] >>> 32) == hash) {
+                iEnd++;
+            }
+            while (jEnd < otherEntries.length && (int) (otherEntries[jEnd] >>> 32) == hash) {
+                jEnd++;
+            }
+            if (iEnd - i <= FINGERPRINT_MAX_HASH_OCCURRENCES && jEnd - j <= FINGERPRINT_MAX_HASH_OCCURRENCES) {
+                for (int a = i; a < iEnd; a++) {
+                    for (int b = j; b < jEnd; b++) {
+                        if (matches == matchFrames.length) {
+                            matchFrames = Arrays.copyOf(matchFrames, matches * 2);
+                            matchOffsets = Arrays.copyOf(matchOffsets, matches * 2);
+                        }
+                        matchFrames[matches] = (int) entries[a];
+                        matchOffsets[matches] = (int) otherEntries[b] - (int) entries[a];
+                        offsetCounts.merge(matchOffsets[matches], 1, Integer::sum);
+                        matches++;
+                    }
+                }
+            }
+            i = iEnd;
+            j = jEnd;
+        }
+
+        // 2. offsets with many matches (neighbouring offsets are the same offset after re-encoding)
+        List<Integer> offsets = new ArrayList<>();
+        offsetCounts.entrySet().stream()
+                .filter(entry -> entry.getValue() >= FINGERPRINT_MIN_OFFSET_MATCHES)
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed())
+                .map(Map.Entry::getKey)
+                .forEach(offset -> {
+                    if (offsets.size() < FINGERPRINT_MAX_OFFSETS_PER_EPISODE && offsets.stream().noneMatch(chosen ->
+                            Math.abs(chosen - offset) <= FINGERPRINT_OFFSET_TOLERANCE_FRAMES)) {
+                        offsets.add(offset);
+                    }
+                });
+
+        // 3. matches of an offset make a segment, while gaps between them are short and they are dense enough
+        double secondsPerFrame = (double) FINGERPRINT_HOP_SIZE / AUDIO_SAMPLE_RATE;
+        int maxGapFrames = (int) Math.ceil(FINGERPRINT_MAX_GAP_SECONDS / secondsPerFrame);
+        int minSegmentFrames = (int) Math.ceil(FINGERPRINT_MIN_SEGMENT_SECONDS / secondsPerFrame);
+        int edgeWindowFrames = (int) Math.ceil(FINGERPRINT_EDGE_WINDOW_SECONDS / secondsPerFrame);
+        List<RepeatedSegment> segments = new ArrayList<>();
+        for (int offset : offsets) {
+            int[] frames = new int[offsetCounts.get(offset) * (2 * FINGERPRINT_OFFSET_TOLERANCE_FRAMES + 1)];
+            int count = 0;
+            for (int k = 0; k < matches; k++) {
+                if (Math.abs(matchOffsets[k] - offset) <= FINGERPRINT_OFFSET_TOLERANCE_FRAMES) {
+                    if (count == frames.length) {
+                        frames = Arrays.copyOf(frames, count * 2);
+                    }
+                    frames[count++] = matchFrames[k];
+                }
+            }
+            Arrays.sort(frames, 0, count);
+            int runStart = 0;
+            for (int k = 1; k <= count; k++) {
+                if (k == count || frames[k] - frames[k - 1] > maxGapFrames) {
+                    int first = runStart;
+                    int last = k - 1;
+                    while (first < last && countMatches(frames, first, last, edgeWindowFrames) <
+                            FINGERPRINT_MIN_EDGE_MATCHES) {
+                        first++;
+                    }
+                    while (last > first && countMatches(frames, last, first, edgeWindowFrames) <
+                            FINGERPRINT_MIN_EDGE_MATCHES) {
+                        last--;
+                    }
+                    int firstFrame = frames[first];
+                    int lastFrame = frames[last];
+                    int span = lastFrame - firstFrame + 1;
+                    if (span >= minSegmentFrames && last - first + 1 >= span * FINGERPRINT_MIN_MATCHES_PER_FRAME) {
+                        segments.add(new RepeatedSegment(firstFrame * secondsPerFrame + FINGERPRINT_EDGE_GUARD_SECONDS,
+                                (lastFrame + 1) * secondsPerFrame - FINGERPRINT_EDGE_GUARD_SECONDS, otherEpisodeId,
+                                (firstFrame + offset) * secondsPerFrame + FINGERPRINT_EDGE_GUARD_SECONDS));
+                    }
+                    runStart = k;
+                }
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * The method saves a fingerprint into a binary file: a header (magic 'JSPF', a version, a number of frames,
+     * a number of entries) and entries (little-endian)
+     *
+     * @param fingerprintPath - a path of a new file
+     * @param fingerprint     - a fingerprint
+     * @throws IOException if the file wasn't written
+     */
+    public static void save(Path fingerprintPath, AudioFingerprint fingerprint) throws IOException {
+        var buffer = ByteBuffer.allocate(HEADER_SIZE + fingerprint.entries().length * Long.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(fingerprint.frames())
+                .putInt(fingerprint.entries().length);
+        buffer.asLongBuffer().put(fingerprint.entries());
+        buffer.position(buffer.limit());
+        try (var channel = FileChannel.open(fingerprintPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * The method reads a fingerprint from a file
+     *
+     * @param fingerprintPath - a path of a file, which was written by {@link #save}
+     * @return the fingerprint
+     * @throws IOException if the file can't be read or it isn't a fingerprint of a supported version
+     */
+    public static AudioFingerprint load(Path fingerprintPath) throws IOException {
+        try (var channel = FileChannel.open(fingerprintPath, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("The file is too short for a fingerprint: " + fingerprintPath);
+            }
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("The file isn't a fingerprint of a supported version: " + fingerprintPath);
+            }
+            int entryCount = buffer.getInt(12);
+            if (entryCount < 0 || HEADER_SIZE + (long) entryCount * Long.BYTES != fileSize) {
+                throw new IOException("The fingerprint is damaged (wrong size): " + fingerprintPath);
+            }
+            long[] entries = new long[entryCount];
+            buffer.position(HEADER_SIZE).asLongBuffer().get(entries);
+            return new AudioFingerprint(entries, buffer.getInt(8));
+        }
+    }
+
+    // === Auxiliary methods ===
+
+    // the strongest bin of every band, only the strongest bands of the frame are kept
+    private static int[] getPeaks(double[] samples, double[] window, double[] re, double[] im) {
+        double energy = 0;
+        for (double sample : samples) {
+            energy += sample * sample;
+        }
+        if (Math.sqrt(energy / samples.length) < FINGERPRINT_SILENCE_RMS) {
+            return NO_PEAKS;
+        }
+        for (int i = 0; i < samples.length; i++) {
+            re[i] = samples[i] * window[i];
+            im[i] = 0;
+        }
+        fft(re, im);
+        int bands = FINGERPRINT_BAND_EDGES.length - 1;
+        int[] bandPeaks = new int[bands];
+        double[] bandPowers = new double[bands];
+        for (int band = 0; band < bands; band++) {
+            for (int bin = FINGERPRINT_BAND_EDGES[band]; bin < FINGERPRINT_BAND_EDGES[band + 1]; bin++) {
+                double power = re[bin] * re[bin] + im[bin] * im[bin];
+                if (power > bandPowers[band]) {
+                    bandPowers[band] = power;
+                    bandPeaks[band] = bin;
+                }
+            }
+        }
+        int peakCount = Math.min(FINGERPRINT_PEAKS_PER_FRAME, bands);
+        int[] peaks = new int[peakCount];
+        for (int k = 0; k < peakCount; k++) { // the strongest bands one by one (there are a few of them)
+            int strongest = 0;
+            for (int band = 1; band < bands; band++) {
+                if (bandPowers[band] > bandPowers[strongest]) {
+                    strongest = band;
+                }
+            }
+            peaks[k] = bandPeaks[strongest];
+            bandPowers[strongest] = -1;
+        }
+        return peaks;
+    }
+
+    // a number of matches from one (sorted) match towards another one within the window of frames
+    private static int countMatches(int[] frames, int from, int towards, int windowFrames) {
+        int step = towards > from ? 1 : -1;
+        int count = 0;
+        for (int k = from; k != towards + step && Math.abs(frames[k] - frames[from]) <= windowFrames; k += step) {
+            count++;
+        }
+        return count;
+    }
+
+    // frequencies of both peaks (9 bits each, bins are less than 512) and the distance between them (6 bits)
+    private static int getHash(int anchorBin, int targetBin, int distance) {
+        return anchorBin << 15 | targetBin << 6 | distance;
+    }
+
+    private static double[] getHannWindow(int size) {
+        double[] window = new double[size];
+        for (int i = 0; i < size; i++) {
+            window[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / (size - 1));
+        }
+        return window;
+    }
+
+    // an iterative radix-2 FFT in place (the size is a power of two)
+    private static void fft(double[] re, double[] im) {
+        int n = re.length;
+        for (int i = 1, j = 0; i < n; i++) { // the bit-reversed order
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                double swap = re[i];
+                re[i] = re[j];
+                re[j] = swap;
+                swap = im[i];
+                im[i] = im[j];
+                im[j] = swap;
+            }
+        }
+        for (int length = 2; length <= n; length <<= 1) {
+            double angle = -2 * Math.PI / length;
+            double stepRe = Math.cos(angle), stepIm = Math.sin(angle);
+            for (int start = 0; start < n; start += length) {
+                double wRe = 1, wIm = 0;
+                for (int k = 0; k < length / 2; k++) {
+                    int a = start + k, b = a + length / 2;
+                    double tRe = re[b] * wRe - im[b] * wIm;
+                    double tIm = re[b] * wIm + im[b] * wRe;
+                    re[b] = re[a] - tRe;
+                    im[b] = im[a] - tIm;
+                    re[a] += tRe;
+                    im[a] += tIm;
+                    double nextRe = wRe * stepRe - wIm * stepIm;
+                    wIm = wRe * stepIm + wIm * stepRe;
+                    wRe = nextRe;
+                }
+            }
+        }
+    }
+}
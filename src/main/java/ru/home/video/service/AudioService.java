@@ -1,6 +1,13 @@
 package ru.home.video.service;
 
-import java.io.IOException;
+import ru.home.video.config.ProcessConfig;
+import ru.home.video.model.jobs.AudioTrack;
+import ru.home.video.model.process.ProcessResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class AudioService {
 
@@ -11,17 +18,36 @@ public class AudioService {
      *                   and audio files (<a href="https://www.gyan.dev/ffmpeg/builds/"></a>)
      * @param videoPath  - a path to the inputted video
      * @param audioPath  - a path with an audio file (by default: next to a base video) with the 'wav' extend
+     * @return a future, which is completed when the audio file is fully written
+     * (it's failed by 'ExternalProcessException', if the audio wasn't extracted)
+     */
+    public static CompletableFuture<ProcessResult> extractAudioTrack(String ffmpegPath, String videoPath,
+                                                                     String audioPath) {
+        // it launches an external app 'FFMPEG'. Params:
+        // '-i' - an input file, '-ac' - a number of audio channels, '1' - mono (single-channel sound)
+        // '-ar' - a sample rate (Hz), '16000' - it's the standard for speech recognition,
+        // 'y' - overwrite an output file (even it already exists)
+        return ProcessRunnerService.run("ffmpeg",
+                List.of(ffmpegPath, "-i", videoPath, "-ac", "1", "-ar", "16000", "-y", audioPath),
+                ProcessConfig.AUDIO_EXTRACTION_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * The method extracts several audio streams of the given video by one launch of 'FFMPEG': the video is read once,
+     * every stream is written into its own file
+     *
+     * @param ffmpegPath        - a path to a free built app 'FFMPEG'
+     * @param videoPath         - a path to the inputted video
+     * @param audioPathsByTrack - paths of audio files with the 'wav' extend by audio streams
+     * @return a future, which is completed when all audio files are fully written
+     * (it's failed by 'ExternalProcessException', if the audio wasn't extracted)
      */
-    public static void extractAudioTrack(String ffmpegPath, String videoPath, String audioPath) {
-        try {
-            // it starts a command line of Windows OS, launches an external app 'FFMPEG'. Params:
-            // '-i' - an input file, '-ac' - a number of audio channels, '1' - mono (single-channel sound)
-            // '-ar' - a sample rate (Hz), '16000' - it's the standard for speech recognition,
-            // 'y' - overwrite an output file (even it already exists)
-            new ProcessBuilder(ffmpegPath, "-i", videoPath, "-ac", "1", "-ar", "16000", "-y", audioPath)
-                    .inheritIO().start();
-        } catch (IOException e) {
-            System.out.println("An audio track wasn't extracted by video file, with the next path: " + videoPath);
-        }
+    public static CompletableFuture<ProcessResult> extractAudioTracks(String ffmpegPath, String videoPath,
+                                                                      Map<AudioTrack, String> audioPathsByTrack) {
+        // '-map 0:a:<index>' - an audio stream of the output file, params of every output go before its path
+        List<String> command = new ArrayList<>(List.of(ffmpegPath, "-y", "-i", videoPath));
+        audioPathsByTrack.forEach((track, audioPath) -> command.addAll(List.of(
+                "-map", "0:a:" + track.index(), "-ac", "1", "-ar", "16000", audioPath)));
+        return ProcessRunnerService.run("ffmpeg", command, ProcessConfig.AUDIO_EXTRACTION_TIMEOUT_MILLIS);
     }
 }
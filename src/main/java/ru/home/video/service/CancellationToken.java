@@ -0,0 +1,83 @@
+package ru.home.video.service;
+
+import ru.home.video.exception.JobCancelledException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The class passes a cancellation of a job through all stages of a video treatment process. Loops check the token
+ * between portions of work, blocking calls (external apps, requests to the translation service) register actions,
+ * which stop them at once, when the token is cancelled.
+ */
+public class CancellationToken {
+
+    private final List<Runnable> cancelActions = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+
+    /**
+     * The method cancels the job: registered actions are run once, the next check of the token throws
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        for (Runnable action : cancelActions) {
+            if (cancelActions.remove(action)) { // an action is run by the one who removed it, so it's run once
+                runCancelAction(action);
+            }
+        }
+    }
+
+    /**
+     * @return true, if the job was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * The method stops a stage between portions of work
+     *
+     * @throws JobCancelledException if the job was cancelled
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new JobCancelledException();
+        }
+    }
+
+    /**
+     * The method registers an action, which stops a blocking call. The action is run at once, if the job was
+     * already cancelled.
+     *
+     * @param action - an action of stopping (kills a process, aborts a request)
+     * @return a registration, it has to be closed when the blocking call is finished
+     */
+    public Registration onCancel(Runnable action) {
+        cancelActions.add(action);
+        if (cancelled && cancelActions.remove(action)) { // the token was cancelled while the action was being added
+            runCancelAction(action);
+        }
+        return () -> cancelActions.remove(action);
+    }
+
+    /**
+     * The registration of a cancel action (it's closed without checked exceptions)
+     */
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    // === Auxiliary methods ===
+
+    private static void runCancelAction(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            System.out.println("A cancel action was failure.\nError: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.home.video.service;
+
+import ru.home.video.model.enums.CircuitState;
+
+/**
+ * The class stops requests to a service, which failed several times in a row: the circuit is opened and requests
+ * are rejected at once (they don't load the service, which is restarting or stalled). When the open time is over,
+ * one request is let through as a probe (the circuit is half-open): its success closes the circuit, its failure
+ * opens it again.
+ */
+public class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private CircuitState state = CircuitState.CLOSED;
+    private int failuresInRow;
+    private long openedAtNanos;
+    private boolean isProbeInFlight;
+
+    /**
+     * @param failureThreshold - the circuit is opened after this number of failures in a row
+     * @param openMillis       - requests are rejected during this time after the circuit was opened
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openMillis * 1_000_000;
+    }
+
+    /**
+     * The method decides, whether a request can be sent
+     *
+     * @return true, if the request can be sent (its result has to be reported by onSuccess or onFailure)
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == CircuitState.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+            state = CircuitState.HALF_OPEN;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (isProbeInFlight) {
+                    yield false;
+                }
+                isProbeInFlight = true;
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * The method reports a successful request, the circuit is closed
+     */
+    public synchronized void onSuccess() {
+        failuresInRow = 0;
+        isProbeInFlight = false;
+        state = CircuitState.CLOSED;
+    }
+
+    /**
+     * The method reports a failed request, the circuit is opened after several failures or a failed probe
+     */
+    public synchronized void onFailure() {
+        failuresInRow++;
+        if (state == CircuitState.HALF_OPEN || failuresInRow >= failureThreshold) {
+            state = CircuitState.OPEN;
+            openedAtNanos = System.nanoTime();
+        }
+        isProbeInFlight = false;
+    }
+
+    /**
+     * The method gives back a permission, when the request wasn't sent (it says nothing about the service)
+     */
+    public synchronized void releasePermission() {
+        isProbeInFlight = false;
+    }
+
+    /**
+     * @return milliseconds till the open circuit lets a probe through (0, if the circuit isn't open)
+     */
+    public synchronized long getRemainingOpenMillis() {
+        if (state != CircuitState.OPEN) {
+            return 0;
+        }
+        return Math.max(0, (openNanos - (System.nanoTime() - openedAtNanos)) / 1_000_000);
+    }
+
+    /**
+     * @return the current state of the circuit
+     */
+    public synchronized CircuitState getState() {
+        return state;
+    }
+}
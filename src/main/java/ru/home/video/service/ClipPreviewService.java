@@ -0,0 +1,212 @@
+package ru.home.video.service;
+
+import ru.home.video.config.ProcessConfig;
+import ru.home.video.model.process.ProcessResult;
+import ru.home.video.model.subtitles.SubtitleItem;
+import ru.home.video.model.subtitles.SubtitleStyle;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The class shows, how subtitles look in a short window of a video, without adding them to the whole video:
+ * only the window is read ('-ss' before '-i' - a fast seek to the nearest keyframe), subtitles of the window are
+ * shifted to its start and burned. So a preview takes seconds regardless of the duration of the video and
+ * a style can be tried several times before the video is processed.
+ * <p>
+ * Subtitles are given as ready ones (see {@link SubtitleService#getReadySubtitles}): translated, split into rows
+ * and trimmed as in the processed video. Recognized phrases as they are would show another text and timing.
+ * <p>
+ * Previews don't wait for a slot of 'ffmpeg' (see {@link ResourceSchedulerService}): they're short and somebody
+ * waits for them, a slot can be busy with a long film for hours.
+ */
+public class ClipPreviewService {
+
+    /**
+     * The method makes a short video of the window with subtitles (H.264 and AAC, it's played by any player)
+     *
+     * @param ffmpegPath         - a path to the app 'FFMPEG'
+     * @param inputVideoFilePath - a source video
+     * @param subtitles          - an index of ready subtitles of the whole video (it's built once for all previews)
+     * @param style              - a style of subtitles
+     * @param windowStart        - a start of the window (seconds of the video)
+     * @param windowSeconds      - a duration of the window (it's cut to {@link ProcessConfig#PREVIEW_MAX_SECONDS})
+     * @param outputClipPath     - a path of the clip ('.mp4')
+     * @param cancellationToken  - a token of the preview
+     */
+    public static void renderClip(String ffmpegPath, String inputVideoFilePath, SubtitleIntervalIndex subtitles,
+                                  SubtitleStyle style, double windowStart, double windowSeconds,
+                                  String outputClipPath, CancellationToken cancellationToken) {
+        double duration = Math.min(windowSeconds, ProcessConfig.PREVIEW_MAX_SECONDS);
+        var windowSubtitles = sliceSubtitles(subtitles, windowStart, duration);
+        Path subtitlesPath = null;
+        try {
+            subtitlesPath = writeSubtitles(windowSubtitles, style);
+            // timestamps of the clip start from 0 after the seek, as the shifted subtitles do
+            List<String> command = new ArrayList<>(List.of(ffmpegPath,
+                    "-ss", formatSeconds(windowStart), "-i", inputVideoFilePath,
+                    "-t", formatSeconds(duration),
+                    "-map", "0:v:0", "-map", "0:a:0?"));
+            if (subtitlesPath != null) {
+                command.addAll(List.of("-vf", "ass=" +
+                        VideoCollectorService.getCorrectedPathDirectedToFfmpegAppIndependentOfOS(
+                                subtitlesPath.toString())));
+            }
+            command.addAll(List.of(
+                    "-c:v", "libx264", "-preset", ProcessConfig.PREVIEW_ENCODER_PRESET, "-pix_fmt", "yuv420p",
+                    "-c:a", "aac",
+                    "-movflags", "+faststart",
+                    "-y", outputClipPath));
+            ProcessRunnerService.await(ProcessRunnerService.run("ffmpeg", command,
+                    ProcessConfig.PREVIEW_TIMEOUT_MILLIS), cancellationToken);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to make a preview clip: " + e.getMessage(), e);
+        } finally {
+            deleteTempFile(subtitlesPath);
+        }
+    }
+
+    /**
+     * The method makes still frames of the window with subtitles: a frame in the middle of every subtitle
+     * (evenly chosen, when there are more subtitles than frames) or evenly spaced frames, when the window doesn't
+     * have subtitles. Frames are decoded by parallel processes, every one reads a single GOP.
+     *
+     * @param ffmpegPath         - a path to the app 'FFMPEG'
+     * @param inputVideoFilePath - a source video
+     * @param subtitles          - an index of ready subtitles of the whole video (it's built once for all previews)
+     * @param style              - a style of subtitles
+     * @param windowStart        - a start of the window (seconds of the video)
+     * @param windowSeconds      - a duration of the window (it's cut to {@link ProcessConfig#PREVIEW_MAX_SECONDS})
+     * @param frames             - a number of frames (it's cut to {@link ProcessConfig#PREVIEW_MAX_FRAMES})
+     * @param outputFolder       - a folder for frames ('.png', a name is a timestamp of the frame in the video)
+     * @param cancellationToken  - a token of the preview
+     * @return paths of the frames in the order of time
+     */
+    public static List<Path> renderFrames(String ffmpegPath, String inputVideoFilePath,
+                                          SubtitleIntervalIndex subtitles,
+                                          SubtitleStyle style, double windowStart, double windowSeconds, int frames,
+                                          Path outputFolder, CancellationToken cancellationToken) {
+        double duration = Math.min(windowSeconds, ProcessConfig.PREVIEW_MAX_SECONDS);
+        var windowSubtitles = sliceSubtitles(subtitles, windowStart, duration);
+        var frameTimes = getFrameTimes(windowSubtitles, duration,
+                Math.max(1, Math.min(frames, ProcessConfig.PREVIEW_MAX_FRAMES)));
+        Path subtitlesPath = null;
+        try {
+            Files.createDirectories(outputFolder);
+            subtitlesPath = writeSubtitles(windowSubtitles, style);
+
+            // 1. Starts all processes at once (every one is short)
+            List<Path> framePaths = new ArrayList<>();
+            List<CompletableFuture<ProcessResult>> processes = new ArrayList<>();
+            for (double frameTime : frameTimes) {
+                var framePath = outputFolder.resolve(String.format(Locale.ROOT, "preview_%010.3f.png",
+                        windowStart + frameTime));
+                framePaths.add(framePath);
+                processes.add(ProcessRunnerService.run("ffmpeg", getFrameCommand(ffmpegPath, inputVideoFilePath,
+                        subtitlesPath, windowStart, frameTime, framePath), ProcessConfig.PREVIEW_TIMEOUT_MILLIS));
+            }
+
+            // 2. Waits for them, the rest are killed, when one fails or the preview is cancelled
+            try {
+                for (var process : processes) {
+                    ProcessRunnerService.await(process, cancellationToken);
+                }
+            } finally {
+                processes.forEach(process -> process.cancel(true));
+            }
+            return framePaths;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to make preview frames: " + e.getMessage(), e);
+        } finally {
+            deleteTempFile(subtitlesPath);
+        }
+    }
+
+    /**
+     * The method gives subtitles, which are shown within the window: they're cut by its edges and their time
+     * is counted from its start
+     *
+     * @param subtitles     - an index of ready subtitles of the whole video
+     * @param windowStart   - a start of the window (seconds)
+     * @param windowSeconds - a duration of the window
+     * @return subtitles of the window in the order of their starts
+     */
+    static List<SubtitleItem> sliceSubtitles(SubtitleIntervalIndex subtitles, double windowStart,
+                                             double windowSeconds) {
+        double windowEnd = windowStart + windowSeconds;
+        List<SubtitleItem> windowSubtitles = new ArrayList<>();
+        subtitles.forEachInRange(windowStart, windowEnd, i -> {
+            var item = subtitles.get(i);
+            windowSubtitles.add(new SubtitleItem(Math.max(item.start(), windowStart) - windowStart,
+                    Math.min(item.end(), windowEnd) - windowStart, item.text(), item.style()));
+        });
+        return windowSubtitles;
+    }
+
+    // === Auxiliary methods ===
+
+    // times of frames from the start of the window
+    private static List<Double> getFrameTimes(List<SubtitleItem> windowSubtitles, double windowSeconds, int frames) {
+        List<Double> frameTimes = new ArrayList<>();
+        if (windowSubtitles.isEmpty()) {
+            for (int i = 0; i < frames; i++) {
+                frameTimes.add((i + 0.5) * windowSeconds / frames);
+            }
+            return frameTimes;
+        }
+        int count = Math.min(frames, windowSubtitles.size());
+        for (int i = 0; i < count; i++) {
+            var item = windowSubtitles.get(i * windowSubtitles.size() / count);
+            frameTimes.add((item.start() + item.end()) / 2);
+        }
+        return frameTimes;
+    }
+
+    private static List<String> getFrameCommand(String ffmpegPath, String inputVideoFilePath, Path subtitlesPath,
+                                                double windowStart, double frameTime, Path framePath) {
+        // the seek goes to the frame itself, its timestamp is shifted back to the time of the window for 'ass'
+        List<String> command = new ArrayList<>(List.of(ffmpegPath,
+                "-ss", formatSeconds(windowStart + frameTime), "-i", inputVideoFilePath,
+                "-map", "0:v:0"));
+        if (subtitlesPath != null) {
+            command.addAll(List.of("-vf", String.format(Locale.ROOT, "setpts=PTS+%s/TB,ass=%s",
+                    formatSeconds(frameTime),
+                    VideoCollectorService.getCorrectedPathDirectedToFfmpegAppIndependentOfOS(
+                            subtitlesPath.toString()))));
+        }
+        command.addAll(List.of("-frames:v", "1", "-y", framePath.toString()));
+        return command;
+    }
+
+    // the window without subtitles doesn't need the 'ass' filter (null)
+    private static Path writeSubtitles(List<SubtitleItem> windowSubtitles, SubtitleStyle style) throws IOException {
+        if (windowSubtitles.isEmpty()) {
+            return null;
+        }
+        var subtitlesPath = Files.createTempFile("javasubprovider_preview_", ".ass");
+        Files.writeString(subtitlesPath, SubtitleService.createStyledSubtitles(windowSubtitles, style),
+                StandardCharsets.UTF_8);
+        return subtitlesPath;
+    }
+
+    private static String formatSeconds(double seconds) {
+        return String.format(Locale.ROOT, "%.6f", seconds);
+    }
+
+    private static void deleteTempFile(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.out.println("The temp file wasn't deleted: " + path + "\n" + e.getMessage());
+        }
+    }
+}
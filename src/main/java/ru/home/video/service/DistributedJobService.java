@@ -0,0 +1,365 @@
+package ru.home.video.service;
+
+import ru.home.video.config.JavaSubProviderAppConfig;
+import ru.home.video.model.enums.JobStatus;
+import ru.home.video.model.jobs.VideoJob;
+import ru.home.video.model.jobs.VideoJobResult;
+import ru.home.video.model.subtitles.SubtitleStyle;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static ru.home.video.config.WorkerConfig.*;
+
+/**
+ * The class distributes video jobs between workers (several JVMs on one or many hosts) through a shared job
+ * directory (spool). The layout of the spool:
+ * <ul>
+ *     <li>pending/&lt;key&gt;_&lt;id&gt;.job - a job, it's deleted after the job was finished, the key defines
+ *     the order of claiming (shortest job first with aging)</li>
+ *     <li>leases/&lt;id&gt;.lease - a claim of a worker, it's created atomically (only one worker wins),
+ *     a worker renews it by updating its modification time</li>
+ *     <li>leases/&lt;id&gt;_&lt;worker&gt;.finishing - a lease, which a worker took from the coordinator to finish
+ *     the job (it isn't reclaimed then)</li>
+ *     <li>expired/&lt;id&gt;-&lt;time&gt;.lease - leases which weren't renewed in time (one file per attempt)</li>
+ *     <li>results/&lt;id&gt;.result - a report of a worker</li>
+ * </ul>
+ * A job is processed at least once: if a worker stops renewing its lease, the coordinator moves the lease away and
+ * the job is claimed by another worker.
+ */
+public class DistributedJobService {
+
+    /**
+     * The method puts a job into the shared job directory, where it's claimed by a worker. The video is probed by
+     * 'ffprobe': a video without audio is rejected, shorter videos are claimed first (see 'MediaProbeService').
+     *
+     * @param spoolDirectory - the shared job directory
+     * @param job            - paths, languages and a style of subtitles
+     * @throws IllegalArgumentException if the video doesn't have an audio stream
+     */
+    public static void submitJob(Path spoolDirectory, VideoJob job) throws IOException {
+        double estimatedSeconds = 0.0;
+        try {
+            var mediaInfo = MediaProbeService.probeMedia(JavaSubProviderAppConfig.FFPROBE_PATH,
+                    job.inputVideoFilePath());
+            if (!mediaInfo.hasAudio()) {
+                throw new IllegalArgumentException("The video doesn't have an audio stream: " +
+                        job.inputVideoFilePath());
+            }
+            estimatedSeconds = MediaProbeService.estimateProcessingSeconds(mediaInfo);
+        } catch (IOException e) {
+            System.out.println("The video wasn't probed, it's queued by the time of submitting: " + e.getMessage());
+        }
+        submitJob(spoolDirectory, job, estimatedSeconds);
+    }
+
+    /**
+     * The method puts a job with the known cost into the shared job directory, where it's claimed by a worker
+     *
+     * @param spoolDirectory   - the shared job directory
+     * @param job              - paths, languages and a style of subtitles
+     * @param estimatedSeconds - estimated seconds of processing, jobs with a smaller cost are claimed first
+     */
+    public static void submitJob(Path spoolDirectory, VideoJob job, double estimatedSeconds) throws IOException {
+        createSpoolFolders(spoolDirectory);
+        var properties = new Properties();
+        properties.setProperty("id", job.id());
+        properties.setProperty("inputVideoFilePath", job.inputVideoFilePath());
+        properties.setProperty("outputVideoFilePath", job.outputVideoFilePath());
+        properties.setProperty("originalVideoLanguage", job.originalVideoLanguage());
+        properties.setProperty("subtitlesLanguage", job.subtitlesLanguage());
+        properties.setProperty("textColor", job.subtitleStyle().getTextColor());
+        properties.setProperty("position", String.valueOf(job.subtitleStyle().getPosition()));
+        properties.setProperty("fontSize", String.valueOf(job.subtitleStyle().getFontSize()));
+        properties.setProperty("backgroundColor", job.subtitleStyle().getBackgroundColor());
+        // the key of ordering is a prefix of the file name, so workers sort jobs without reading them
+        var orderingKey = (long) (MediaProbeService.getShortestJobFirstKey(estimatedSeconds,
+                System.currentTimeMillis()) * 1000);
+        writePropertiesAtomically(spoolDirectory.resolve(PENDING_FOLDER)
+                .resolve(String.format("%020d_%s.job", orderingKey, job.id())), properties);
+    }
+
+    /**
+     * The method launches a worker: it claims jobs one by one, processes them and reports results
+     *
+     * @param spoolDirectory - the shared job directory
+     * @param workerId       - a name of the worker (it's written into its leases and reports)
+     * @param processor      - the pipeline, which processes a job (usually 'VideoProcessService.processVideo')
+     * @param exitWhenIdle   - true, if the worker has to be finished, when there are no pending jobs
+     */
+    public static void launchWorker(Path spoolDirectory, String workerId,
+                                    Function<VideoJob, VideoJobResult> processor, boolean exitWhenIdle)
+            throws IOException, InterruptedException {
+        createSpoolFolders(spoolDirectory);
+        var leaseRenewal = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "LeaseRenewalThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                var job = claimNextJob(spoolDirectory, workerId);
+                if (job == null) {
+                    if (exitWhenIdle && isEmptyFolder(spoolDirectory.resolve(PENDING_FOLDER))) {
+                        return;
+                    }
+                    Thread.sleep(SPOOL_POLL_INTERVAL_MILLIS);
+                    continue;
+                }
+                // the lease is renewed while the job is being processed, a lost lease means the job was reassigned
+                var leasePath = getLeasePath(spoolDirectory, job.id());
+                var isLeaseLost = new AtomicBoolean(false);
+                var renewal = leaseRenewal.scheduleAtFixedRate(() -> renewLease(leasePath, workerId, isLeaseLost),
+                        LEASE_RENEWAL_INTERVAL_MILLIS, LEASE_RENEWAL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                var report = processJob(job, workerId, processor);
+                renewal.cancel(false);
+                var takenLeasePath = isLeaseLost.get() ? null : takeLease(leasePath, job.id(), workerId);
+                if (takenLeasePath == null) {
+                    System.out.println("The lease of the job " + job.id() + " was lost, the result is discarded");
+                    continue;
+                }
+                finishJob(spoolDirectory, job.id(), report);
+                Files.deleteIfExists(takenLeasePath);
+            }
+        } finally {
+            leaseRenewal.shutdownNow();
+        }
+    }
+
+    /**
+     * The method launches a coordinator: it gives jobs with expired leases to other workers and prints reports
+     *
+     * @param spoolDirectory - the shared job directory
+     */
+    public static void launchCoordinator(Path spoolDirectory) throws IOException, InterruptedException {
+        createSpoolFolders(spoolDirectory);
+        Set<String> printedReports = new HashSet<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            reclaimExpiredLeases(spoolDirectory);
+            try (Stream<Path> results = Files.list(spoolDirectory.resolve(RESULTS_FOLDER))) {
+                for (Path resultPath : results.filter(path -> path.toString().endsWith(".result")).toList()) {
+                    if (printedReports.add(resultPath.getFileName().toString())) {
+                        var report = readProperties(resultPath);
+                        System.out.printf("Job %s: %s by %s in %s ms %s%n", report.getProperty("id"),
+                                report.getProperty("status"), report.getProperty("workerId"),
+                                report.getProperty("durationMillis"),
+                                report.getProperty("outputVideoPath", report.getProperty("error", "")));
+                    }
+                }
+            }
+            Thread.sleep(SPOOL_POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    /**
+     * The method moves away leases, which weren't renewed in time, so their jobs can be claimed again.
+     * A job is failed after {@code MAX_ATTEMPTS_OF_JOB} expired leases.
+     *
+     * @param spoolDirectory - the shared job directory
+     * @return a number of reassigned jobs
+     */
+    public static int reclaimExpiredLeases(Path spoolDirectory) throws IOException {
+        int reassignedJobs = 0;
+        long now = System.currentTimeMillis();
+        try (Stream<Path> leases = Files.list(spoolDirectory.resolve(LEASES_FOLDER))) {
+            for (Path leasePath : leases.filter(path -> path.toString().endsWith(".lease")).toList()) {
+                try {
+                    if (now - Files.getLastModifiedTime(leasePath).toMillis() <= LEASE_DURATION_MILLIS) {
+                        continue;
+                    }
+                    var jobId = getIdByFileName(leasePath);
+                    Files.move(leasePath, spoolDirectory.resolve(EXPIRED_FOLDER).resolve(jobId + "-" + now + ".lease"),
+                            StandardCopyOption.ATOMIC_MOVE);
+                    if (countExpiredLeases(spoolDirectory, jobId) >= MAX_ATTEMPTS_OF_JOB) {
+                        var report = new Properties();
+                        report.setProperty("status", JobStatus.FAILED.name());
+                        report.setProperty("workerId", "coordinator");
+                        report.setProperty("durationMillis", "0");
+                        report.setProperty("error", "The lease expired " + MAX_ATTEMPTS_OF_JOB + " times");
+                        finishJob(spoolDirectory, jobId, report); // the lease has been moved away already
+                        System.out.println("The job " + jobId + " was failed: too many expired leases");
+                    } else {
+                        reassignedJobs++;
+                        System.out.println("The lease of the job " + jobId + " expired, the job is reassigned");
+                    }
+                } catch (NoSuchFileException e) {
+                    // the job was finished by the worker right now
+                }
+            }
+        }
+        return reassignedJobs;
+    }
+
+    // === Auxiliary methods ===
+
+    // The method claims a pending job with the smallest key of ordering, which doesn't have a lease yet,
+    // returns null if there are no such jobs
+    private static VideoJob claimNextJob(Path spoolDirectory, String workerId) throws IOException {
+        List<Path> pendingJobs;
+        try (Stream<Path> jobs = Files.list(spoolDirectory.resolve(PENDING_FOLDER))) {
+            pendingJobs = jobs.filter(path -> path.toString().endsWith(".job"))
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .toList();
+        }
+        for (Path jobPath : pendingJobs) {
+            var fileName = getIdByFileName(jobPath);
+            var jobId = fileName.substring(fileName.indexOf('_') + 1);
+            var leasePath = getLeasePath(spoolDirectory, jobId);
+            try {
+                // an exclusive creation of the lease is the claim, only one worker is able to create it
+                Files.writeString(leasePath, workerId, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE);
+            } catch (FileAlreadyExistsException e) {
+                continue; // the job was claimed by another worker
+            }
+            if (Files.exists(spoolDirectory.resolve(RESULTS_FOLDER).resolve(jobId + ".result"))) {
+                Files.deleteIfExists(leasePath); // the job is being finished by another worker right now
+                continue;
+            }
+            try {
+                return readJob(jobPath);
+            } catch (NoSuchFileException e) {
+                Files.deleteIfExists(leasePath); // the job was finished between listing and claiming
+            }
+        }
+        return null;
+    }
+
+    // The method processes a job and prepares a report for the coordinator
+    private static Properties processJob(VideoJob job, String workerId,
+                                         Function<VideoJob, VideoJobResult> processor) {
+        var report = new Properties();
+        report.setProperty("workerId", workerId);
+        long started = System.currentTimeMillis();
+        try {
+            var result = processor.apply(job);
+            report.setProperty("status", JobStatus.DONE.name());
+            report.setProperty("outputVideoPath", result.outputVideoPath());
+        } catch (Exception e) {
+            report.setProperty("status", JobStatus.FAILED.name());
+            report.setProperty("error", String.valueOf(e.getMessage()));
+        }
+        report.setProperty("durationMillis", String.valueOf(System.currentTimeMillis() - started));
+        return report;
+    }
+
+    // The method moves the lease of the worker to a name of its own, so the coordinator can't reclaim it (and
+    // another worker can't claim the job again) while the job is being finished. Returns null, if the lease
+    // isn't owned by the worker anymore.
+    private static Path takeLease(Path leasePath, String jobId, String workerId) throws IOException {
+        var takenLeasePath = leasePath.resolveSibling(jobId + "_" + workerId + ".finishing");
+        try {
+            Files.move(leasePath, takenLeasePath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return null; // the lease was reclaimed by the coordinator
+        }
+        if (isLeaseOwnedBy(takenLeasePath, workerId)) {
+            return takenLeasePath;
+        }
+        // the job was reassigned and claimed by another worker in between, its lease is given back
+        try {
+            Files.move(takenLeasePath, leasePath);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(takenLeasePath); // the job was claimed once more, the newest lease stays
+        }
+        return null;
+    }
+
+    // The method writes a report and removes the job (its lease is removed by its owner)
+    private static void finishJob(Path spoolDirectory, String jobId, Properties report) throws IOException {
+        report.setProperty("id", jobId);
+        writePropertiesAtomically(spoolDirectory.resolve(RESULTS_FOLDER).resolve(jobId + ".result"), report);
+        try (DirectoryStream<Path> pendingJobs = Files.newDirectoryStream(spoolDirectory.resolve(PENDING_FOLDER),
+                "*_" + jobId + ".job")) {
+            for (Path pendingJob : pendingJobs) {
+                Files.deleteIfExists(pendingJob);
+            }
+        }
+    }
+
+    // The method renews a lease by its modification time, a missing lease or a lease of another worker is lost
+    private static void renewLease(Path leasePath, String workerId, AtomicBoolean isLeaseLost) {
+        try {
+            if (isLeaseOwnedBy(leasePath, workerId)) {
+                Files.setLastModifiedTime(leasePath, FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                isLeaseLost.set(true);
+            }
+        } catch (IOException e) {
+            isLeaseLost.set(true);
+        }
+    }
+
+    private static boolean isLeaseOwnedBy(Path leasePath, String workerId) {
+        try {
+            return Files.readString(leasePath, StandardCharsets.UTF_8).equals(workerId);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static VideoJob readJob(Path jobPath) throws IOException {
+        var properties = readProperties(jobPath);
+        var style = new SubtitleStyle(properties.getProperty("textColor"),
+                Integer.parseInt(properties.getProperty("position")),
+                Integer.parseInt(properties.getProperty("fontSize")),
+                properties.getProperty("backgroundColor"));
+        return new VideoJob(properties.getProperty("id"), properties.getProperty("inputVideoFilePath"),
+                properties.getProperty("outputVideoFilePath"), properties.getProperty("originalVideoLanguage"),
+                properties.getProperty("subtitlesLanguage"), style);
+    }
+
+    private static Properties readProperties(Path path) throws IOException {
+        var properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    // other nodes never see a half-written file: it's written next to the target and then renamed atomically
+    private static void writePropertiesAtomically(Path target, Properties properties) throws IOException {
+        var tempPath = target.resolveSibling(target.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(tempPath, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static long countExpiredLeases(Path spoolDirectory, String jobId) throws IOException {
+        try (Stream<Path> expired = Files.list(spoolDirectory.resolve(EXPIRED_FOLDER))) {
+            return expired.filter(path -> path.getFileName().toString().startsWith(jobId + "-")).count();
+        }
+    }
+
+    private static void createSpoolFolders(Path spoolDirectory) throws IOException {
+        for (String folder : List.of(PENDING_FOLDER, LEASES_FOLDER, EXPIRED_FOLDER, RESULTS_FOLDER)) {
+            Files.createDirectories(spoolDirectory.resolve(folder));
+        }
+    }
+
+    private static boolean isEmptyFolder(Path folder) throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.noneMatch(path -> path.toString().endsWith(".job"));
+        }
+    }
+
+    private static Path getLeasePath(Path spoolDirectory, String jobId) {
+        return spoolDirectory.resolve(LEASES_FOLDER).resolve(jobId + ".lease");
+    }
+
+    private static String getIdByFileName(Path path) {
+        var fileName = path.getFileName().toString();
+        return fileName.substring(0, fileName.lastIndexOf('.'));
+    }
+}
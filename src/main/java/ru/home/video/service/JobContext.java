@@ -0,0 +1,38 @@
+package ru.home.video.service;
+
+/**
+ * The class tells, which job the current thread works for: native objects of 'VOSK' and JFR events of stages
+ * are marked by the job. New threads of a job (e.g. virtual threads) inherit it; shared threads, which serve
+ * all jobs (e.g. senders of translation batches), are created without it.
+ */
+public class JobContext {
+
+    private static final InheritableThreadLocal<String> CURRENT_JOB = new InheritableThreadLocal<>();
+
+    /**
+     * The method marks the current thread as a thread of the job till the scope is closed
+     *
+     * @param jobId - an id of the job
+     * @return a scope, its closing gives back the previous job of the thread
+     */
+    public static Scope enter(String jobId) {
+        var previousJobId = CURRENT_JOB.get();
+        CURRENT_JOB.set(jobId);
+        return () -> CURRENT_JOB.set(previousJobId);
+    }
+
+    /**
+     * @return an id of the job of the current thread or null, if the thread doesn't work for a job
+     */
+    public static String getCurrentJobId() {
+        return CURRENT_JOB.get();
+    }
+
+    /**
+     * A scope of a job, it doesn't throw on closing
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,249 @@
+package ru.home.video.service;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import ru.home.video.model.enums.LiveSubtitleEventType;
+import ru.home.video.model.subtitles.LiveSubtitleEvent;
+import ru.home.video.model.subtitles.SubtitleItem;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static ru.home.video.config.SubtitleConfig.*;
+
+/**
+ * The class gives subtitles in near-real-time for recordings which are still being written and for live inputs
+ * (the audio has to be 16000 Hz, 16 bit, mono: a WAV file or a raw PCM stream).
+ */
+public class LiveSubtitleService {
+
+    /**
+     * The method recognizes a speech from a stream while it's being received and emits subtitles incrementally
+     *
+     * @param audioStream - a pipe (for example, stdin of the app) or a growing file, see {@link #openGrowingFile}
+     * @param modelPath   - a path to a free language model 'VOSK' for recognizing a speech
+     * @param webVttPath  - a file where finished phrases are appended (WebVTT), it can be null
+     * @param listener    - a receiver of provisional lines and finished phrases
+     */
+    public static void recognizeLiveStream(InputStream audioStream, String modelPath, Path webVttPath,
+                                           Consumer<LiveSubtitleEvent> listener) {
+        // 1. initializes 'VOSK' model and recognizer ('16000.0f' - it's the standard for speech recognition)
+        try (var model = VoskResourceService.acquireModel(modelPath);
+             var recognizerHandle = VoskResourceService.createRecognizer(model, 16000.0f);
+             var in = skipWavHeaderIfPresent(audioStream);
+             var vttWriter = openWebVttWriter(webVttPath)) {
+            var recognizer = recognizerHandle.get();
+            // 2. enables word-level timestamps (extremely important!)
+            recognizer.setWords(true);
+            // 3. remembers when every portion of audio was received, it's necessary for measuring of latency
+            var arrivals = new AudioArrivals();
+            byte[] buffer = new byte[LIVE_BUFFER_SIZE];
+            long receivedBytes = 0;
+            double partialStart = 0.0;
+            String lastPartialText = "";
+            // a pipe can give an odd number of bytes, then the rest of the sample waits for the next read
+            int leftoverBytes = 0;
+            int bytesRead;
+            while ((bytesRead = in.read(buffer, leftoverBytes, buffer.length - leftoverBytes)) != -1) {
+                int bufferedBytes = leftoverBytes + bytesRead;
+                int frameBytes = bufferedBytes - bufferedBytes % BYTES_PER_AUDIO_FRAME;
+                if (frameBytes == 0) {
+                    leftoverBytes = bufferedBytes;
+                    continue;
+                }
+                receivedBytes += frameBytes;
+                arrivals.add(receivedBytes, System.nanoTime());
+                boolean phraseFinished = recognizer.acceptWaveForm(buffer, frameBytes);
+                leftoverBytes = bufferedBytes - frameBytes;
+                System.arraycopy(buffer, frameBytes, buffer, 0, leftoverBytes);
+                if (phraseFinished) {
+                    // 4. a phrase is finished: it's appended to the file and emitted as a final subtitle
+                    emitFinalPhrases(recognizer.getResult(), arrivals, vttWriter, listener);
+                    partialStart = (double) receivedBytes / BYTES_PER_SECOND_OF_AUDIO;
+                    lastPartialText = "";
+                } else {
+                    // 5. a phrase is still being pronounced: it's emitted as a provisional line if it was changed
+                    var partialText = getPartialText(recognizer.getPartialResult());
+                    if (partialText.isEmpty()) {
+                        partialStart = (double) receivedBytes / BYTES_PER_SECOND_OF_AUDIO;
+                    } else if (!partialText.equals(lastPartialText)) {
+                        listener.accept(new LiveSubtitleEvent(LiveSubtitleEventType.PARTIAL,
+                                new SubtitleItem(partialStart, (double) receivedBytes / BYTES_PER_SECOND_OF_AUDIO,
+                                        partialText, null),
+                                arrivals.getLatencyMillisOfLastArrival()));
+                    }
+                    lastPartialText = partialText;
+                }
+            }
+            // 6. the stream was closed: the rest of data is emitted as the last phrase
+            emitFinalPhrases(recognizer.getFinalResult(), arrivals, vttWriter, listener);
+        } catch (IOException e) {
+            System.err.println("Method recognizeLiveStream was failure.\nError: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The method opens a file which is still being written (for example, by 'ffmpeg' from a live input)
+     *
+     * @param path              - a path to the growing file
+     * @param idleTimeoutMillis - the file is treated as finished, when nothing was written into it during this time
+     * @return a stream which waits for new data instead of finishing at the current end of the file
+     */
+    public static InputStream openGrowingFile(Path path, long idleTimeoutMillis) throws IOException {
+        return new GrowingFileInputStream(FileChannel.open(path, StandardOpenOption.READ), idleTimeoutMillis);
+    }
+
+    // === Auxiliary methods ===
+
+    // The method merges recognized words into phrases, appends them to the file and gives them to the listener
+    private static void emitFinalPhrases(String jsonStr, AudioArrivals arrivals, BufferedWriter vttWriter,
+                                         Consumer<LiveSubtitleEvent> listener) throws IOException {
+        List<SubtitleItem> words = new ArrayList<>();
+        SpeechRecognitionService.fillSubtitlesByTextWithTimestamps(jsonStr, words::add);
+        for (SubtitleItem phrase : SpeechRecognitionService.mergeToPhrases(words)) {
+            if (vttWriter != null) {
+                vttWriter.write(SubtitleService.createWebVttCue(phrase));
+                vttWriter.flush(); // the file can be read by a player at any moment
+            }
+            listener.accept(new LiveSubtitleEvent(LiveSubtitleEventType.FINAL, phrase,
+                    arrivals.getLatencyMillisOfAudioUpTo(phrase.end())));
+        }
+    }
+
+    // The method extracts a provisional text from a partial result of 'VOSK'
+    private static String getPartialText(String jsonStr) {
+        try {
+            return new JSONObject(jsonStr).optString("partial", "").trim();
+        } catch (JSONException e) {
+            System.err.println("Method getPartialText was failure.\nError: " + e.getMessage());
+            return "";
+        }
+    }
+
+    // The method opens a WebVTT file for appending, the header is written only for a new (empty) file
+    private static BufferedWriter openWebVttWriter(Path webVttPath) throws IOException {
+        if (webVttPath == null) {
+            return null;
+        }
+        var isNewFile = !Files.exists(webVttPath) || Files.size(webVttPath) == 0;
+        var writer = Files.newBufferedWriter(webVttPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        if (isNewFile) {
+            writer.write(SubtitleService.createWebVttHeader());
+            writer.flush();
+        }
+        return writer;
+    }
+
+    // The method skips a RIFF header (a WAV file), so the header bytes aren't recognized as audio
+    private static InputStream skipWavHeaderIfPresent(InputStream audioStream) throws IOException {
+        var in = new PushbackInputStream(audioStream, 12);
+        byte[] riff = in.readNBytes(12);
+        if (riff.length < 12 || !new String(riff, 0, 4, StandardCharsets.US_ASCII).equals("RIFF") ||
+                !new String(riff, 8, 4, StandardCharsets.US_ASCII).equals("WAVE")) {
+            in.unread(riff); // it's a raw PCM stream
+            return in;
+        }
+        while (true) { // chunks before 'data' are skipped ('fmt ', 'LIST' and so on)
+            byte[] chunkHeader = in.readNBytes(8);
+            if (chunkHeader.length < 8) {
+                return in;
+            }
+            var chunkId = new String(chunkHeader, 0, 4, StandardCharsets.US_ASCII);
+            if (chunkId.equals("data")) {
+                return in; // the size of the chunk isn't known yet while the file is being written
+            }
+            long chunkSize = Integer.toUnsignedLong(ByteBuffer.wrap(chunkHeader, 4, 4)
+                    .order(ByteOrder.LITTLE_ENDIAN).getInt());
+            in.skipNBytes(chunkSize + (chunkSize & 1)); // chunks are aligned to an even size
+        }
+    }
+
+    /**
+     * The class remembers when portions of audio were received (an offset of the portion end and a time)
+     */
+    private static class AudioArrivals {
+
+        private static final int MAX_SIZE = 3000; // ~ 5 minutes of portions, phrases are much shorter
+        private final Deque<long[]> arrivals = new ArrayDeque<>();
+
+        private void add(long endByteOffset, long nanoTime) {
+            arrivals.addLast(new long[]{endByteOffset, nanoTime});
+            if (arrivals.size() > MAX_SIZE) {
+                arrivals.removeFirst();
+            }
+        }
+
+        private long getLatencyMillisOfLastArrival() {
+            return arrivals.isEmpty() ? 0 : (System.nanoTime() - arrivals.getLast()[1]) / 1_000_000;
+        }
+
+        // gives milliseconds since the audio with the given second was received, older portions are forgotten
+        private long getLatencyMillisOfAudioUpTo(double seconds) {
+            long byteOffset = (long) (seconds * BYTES_PER_SECOND_OF_AUDIO);
+            while (arrivals.size() > 1 && arrivals.getFirst()[0] < byteOffset) {
+                arrivals.removeFirst();
+            }
+            return arrivals.isEmpty() ? 0 : (System.nanoTime() - arrivals.getFirst()[1]) / 1_000_000;
+        }
+    }
+
+    /**
+     * The stream reads a file which is still being written, at the end of the file it waits for new data
+     */
+    private static class GrowingFileInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long idleTimeoutMillis;
+
+        private GrowingFileInputStream(FileChannel channel, long idleTimeoutMillis) {
+            this.channel = channel;
+            this.idleTimeoutMillis = idleTimeoutMillis;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] oneByte = new byte[1];
+            return read(oneByte, 0, 1) == -1 ? -1 : oneByte[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long idleSince = System.currentTimeMillis();
+            while (true) {
+                int bytesRead = channel.read(ByteBuffer.wrap(buffer, offset, length));
+                if (bytesRead > 0) {
+                    return bytesRead;
+                }
+                if (System.currentTimeMillis() - idleSince > idleTimeoutMillis) {
+                    return -1; // the file isn't written anymore
+                }
+                try {
+                    Thread.sleep(LIVE_GROWING_FILE_POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return -1;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ru.home.video.service;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import ru.home.video.config.ProcessConfig;
+import ru.home.video.exception.ExternalProcessException;
+import ru.home.video.model.jobs.AudioTrack;
+import ru.home.video.model.jobs.MediaInfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ru.home.video.config.SchedulerConfig.*;
+
+/**
+ * The class gives information about video files by an external app 'ffprobe' and estimates a cost of processing
+ */
+public class MediaProbeService {
+
+    /**
+     * The method gives a duration of a video and checks it has an audio stream
+     *
+     * @param ffprobePath - a path to the app 'ffprobe' (the same bundle as 'ffmpeg')
+     * @param videoPath   - a path to the inputted video
+     * @return information about the video
+     * @throws IOException if 'ffprobe' wasn't able to read the file
+     */
+    public static MediaInfo probeMedia(String ffprobePath, String videoPath) throws IOException {
+        return probeMedia(ffprobePath, videoPath, new CancellationToken());
+    }
+
+    /**
+     * The method gives a duration of a video and checks it has an audio stream, 'ffprobe' is killed when the job
+     * is cancelled
+     *
+     * @param ffprobePath       - a path to the app 'ffprobe' (the same bundle as 'ffmpeg')
+     * @param videoPath         - a path to the inputted video
+     * @param cancellationToken - a token of the job
+     * @return information about the video
+     * @throws IOException if 'ffprobe' wasn't able to read the file
+     */
+    public static MediaInfo probeMedia(String ffprobePath, String videoPath, CancellationToken cancellationToken)
+            throws IOException {
+        // '-v error' - only errors are printed, '-show_entries' - a duration of the file and types of its streams,
+        // '-of json' - the output format
+        String output;
+        try {
+            output = ProcessRunnerService.await(ProcessRunnerService.run("ffprobe", List.of(ffprobePath, "-v",
+                    "error", "-show_entries", "format=duration:stream=codec_type", "-of", "json", videoPath),
+                    ProcessConfig.PROBE_TIMEOUT_MILLIS), cancellationToken).stdout();
+        } catch (ExternalProcessException e) {
+            throw new IOException("ffprobe wasn't able to read the file: " + videoPath + "\n" + e.getMessage(), e);
+        }
+        return getMediaInfoByJson(output);
+    }
+
+    /**
+     * The method gives audio streams of a video in the order of their indexes
+     *
+     * @param ffprobePath - a path to the app 'ffprobe' (the same bundle as 'ffmpeg')
+     * @param videoPath   - a path to the inputted video
+     * @return audio streams with their languages
+     * @throws IOException if 'ffprobe' wasn't able to read the file
+     */
+    public static List<AudioTrack> probeAudioTracks(String ffprobePath, String videoPath) throws IOException {
+        // '-select_streams a' - only audio streams, '-show_entries' - a language and a title from their metadata
+        String output;
+        try {
+            output = ProcessRunnerService.await(ProcessRunnerService.run("ffprobe", List.of(ffprobePath, "-v",
+                    "error", "-select_streams", "a", "-show_entries", "stream=index:stream_tags=language,title",
+                    "-of", "json", videoPath), ProcessConfig.PROBE_TIMEOUT_MILLIS)).stdout();
+        } catch (ExternalProcessException e) {
+            throw new IOException("ffprobe wasn't able to read the file: " + videoPath + "\n" + e.getMessage(), e);
+        }
+        return getAudioTracksByJson(output);
+    }
+
+    /**
+     * The method estimates seconds of work for a video: its duration * real-time factors of every stage
+     *
+     * @param mediaInfo - information about the video
+     * @return estimated seconds of processing
+     */
+    public static double estimateProcessingSeconds(MediaInfo mediaInfo) {
+        return mediaInfo.durationSeconds() * (REAL_TIME_FACTOR_OF_AUDIO_EXTRACTION + REAL_TIME_FACTOR_OF_RECOGNITION +
+                REAL_TIME_FACTOR_OF_TRANSLATION + REAL_TIME_FACTOR_OF_BURNING);
+    }
+
+    /**
+     * The method gives a key for ordering of jobs: the smallest key is processed first. The key is the cost which
+     * decreases while the job is waiting (aging): cost - aging * (now - submitted). Since 'now' is the same for all
+     * jobs, the order is defined by (cost + aging * submitted), so the key doesn't change over time.
+     *
+     * @param estimatedSeconds - estimated seconds of processing
+     * @param submittedMillis  - a moment when the job was submitted
+     * @return the key of ordering
+     */
+    public static double getShortestJobFirstKey(double estimatedSeconds, long submittedMillis) {
+        return estimatedSeconds + AGING_SECONDS_PER_SECOND_OF_WAITING * (submittedMillis / 1000.0);
+    }
+
+    // === Auxiliary methods ===
+
+    private static MediaInfo getMediaInfoByJson(String jsonStr) throws IOException {
+        try {
+            var json = new JSONObject(jsonStr);
+            var duration = json.optJSONObject("format", new JSONObject()).optDouble("duration", 0.0);
+            var streams = json.optJSONArray("streams");
+            var hasAudio = false;
+            for (int i = 0; streams != null && i < streams.length(); i++) {
+                hasAudio |= "audio".equals(streams.getJSONObject(i).optString("codec_type"));
+            }
+            return new MediaInfo(Double.isNaN(duration) ? 0.0 : duration, hasAudio);
+        } catch (JSONException e) {
+            throw new IOException("The output of ffprobe wasn't parsed: " + e.getMessage(), e);
+        }
+    }
+
+    private static List<AudioTrack> getAudioTracksByJson(String jsonStr) throws IOException {
+        try {
+            var streams = new JSONObject(jsonStr).optJSONArray("streams");
+            List<AudioTrack> tracks = new ArrayList<>();
+            for (int i = 0; streams != null && i < streams.length(); i++) {
+                var tags = streams.getJSONObject(i).optJSONObject("tags", new JSONObject());
+                tracks.add(new AudioTrack(i, tags.optString("language", "und"), tags.optString("title", "")));
+            }
+            return tracks;
+        } catch (JSONException e) {
+            throw new IOException("The output of ffprobe wasn't parsed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ru.home.video.service;
+
+import ru.home.video.config.JavaSubProviderAppConfig;
+import ru.home.video.exception.JobCancelledException;
+import ru.home.video.model.enums.LanguageType;
+import ru.home.video.model.jobs.AudioTrack;
+import ru.home.video.model.subtitles.SubtitleItem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static ru.home.video.config.SubtitleConfig.RECOGNITION_CHUNK_SIZE;
+
+/**
+ * The class recognizes a video with several audio tracks (e.g. an MKV with the original audio and dubs) in one job:
+ * tracks are extracted by one launch of 'ffmpeg' and recognized at the same time, every one by the model of its
+ * language, so a subtitles file in the language of every track is made without processing the video again.
+ * <p>
+ * Recognitions take slots of the scheduler as usual (see {@link ResourceSchedulerService}), so they're parallel
+ * only when there are free cores and memory for several models.
+ */
+public class MultiTrackRecognitionService {
+
+    /**
+     * The method chooses audio tracks of a video, which can be recognized: the first track of every supported
+     * language, whose model is installed (tracks without a language and a commentary in the same language are
+     * skipped)
+     *
+     * @param ffprobePath  - a path to the app 'ffprobe'
+     * @param videoPath    - a path to the inputted video
+     * @param mainLanguage - an original language of the job, its track goes first
+     * @return tracks to recognize or an empty list, if there aren't several of them or there isn't a track
+     * of the main language (then the video is processed by its default audio stream as usual)
+     */
+    public static List<AudioTrack> getTracksToRecognize(String ffprobePath, String videoPath,
+                                                        LanguageType mainLanguage) {
+        List<AudioTrack> tracks;
+        try {
+            tracks = MediaProbeService.probeAudioTracks(ffprobePath, videoPath);
+        } catch (IOException e) {
+            System.out.println("Audio tracks weren't read, the default one is recognized\n" + e.getMessage());
+            return List.of();
+        }
+        List<AudioTrack> tracksToRecognize = new ArrayList<>();
+        var languages = EnumSet.noneOf(LanguageType.class);
+        for (var track : tracks) {
+            var language = track.getLanguage();
+            if (language != null && !languages.contains(language) && Files.isDirectory(
+                    Paths.get(JavaSubProviderAppConfig.getVoskModelPathByLanguageType(language)))) {
+                languages.add(language);
+                tracksToRecognize.add(language == mainLanguage ? 0 : tracksToRecognize.size(), track);
+            }
+        }
+        if (tracksToRecognize.size() < 2 || !languages.contains(mainLanguage)) {
+            return List.of();
+        }
+        return tracksToRecognize;
+    }
+
+    /**
+     * The method recognizes audio tracks at the same time
+     *
+     * @param audioPathsByTrack - paths of extracted audio files ('wav') by tracks
+     * @param cancellationToken - a token of the job
+     * @return phrases of every track in the same order (null for a track, whose recognition failed)
+     * @throws JobCancelledException if the job was cancelled
+     */
+    public static Map<AudioTrack, List<SubtitleItem>> recognizeTracks(Map<AudioTrack, String> audioPathsByTrack,
+                                                                      CancellationToken cancellationToken) {
+        // 1. Every track is recognized in its own thread (a platform one: the recognition is long native work)
+        Map<AudioTrack, Future<List<SubtitleItem>>> recognitions = new LinkedHashMap<>();
+        try (var executor = Executors.newThreadPerTaskExecutor(Thread.ofPlatform().name("track-recognizer-", 0)
+                .factory())) {
+            audioPathsByTrack.forEach((track, audioPath) -> {
+                var modelPath = JavaSubProviderAppConfig.getVoskModelPathByLanguageType(track.getLanguage());
+                recognitions.put(track, executor.submit(() -> ResourceSchedulerService.runWithRecognizer(modelPath,
+                        cancellationToken, () -> SpeechRecognitionService.recognizeSpeech(audioPath, modelPath,
+                                RECOGNITION_CHUNK_SIZE, cancellationToken))));
+            });
+
+            // 2. Waits for all of them (the others are stopped by the token, when the job is cancelled)
+            Map<AudioTrack, List<SubtitleItem>> phrasesByTrack = new LinkedHashMap<>();
+            for (var recognition : recognitions.entrySet()) {
+                phrasesByTrack.put(recognition.getKey(), getPhrases(recognition.getKey(), recognition.getValue()));
+            }
+            cancellationToken.throwIfCancelled();
+            return phrasesByTrack;
+        }
+    }
+
+    // === Auxiliary methods ===
+
+    private static List<SubtitleItem> getPhrases(AudioTrack track, Future<List<SubtitleItem>> recognition) {
+        try {
+            return recognition.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Waiting for the recognition of audio tracks was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof JobCancelledException cancelledException) {
+                throw cancelledException;
+            }
+            System.out.println("The audio track " + track.index() + " (" + track.languageTag() + ") wasn't " +
+                    "recognized: " + e.getCause().getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ru.home.video.service;
+
+import com.sun.jna.PointerType;
+import ru.home.video.model.resources.NativeHandleInfo;
+
+import java.lang.ref.Cleaner;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The class owns a native object of 'VOSK' (a model or a recognizer): the object is closed once, by the owner of
+ * the handle, and it's counted by {@link NativeHandleTracker} while it's opened. An object, which became
+ * unreachable without closing, is reported (its native memory is never freed by the garbage collector).
+ *
+ * @param <T> - a type of the native object
+ */
+public class NativeHandle<T extends PointerType & AutoCloseable> implements AutoCloseable {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final T nativeObject;
+    private final NativeHandleInfo info;
+    private final AtomicBoolean closed;
+    private final Cleaner.Cleanable cleanable;
+
+    NativeHandle(T nativeObject, NativeHandleInfo info) {
+        this.nativeObject = nativeObject;
+        this.info = info;
+        // the action doesn't refer to the object, otherwise it would never become unreachable
+        var isClosed = new AtomicBoolean();
+        this.closed = isClosed;
+        this.cleanable = CLEANER.register(nativeObject, () -> {
+            if (!isClosed.get()) {
+                NativeHandleTracker.reportCollected(info);
+            }
+        });
+    }
+
+    /**
+     * @return the native object (it mustn't be closed directly and it mustn't be used after closing of the handle)
+     * @throws IllegalStateException if the handle was closed
+     */
+    public T get() {
+        if (closed.get()) {
+            throw new IllegalStateException("The native object was closed: " + info.kind());
+        }
+        return nativeObject;
+    }
+
+    /**
+     * @return the information about the native object
+     */
+    public NativeHandleInfo getInfo() {
+        return info;
+    }
+
+    /**
+     * The method frees native memory of the object, a repeated closing does nothing
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            nativeObject.close();
+        } catch (Exception e) {
+            System.out.println("The native object wasn't closed: " + info.kind() + "\n" + e.getMessage());
+        } finally {
+            NativeHandleTracker.unregister(info);
+            cleanable.clean();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ru.home.video.service;
+
+import ru.home.video.model.resources.NativeHandleInfo;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static ru.home.video.config.SchedulerConfig.LEAK_DETECTION;
+
+/**
+ * The class keeps account of native objects of 'VOSK', which are opened at the moment: their number and native
+ * memory (approximately). Every object belongs to the job, which opened it (see {@link JobContext}), so in the
+ * leak detection mode ('-Djavasubprovider.leakDetection=true') the objects, which weren't closed by a job, are
+ * reported with places where they were opened, when the job ends.
+ */
+public class NativeHandleTracker {
+
+    private static final Map<Long, NativeHandleInfo> LIVE_HANDLES = new ConcurrentHashMap<>();
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    /**
+     * The method begins a check of native objects of a job (objects belong to the job of the thread, which opened
+     * them, see {@link JobContext})
+     *
+     * @param jobId - an id of the job
+     * @return a check, its closing reports objects of the job, which weren't closed (in the leak detection mode)
+     */
+    public static LeakCheck openLeakCheck(String jobId) {
+        return () -> {
+            if (LEAK_DETECTION) {
+                reportUnclosedHandles(jobId);
+            }
+        };
+    }
+
+    /**
+     * @return native objects, which are opened at the moment (in the order of opening)
+     */
+    public static List<NativeHandleInfo> getLiveHandles() {
+        return LIVE_HANDLES.values().stream()
+                .sorted(Comparator.comparingLong(NativeHandleInfo::id))
+                .toList();
+    }
+
+    /**
+     * @param jobId - an id of a job
+     * @return native objects of the job, which are opened at the moment
+     */
+    public static List<NativeHandleInfo> getLiveHandles(String jobId) {
+        return getLiveHandles().stream()
+                .filter(handle -> jobId.equals(handle.owner()))
+                .toList();
+    }
+
+    /**
+     * @return native memory of all opened objects (bytes, approximately)
+     */
+    public static long getLiveBytes() {
+        return LIVE_HANDLES.values().stream().mapToLong(NativeHandleInfo::approximateBytes).sum();
+    }
+
+    /**
+     * A check of native objects of a job, it doesn't throw on closing
+     */
+    public interface LeakCheck extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    // === Auxiliary methods ===
+
+    // registers an object of the current job
+    static NativeHandleInfo register(String kind, String description, long approximateBytes) {
+        return register(kind, description, approximateBytes, JobContext.getCurrentJobId());
+    }
+
+    // registers an object shared by jobs (e.g. a cached model), it isn't a leak of the job, which opened it
+    static NativeHandleInfo registerShared(String kind, String description, long approximateBytes) {
+        return register(kind, description, approximateBytes, null);
+    }
+
+    static void unregister(NativeHandleInfo handle) {
+        LIVE_HANDLES.remove(handle.id());
+    }
+
+    // the object became unreachable without closing, its native memory is lost till the end of the app
+    static void reportCollected(NativeHandleInfo handle) {
+        System.out.println("A native object was garbage collected without closing: " + describe(handle));
+        if (handle.creationTrace() != null) {
+            handle.creationTrace().printStackTrace(System.out);
+        }
+    }
+
+    private static NativeHandleInfo register(String kind, String description, long approximateBytes,
+                                             String owner) {
+        var handle = new NativeHandleInfo(NEXT_ID.incrementAndGet(), kind, description, approximateBytes, owner,
+                LEAK_DETECTION ? new Throwable("The native object was opened here") : null);
+        LIVE_HANDLES.put(handle.id(), handle);
+        return handle;
+    }
+
+    private static void reportUnclosedHandles(String jobId) {
+        var unclosedHandles = getLiveHandles(jobId);
+        if (unclosedHandles.isEmpty()) {
+            return;
+        }
+        System.out.printf("The job %s didn't close %d native object(s), ~%d MB:%n", jobId, unclosedHandles.size(),
+                unclosedHandles.stream().mapToLong(NativeHandleInfo::approximateBytes).sum() >> 20);
+        for (var handle : unclosedHandles) {
+            System.out.println("  " + describe(handle));
+            handle.creationTrace().printStackTrace(System.out);
+        }
+    }
+
+    private static String describe(NativeHandleInfo handle) {
+        return "#" + handle.id() + " " + handle.kind() + " (" + handle.description() + ", ~" +
+                (handle.approximateBytes() >> 20) + " MB, job: " + handle.owner() + ")";
+    }
+}
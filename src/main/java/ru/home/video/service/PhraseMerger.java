@@ -0,0 +1,113 @@
+package ru.home.video.service;
+
+import ru.home.video.model.subtitles.SubtitleItem;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static ru.home.video.config.SubtitleConfig.*;
+
+/**
+ * The class combines separated words into phrases while words are being recognized. A phrase is given away as soon
+ * as the next word starts a new phrase, so downstream stages don't wait for the end of recognition.
+ * The state doesn't depend on a length of an audio file: only the current phrase is stored.
+ */
+public class PhraseMerger {
+
+    private static final List<Character> PUNCTUATION_MARKS = List.of('.', '!', '?', ',', ':', ';');
+
+    private final Consumer<SubtitleItem> phraseConsumer;
+    private final StringBuilder currentPhrase = new StringBuilder();
+    private int phraseWordCount = 0;
+    private SubtitleItem previousWord = null;
+    private SubtitleItem phraseStartWord = null;
+    private SubtitleItem phraseEndWord = null;
+
+    /**
+     * @param phraseConsumer - a receiver of ready phrases (a text isn't translated yet)
+     */
+    public PhraseMerger(Consumer<SubtitleItem> phraseConsumer) {
+        this.phraseConsumer = phraseConsumer;
+    }
+
+    /**
+     * The method adds the next recognized word, the previous phrase is given away if the word starts a new one
+     *
+     * @param word - a recognized word with timestamps
+     */
+    public void accept(SubtitleItem word) {
+        if (phraseStartWord == null) {
+            phraseStartWord = word;
+        }
+        // Checking whether a new sentence needs to be started
+        if (isNecessaryToStartNewPhraseByParams(currentPhrase, previousWord, word, phraseWordCount)) {
+            // Add the current phrase if it's not empty
+            emitCurrentPhrase();
+            // Start a new phrase
+            phraseStartWord = word;
+        }
+        // Add a word to the current phrase
+        if (!currentPhrase.isEmpty()) currentPhrase.append(" ");
+        currentPhrase.append(word.text());
+        phraseEndWord = word;
+        phraseWordCount++;
+        previousWord = word;
+    }
+
+    /**
+     * The method gives away the last phrase, it has to be called after the last recognized word
+     */
+    public void flush() {
+        emitCurrentPhrase();
+        phraseStartWord = null;
+        previousWord = null;
+    }
+
+    // === Auxiliary methods ===
+
+    // Format and give away the current phrase, then the phrase is cleared
+    private void emitCurrentPhrase() {
+        if (!currentPhrase.isEmpty() && phraseEndWord != null) {
+            phraseConsumer.accept(new SubtitleItem(
+                    phraseStartWord.start(),
+                    phraseEndWord.end(),
+                    formatPhraseText(getBeginningSentenceWithCapitalLetter(currentPhrase.toString().trim())),
+                    null
+            ));
+        }
+        currentPhrase.setLength(0);
+        phraseWordCount = 0;
+        phraseEndWord = null;
+    }
+
+    // The method checks it has to be started a new phrase, return true/false
+    private static boolean isNecessaryToStartNewPhraseByParams(StringBuilder currentPhrase, SubtitleItem previousWord,
+                                                               SubtitleItem currentWord, int phraseWordCount) {
+
+        var previousText = (previousWord != null) ? previousWord.text() : "";
+        return  // checking the length of a phrase (characters)
+                currentPhrase.length() + currentWord.text().length() > QUANTITY_OF_CHARS_FOR_ONE_PORTION_SUBTITLES
+                        // checking the pause between words
+                        || (previousWord != null &&
+                        currentWord.start() - previousWord.end() > TYPICAL_SECONDS_BETWEEN_WORDS_AT_ONE_PHRASE)
+                        // checking the number of words in a phrase
+                        || phraseWordCount >= MAX_COUNT_OF_WORDS_FOR_ONE_PORTION_SUBTITLES
+                        // Checking for a sentence end mark in the previous word
+                        || (previousWord != null &&
+                        PUNCTUATION_MARKS.contains(previousText.charAt(previousText.length() - 1)));
+    }
+
+    // The method formats the text of a phrase, it adds a capital letter and return refreshed phrase text
+    private static String getBeginningSentenceWithCapitalLetter(String phraseText) {
+        var firstChar = phraseText.charAt(0);
+        if (Character.isLetter(firstChar) && Character.isLowerCase(firstChar)) {
+            phraseText = Character.toUpperCase(firstChar) + phraseText.substring(1);
+        }
+        return phraseText;
+    }
+
+    // The method formats the text of a phrase: it adds a dot if necessary.
+    private static String formatPhraseText(String phraseText) {
+        return !PUNCTUATION_MARKS.contains(phraseText.charAt(phraseText.length() - 1)) ? phraseText + "." : phraseText;
+    }
+}
@@ -0,0 +1,213 @@
+package ru.home.video.service;
+
+import ru.home.video.config.ProcessConfig;
+import ru.home.video.exception.ExternalProcessException;
+import ru.home.video.exception.JobCancelledException;
+import ru.home.video.exception.ProcessFailedException;
+import ru.home.video.exception.ProcessTimeoutException;
+import ru.home.video.jfr.ExternalProcessEvent;
+import ru.home.video.model.process.ProcessResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * The class launches external apps ('ffmpeg', 'ffprobe') without blocking a caller. Every process gives a future,
+ * which is completed when the process is finished and its output is read:
+ * <ul>
+ *     <li>stdout and stderr are drained by virtual threads into bounded buffers, so a process is never blocked
+ *     by a full pipe</li>
+ *     <li>a non-zero exit code fails the future by {@link ProcessFailedException}</li>
+ *     <li>a process is killed (with its child processes) on a timeout or when the future is cancelled</li>
+ * </ul>
+ */
+public class ProcessRunnerService {
+
+    private static final ExecutorService OUTPUT_DRAINERS = Executors.newVirtualThreadPerTaskExecutor();
+    // timeouts of processes, a timeout of a finished process is removed at once (it doesn't keep the process)
+    private static final ScheduledThreadPoolExecutor TIMEOUTS = createTimeoutScheduler();
+
+    /**
+     * The method launches an external app
+     *
+     * @param toolName      - a name of the app for messages of errors
+     * @param command       - the app and its arguments
+     * @param timeoutMillis - the app is killed, if it isn't finished during this time
+     * @return a future of the finished process, it's failed by {@link ExternalProcessException} and its subclasses
+     */
+    public static CompletableFuture<ProcessResult> run(String toolName, List<String> command, long timeoutMillis) {
+        return run(toolName, command, timeoutMillis, ProcessConfig.PROCESS_OUTPUT_BUFFER_SIZE);
+    }
+
+    /**
+     * The method launches an external app, which prints a big output to be read (lists of frames, packets)
+     *
+     * @param toolName         - a name of the app for messages of errors
+     * @param command          - the app and its arguments
+     * @param timeoutMillis    - the app is killed, if it isn't finished during this time
+     * @param outputBufferSize - only this number of the last bytes of stdout is kept
+     * @return a future of the finished process, it's failed by {@link ExternalProcessException} and its subclasses
+     */
+    public static CompletableFuture<ProcessResult> run(String toolName, List<String> command, long timeoutMillis,
+                                                       int outputBufferSize) {
+        // the event is timed till the future is completed (it's committed by a thread, which completes the future)
+        var processEvent = new ExternalProcessEvent();
+        processEvent.begin();
+        processEvent.setTool(toolName);
+        processEvent.setCommand(String.join(" ", command));
+        Process process;
+        try {
+            process = new ProcessBuilder(command).start();
+            process.getOutputStream().close(); // apps don't wait for a user input ('ffmpeg' reads keys from stdin)
+        } catch (IOException e) {
+            commitProcessEvent(processEvent, -1, "NOT_STARTED");
+            return CompletableFuture.failedFuture(new ExternalProcessException(toolName, "it wasn't started", e));
+        }
+
+        // 1. Drains the output while the process is working
+        var stdout = new OutputTail(outputBufferSize);
+        var stderr = new OutputTail(ProcessConfig.PROCESS_OUTPUT_BUFFER_SIZE);
+        var outputDrained = CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> stdout.drain(process.getInputStream()), OUTPUT_DRAINERS),
+                CompletableFuture.runAsync(() -> stderr.drain(process.getErrorStream()), OUTPUT_DRAINERS));
+
+        // 2. Completes the result, when the process is finished and its output is read
+        var result = new CompletableFuture<ProcessResult>();
+        process.onExit().thenCombine(outputDrained, (finished, drained) -> finished).thenAccept(finished -> {
+            if (finished.exitValue() == 0) {
+                result.complete(new ProcessResult(0, stdout.toString(), stderr.toString(), stdout.isTruncated()));
+            } else {
+                result.completeExceptionally(new ProcessFailedException(toolName, finished.exitValue(),
+                        stderr.toString()));
+            }
+        });
+        var timeout = TIMEOUTS.schedule(() -> result.completeExceptionally(
+                new ProcessTimeoutException(toolName, timeoutMillis)), timeoutMillis, TimeUnit.MILLISECONDS);
+        result.whenComplete((processResult, e) -> {
+            timeout.cancel(false);
+            if (process.isAlive()) { // a timeout or a cancellation
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            }
+            if (e == null) {
+                commitProcessEvent(processEvent, 0, "OK");
+            } else if (e instanceof ProcessFailedException failedException) {
+                commitProcessEvent(processEvent, failedException.getExitCode(), "FAILED");
+            } else {
+                commitProcessEvent(processEvent, -1, e instanceof ProcessTimeoutException ? "TIMEOUT" : "CANCELLED");
+            }
+        });
+        return result;
+    }
+
+    /**
+     * The method waits for a process in a stage, which is blocked anyway (it holds a slot of the scheduler).
+     * When the waiting thread is interrupted, the process is killed.
+     *
+     * @param processFuture - a future of a process from {@link #run}
+     * @return the finished process
+     * @throws ExternalProcessException if the process wasn't finished successfully
+     */
+    public static ProcessResult await(CompletableFuture<ProcessResult> processFuture) {
+        try {
+            return processFuture.get();
+        } catch (InterruptedException e) {
+            processFuture.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Waiting for an external app was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * The method waits for a process of a job, the process is killed at once when the job is cancelled
+     *
+     * @param processFuture     - a future of a process from {@link #run}
+     * @param cancellationToken - a token of the job
+     * @return the finished process
+     * @throws ExternalProcessException if the process wasn't finished successfully
+     * @throws JobCancelledException    if the job was cancelled
+     */
+    public static ProcessResult await(CompletableFuture<ProcessResult> processFuture,
+                                      CancellationToken cancellationToken) {
+        try (var registration = cancellationToken.onCancel(() -> processFuture.cancel(true))) {
+            return await(processFuture);
+        } catch (CancellationException e) {
+            cancellationToken.throwIfCancelled();
+            throw e;
+        }
+    }
+
+    // === Auxiliary methods ===
+
+    private static ScheduledThreadPoolExecutor createTimeoutScheduler() {
+        var scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "ProcessTimeoutThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private static void commitProcessEvent(ExternalProcessEvent processEvent, int exitCode, String outcome) {
+        if (processEvent.shouldCommit()) {
+            processEvent.setExitCode(exitCode);
+            processEvent.setOutcome(outcome);
+            processEvent.commit();
+        }
+    }
+
+    /**
+     * The buffer keeps only the last bytes of an output (a ring buffer)
+     */
+    private static class OutputTail {
+
+        private final byte[] buffer;
+        private long written; // all bytes which were written, the position in the buffer is 'written % length'
+
+        private OutputTail(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void drain(InputStream in) {
+            byte[] portion = new byte[8192];
+            try (in) {
+                int bytesRead;
+                while ((bytesRead = in.read(portion)) != -1) {
+                    append(portion, bytesRead);
+                }
+            } catch (IOException e) { // the stream is closed when the process is killed
+                System.out.println("The output of an external app wasn't read till the end: " + e.getMessage());
+            }
+        }
+
+        private synchronized void append(byte[] portion, int length) {
+            for (int i = Math.max(0, length - buffer.length); i < length; i++) {
+                buffer[(int) (written++ % buffer.length)] = portion[i];
+            }
+        }
+
+        private synchronized boolean isTruncated() {
+            return written > buffer.length;
+        }
+
+        @Override
+        public synchronized String toString() {
+            int size = (int) Math.min(written, buffer.length);
+            int start = (int) ((written - size) % buffer.length);
+            byte[] tail = new byte[size];
+            int firstPart = Math.min(size, buffer.length - start);
+            System.arraycopy(buffer, start, tail, 0, firstPart);
+            System.arraycopy(buffer, 0, tail, firstPart, size - firstPart);
+            return new String(tail, StandardCharsets.UTF_8);
+        }
+    }
+}
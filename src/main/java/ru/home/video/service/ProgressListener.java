@@ -0,0 +1,16 @@
+package ru.home.video.service;
+
+/**
+ * The receiver of a status of a video treatment process (the user form, a terminal, a remote client)
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * The method is called when a video treatment process reaches the next stage
+     *
+     * @param progress - points the stage of execution the app (value from 0.0 till 1.0)
+     * @param message  - describes the stage of execution the app
+     */
+    void updateProgress(double progress, String message);
+}
@@ -0,0 +1,86 @@
+package ru.home.video.service;
+
+import ru.home.video.exception.JobCancelledException;
+import ru.home.video.model.fingerprint.AudioFingerprint;
+import ru.home.video.model.fingerprint.RepeatedSegment;
+import ru.home.video.model.jobs.VideoJob;
+import ru.home.video.model.subtitles.SubtitleItem;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static ru.home.video.config.FingerprintConfig.FINGERPRINT_HOP_SIZE;
+import static ru.home.video.config.FingerprintConfig.SERIES_MAX_REUSED_SHARE_TO_INDEX;
+import static ru.home.video.config.SubtitleConfig.AUDIO_SAMPLE_RATE;
+import static ru.home.video.config.SubtitleConfig.RECOGNITION_CHUNK_SIZE;
+
+/**
+ * The class recognizes an episode of a series without the segments, which were heard in earlier episodes
+ * (an intro, an outro, recaps): their phrases are taken from the earlier episodes, so the time of recognition
+ * drops by the share of repeated audio. The episode is added to the index of the series afterwards
+ * (see {@link SeriesFingerprintIndex}).
+ */
+public class RepeatedSegmentService {
+
+    /**
+     * The method prepares subtitles for an episode, repeated segments aren't recognized
+     *
+     * @param job               - a job of the episode (its video folder and its language define the series)
+     * @param audioPath         - a path with the audio file of the episode with the 'wav' extend
+     * @param modelPath         - a path to a free language model 'VOSK' for recognizing a speech
+     * @param cancellationToken - a token of the job
+     * @return phrases of the episode (recognized and reused ones) or null, if the recognition failed
+     * @throws JobCancelledException if the job was cancelled
+     */
+    public static List<SubtitleItem> recognizeSpeech(VideoJob job, String audioPath, String modelPath,
+                                                     CancellationToken cancellationToken) {
+        // 1. Finds segments of the episode in earlier episodes of the series
+        SeriesFingerprintIndex index;
+        AudioFingerprint fingerprint;
+        List<RepeatedSegment> segments;
+        try {
+            index = SeriesFingerprintIndex.forVideo(job.inputVideoFilePath(), job.outputVideoFilePath(),
+                    job.originalVideoLanguage());
+            fingerprint = AudioFingerprintService.compute(Paths.get(audioPath));
+            segments = index.findRepeatedSegments(fingerprint);
+        } catch (IOException e) {
+            System.out.println("The index of the series wasn't read, the whole audio is recognized\n" +
+                    e.getMessage());
+            return SpeechRecognitionService.recognizeSpeech(audioPath, modelPath, RECOGNITION_CHUNK_SIZE,
+                    cancellationToken);
+        }
+        cancellationToken.throwIfCancelled();
+
+        // 2. Recognizes the rest of the audio
+        var recognizedPhrases = SpeechRecognitionService.recognizeSpeech(audioPath, modelPath,
+                RECOGNITION_CHUNK_SIZE, segments, cancellationToken);
+        if (recognizedPhrases == null) {
+            return null;
+        }
+
+        // 3. Takes phrases of the segments from the earlier episodes
+        List<SubtitleItem> phrases = new ArrayList<>(recognizedPhrases);
+        phrases.addAll(index.getPhrases(segments));
+        phrases.sort(Comparator.comparingDouble(SubtitleItem::start));
+        double durationSeconds = (double) fingerprint.frames() * FINGERPRINT_HOP_SIZE / AUDIO_SAMPLE_RATE;
+        double reusedSeconds = segments.stream().mapToDouble(segment -> segment.end() - segment.start()).sum();
+        if (!segments.isEmpty()) {
+            System.out.printf("Repeated segments: %d, %.1f s of %.1f s weren't recognized (%s)%n", segments.size(),
+                    reusedSeconds, durationSeconds, job.inputVideoFilePath());
+        }
+
+        // 4. Adds the episode to the index (the same video again doesn't give anything new)
+        if (durationSeconds > 0 && reusedSeconds / durationSeconds < SERIES_MAX_REUSED_SHARE_TO_INDEX) {
+            try {
+                index.addEpisode(job.id(), fingerprint, phrases);
+            } catch (IOException e) {
+                System.out.println("The episode wasn't added to the index of the series: " +
+                        job.inputVideoFilePath() + "\n" + e.getMessage());
+            }
+        }
+        return phrases;
+    }
+}
@@ -0,0 +1,211 @@
+package ru.home.video.service;
+
+import com.sun.management.OperatingSystemMXBean;
+import ru.home.video.exception.JobCancelledException;
+import ru.home.video.model.enums.ResourceClass;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static ru.home.video.config.SchedulerConfig.*;
+
+/**
+ * The class gives every stage of a video treatment process its own budget of machine resources, which is shared
+ * by all jobs of the app: slots for 'ffmpeg' and slots for recognizers (limited by cores and by native memory for
+ * language models). Concurrent requests to the translation service have their own adaptive limit
+ * (see {@link TranslationBackendService}). A stage of a job waits only for its own
+ * resource class, so stages of different jobs interleave: one job is recognized while another one is encoded.
+ */
+public class ResourceSchedulerService {
+
+    private static final Map<ResourceClass, Semaphore> SLOTS = new EnumMap<>(ResourceClass.class);
+    private static final int RECOGNITION_MEMORY_BUDGET_MEGABYTES = getRecognitionMemoryBudgetMegabytes();
+    private static final Semaphore RECOGNITION_MEMORY_MEGABYTES =
+            new Semaphore(RECOGNITION_MEMORY_BUDGET_MEGABYTES, true);
+    private static final Map<String, Integer> MODEL_MEGABYTES = new ConcurrentHashMap<>();
+    private static final Map<String, ModelMemory> MODEL_MEMORY = new ConcurrentHashMap<>();
+    private static final Semaphore BACKGROUND_RECOGNITION_SLOTS =
+            new Semaphore(Math.max(1, (int) (AVAILABLE_CORES * BACKGROUND_RECOGNITION_SHARE)), true);
+
+    static { // budgets are derived from the number of cores and the memory of the machine
+        SLOTS.put(ResourceClass.FFMPEG, new Semaphore(Math.max(1, AVAILABLE_CORES / CORES_PER_FFMPEG_PROCESS), true));
+        SLOTS.put(ResourceClass.RECOGNITION, new Semaphore(AVAILABLE_CORES, true));
+    }
+
+    /**
+     * The method runs a stage, when a slot of its resource class is free
+     *
+     * @param resourceClass     - a kind of resources, which is used by the stage
+     * @param cancellationToken - a token of the job, the waiting for a slot is stopped when it's cancelled
+     * @param stage             - the stage itself
+     * @return a result of the stage
+     * @throws JobCancelledException if the job was cancelled
+     */
+    public static <T> T runWithResource(ResourceClass resourceClass, CancellationToken cancellationToken,
+                                        Supplier<T> stage) {
+        var slots = SLOTS.get(resourceClass);
+        acquire(slots, 1, resourceClass.name(), cancellationToken);
+        try {
+            return stage.get();
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * The method runs a stage without a result, when a slot of its resource class is free
+     *
+     * @param resourceClass     - a kind of resources, which is used by the stage
+     * @param cancellationToken - a token of the job, the waiting for a slot is stopped when it's cancelled
+     * @param stage             - the stage itself
+     * @throws JobCancelledException if the job was cancelled
+     */
+    public static void runWithResource(ResourceClass resourceClass, CancellationToken cancellationToken,
+                                       Runnable stage) {
+        runWithResource(resourceClass, cancellationToken, () -> {
+            stage.run();
+            return null;
+        });
+    }
+
+    /**
+     * The method runs speech recognition, when there are a free core and enough native memory for the model.
+     * A model is shared by all recognitions of its language (see {@link VoskResourceService}), so its memory is
+     * reserved by the first of them and freed by the last one, every recognition reserves only its own memory.
+     *
+     * @param modelPath         - a path to a language model 'VOSK', its size defines the necessary memory
+     * @param cancellationToken - a token of the job, the waiting for a core and memory is stopped when it's cancelled
+     * @param stage             - speech recognition itself
+     * @return a result of the recognition
+     * @throws JobCancelledException if the job was cancelled
+     */
+    public static <T> T runWithRecognizer(String modelPath, CancellationToken cancellationToken, Supplier<T> stage) {
+        // a model and a recognizer can't take more than the whole budget, otherwise the recognition would never be
+        // started
+        int recognizerMegabytes = Math.min(RECOGNIZER_APPROXIMATE_MEGABYTES, RECOGNITION_MEMORY_BUDGET_MEGABYTES);
+        int modelMegabytes = Math.min(getModelMegabytes(modelPath),
+                RECOGNITION_MEMORY_BUDGET_MEGABYTES - recognizerMegabytes);
+        // the order of acquiring is always the same (a core, then memory), so recognitions don't block each other
+        return runWithResource(ResourceClass.RECOGNITION, cancellationToken, () -> {
+            var modelMemory = MODEL_MEMORY.computeIfAbsent(modelPath, path -> new ModelMemory());
+            modelMemory.reserve(modelMegabytes, cancellationToken);
+            try {
+                acquire(RECOGNITION_MEMORY_MEGABYTES, recognizerMegabytes, "memory of recognizers", cancellationToken);
+                try {
+                    return stage.get();
+                } finally {
+                    RECOGNITION_MEMORY_MEGABYTES.release(recognizerMegabytes);
+                }
+            } finally {
+                modelMemory.release(modelMegabytes);
+            }
+        });
+    }
+
+    /**
+     * The method runs speech recognition with a low priority: only a part of recognition slots can be taken by
+     * such stages, so they don't hold up recognitions in the foreground (e.g. previews of other jobs)
+     *
+     * @param modelPath         - a path to a language model 'VOSK', its size defines the necessary memory
+     * @param cancellationToken - a token of the job, the waiting for a slot is stopped when it's cancelled
+     * @param stage             - speech recognition itself
+     * @return a result of the recognition
+     * @throws JobCancelledException if the job was cancelled
+     */
+    public static <T> T runWithBackgroundRecognizer(String modelPath, CancellationToken cancellationToken,
+                                                    Supplier<T> stage) {
+        // the background slot is acquired first, so a waiting background stage doesn't occupy a core
+        acquire(BACKGROUND_RECOGNITION_SLOTS, 1, "a slot of background recognition", cancellationToken);
+        try {
+            return runWithRecognizer(modelPath, cancellationToken, stage);
+        } finally {
+            BACKGROUND_RECOGNITION_SLOTS.release();
+        }
+    }
+
+    /**
+     * @param resourceClass - a kind of resources
+     * @return a number of free slots of the resource class at the moment
+     */
+    public static int getFreeSlots(ResourceClass resourceClass) {
+        return SLOTS.get(resourceClass).availablePermits();
+    }
+
+    // === Auxiliary methods ===
+
+    // a cancelled job stops waiting at once (a thread of a job isn't always interrupted by the one who cancels it,
+    // e.g. threads of audio tracks), an interrupt is a cancellation of the job too
+    private static void acquire(Semaphore semaphore, int permits, String resourceName,
+                                CancellationToken cancellationToken) {
+        cancellationToken.throwIfCancelled();
+        var waitingThread = Thread.currentThread();
+        try (var registration = cancellationToken.onCancel(waitingThread::interrupt)) {
+            semaphore.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancellationToken.throwIfCancelled();
+            throw new CancellationException("Interrupted while waiting for " + resourceName);
+        }
+    }
+
+    // memory of a model, which is reserved while recognitions use it (a model is loaded once for all of them)
+    private static class ModelMemory {
+        private final ReentrantLock lock = new ReentrantLock(); // it isn't pinned, when a virtual thread waits
+        private int users;
+
+        // the first user waits for memory, the next ones wait only for it (they'd wait for the same memory anyway)
+        private void reserve(int megabytes, CancellationToken cancellationToken) {
+            lock.lock();
+            try {
+                if (users == 0) {
+                    acquire(RECOGNITION_MEMORY_MEGABYTES, megabytes, "memory of a model", cancellationToken);
+                }
+                users++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release(int megabytes) {
+            lock.lock();
+            try {
+                if (--users == 0) {
+                    RECOGNITION_MEMORY_MEGABYTES.release(megabytes);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // physical memory except the java heap (models of 'VOSK' are loaded into native memory)
+    private static int getRecognitionMemoryBudgetMegabytes() {
+        var operatingSystem = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long nativeMemory = operatingSystem.getTotalMemorySize() - Runtime.getRuntime().maxMemory();
+        return (int) Math.max(1, nativeMemory * RECOGNITION_MEMORY_SHARE / (1024 * 1024));
+    }
+
+    // a size of the model folder on a disk, it's calculated once for every model
+    static int getModelMegabytes(String modelPath) {
+        return MODEL_MEGABYTES.computeIfAbsent(modelPath, path -> {
+            try (Stream<Path> files = Files.walk(Paths.get(path))) {
+                long bytes = files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+                return (int) Math.max(1, bytes * MODEL_MEMORY_FACTOR / (1024 * 1024));
+            } catch (IOException e) {
+                System.out.println("The size of the model wasn't defined: " + path + "\n" + e.getMessage());
+                return 1;
+            }
+        });
+    }
+}
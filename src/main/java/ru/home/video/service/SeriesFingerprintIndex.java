@@ -0,0 +1,170 @@
+package ru.home.video.service;
+
+import ru.home.video.model.fingerprint.AudioFingerprint;
+import ru.home.video.model.fingerprint.RepeatedSegment;
+import ru.home.video.model.subtitles.SubtitleItem;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static ru.home.video.config.FingerprintConfig.*;
+import static ru.home.video.config.SubtitleConfig.TRANSCRIPT_EXTENSION;
+
+/**
+ * The class keeps episodes of a series, which were processed: a fingerprint of the audio ('.jspf') and recognized
+ * phrases ({@link TranscriptFile}) of every episode are stored in a folder of the series. A new episode is matched
+ * with them, so its intro, outro and recaps aren't recognized again.
+ * <p>
+ * An object is made for one job: transcripts of episodes, which have common segments with the job, are kept by it
+ * till the phrases are taken (an episode can be removed from the folder by another job meanwhile).
+ */
+public class SeriesFingerprintIndex {
+
+    private static final String FINGERPRINT_EXTENSION = ".jspf";
+
+    private final Path folder;
+    private final Map<String, TranscriptFile> transcripts = new HashMap<>();
+
+    /**
+     * @param folder - a folder of the series, it's created if it doesn't exist
+     */
+    public SeriesFingerprintIndex(Path folder) throws IOException {
+        this.folder = folder;
+        Files.createDirectories(folder);
+    }
+
+    /**
+     * The method gives an index of the series of a video: episodes of a series are videos of one folder in one
+     * language, the index is kept in the output folder
+     *
+     * @param inputVideoFilePath - a video of the series
+     * @param outputFolder       - a folder where new videos are saved
+     * @param language           - an original language of the video
+     * @return the index of the series
+     */
+    public static SeriesFingerprintIndex forVideo(String inputVideoFilePath, String outputFolder, String language)
+            throws IOException {
+        var seriesFolder = Paths.get(inputVideoFilePath).toAbsolutePath().normalize().getParent();
+        var folderName = seriesFolder.getFileName() == null ? "root" :
+                seriesFolder.getFileName().toString().replaceAll("[^\\p{L}\\p{N}._-]", "_");
+        return new SeriesFingerprintIndex(Paths.get(outputFolder, SERIES_INDEX_FOLDER_NAME, language + "_" +
+                folderName + "_" + Integer.toHexString(seriesFolder.toString().hashCode())));
+    }
+
+    /**
+     * The method finds segments of an episode, which were heard in earlier episodes (the longest ones win, when
+     * they overlap)
+     *
+     * @param fingerprint - a fingerprint of the episode
+     * @return segments, which don't overlap, in the order of time
+     */
+    public List<RepeatedSegment> findRepeatedSegments(AudioFingerprint fingerprint) throws IOException {
+        // 1. every earlier episode gives its common segments
+        List<RepeatedSegment> candidates = new ArrayList<>();
+        for (String episodeId : getEpisodeIds()) {
+            try {
+                var segments = AudioFingerprintService.findCommonSegments(fingerprint,
+                        AudioFingerprintService.load(getFingerprintPath(episodeId)), episodeId);
+                if (!segments.isEmpty()) {
+                    transcripts.put(episodeId, TranscriptFile.load(getTranscriptPath(episodeId)));
+                    candidates.addAll(segments);
+                }
+            } catch (IOException e) { // the episode was removed by another job or the file is damaged
+                System.out.println("The episode of the series was skipped: " + episodeId + "\n" + e.getMessage());
+            }
+        }
+
+        // 2. segments don't overlap: the longest ones are taken first
+        candidates.sort(Comparator.comparingDouble(segment -> segment.start() - segment.end()));
+        List<RepeatedSegment> segments = new ArrayList<>();
+        for (var candidate : candidates) {
+            if (segments.stream().noneMatch(segment ->
+                    segment.start() < candidate.end() && candidate.start() < segment.end())) {
+                segments.add(candidate);
+            }
+        }
+        segments.sort(Comparator.comparingDouble(RepeatedSegment::start));
+        return segments;
+    }
+
+    /**
+     * The method gives phrases of segments from the earlier episodes, their time is shifted to the new episode
+     * (a phrase belongs to a segment, if its middle is within the segment)
+     *
+     * @param segments - segments from {@link #findRepeatedSegments}
+     * @return phrases without a style
+     */
+    public List<SubtitleItem> getPhrases(List<RepeatedSegment> segments) {
+        List<SubtitleItem> phrases = new ArrayList<>();
+        for (var segment : segments) {
+            var transcript = transcripts.get(segment.episodeId());
+            for (int i = 0; i < transcript.size(); i++) {
+                double start = transcript.getStart(i) + segment.getShift();
+                double end = transcript.getEnd(i) + segment.getShift();
+                if (segment.contains((start + end) / 2)) {
+                    phrases.add(new SubtitleItem(start, end, transcript.getText(i), null));
+                }
+            }
+        }
+        return phrases;
+    }
+
+    /**
+     * The method adds an episode to the index, the oldest episodes are removed, when there are too many of them
+     *
+     * @param episodeId   - an id of the episode (an id of the job)
+     * @param fingerprint - a fingerprint of the episode
+     * @param phrases     - all phrases of the episode (recognized and reused)
+     */
+    public void addEpisode(String episodeId, AudioFingerprint fingerprint, List<SubtitleItem> phrases)
+            throws IOException {
+        // the fingerprint is written the last: an episode is found by its fingerprint, so it's never found half-written
+        var transcriptPath = getTranscriptPath(episodeId);
+        var tempTranscriptPath = Paths.get(transcriptPath + ".tmp");
+        TranscriptFile.save(tempTranscriptPath, phrases);
+        Files.move(tempTranscriptPath, transcriptPath, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        var fingerprintPath = getFingerprintPath(episodeId);
+        var tempFingerprintPath = Paths.get(fingerprintPath + ".tmp");
+        AudioFingerprintService.save(tempFingerprintPath, fingerprint);
+        Files.move(tempFingerprintPath, fingerprintPath, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        var episodeIds = getEpisodeIds();
+        for (String oldEpisodeId : episodeIds.subList(Math.min(episodeIds.size(), SERIES_MAX_EPISODES),
+                episodeIds.size())) {
+            Files.deleteIfExists(getFingerprintPath(oldEpisodeId));
+            Files.deleteIfExists(getTranscriptPath(oldEpisodeId));
+        }
+    }
+
+    // === Auxiliary methods ===
+
+    // the newest episodes first
+    private List<String> getEpisodeIds() throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(FINGERPRINT_EXTENSION))
+                    .sorted(Comparator.comparing(SeriesFingerprintIndex::getLastModifiedMillis).reversed())
+                    .map(file -> file.getFileName().toString().replace(FINGERPRINT_EXTENSION, ""))
+                    .toList();
+        }
+    }
+
+    private static long getLastModifiedMillis(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0; // the file was removed meanwhile
+        }
+    }
+
+    private Path getFingerprintPath(String episodeId) {
+        return folder.resolve(episodeId + FINGERPRINT_EXTENSION);
+    }
+
+    private Path getTranscriptPath(String episodeId) {
+        return folder.resolve(episodeId + TRANSCRIPT_EXTENSION);
+    }
+}
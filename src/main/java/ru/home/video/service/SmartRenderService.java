@@ -0,0 +1,277 @@
+package ru.home.video.service;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import ru.home.video.config.ProcessConfig;
+import ru.home.video.exception.ExternalProcessException;
+import ru.home.video.model.subtitles.SubtitleItem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * The class adds subtitles to a video re-encoding only groups of pictures (GOP, frames from a keyframe till
+ * the next keyframe), which are shown together with any subtitle. Other GOPs are copied as they are, then all parts
+ * are joined and the original audio is added. So the time of adding depends on the amount of dialogue,
+ * not on the duration of the video.
+ * <p>
+ * Parts are written as MPEG-TS: parameters of the codec are repeated inside the stream, so copied and re-encoded
+ * parts can be played one after another. The video is cut only at keyframes of closed GOPs (IDR): frames of an open
+ * GOP (after a CRA frame of HEVC or a recovery point of H.264) can refer to the previous GOP, which would be
+ * another picture after joining. When the video can't be cut (an unknown codec, keyframes weren't read)
+ * or subtitles are shown almost all the time, the whole video is re-encoded as usual.
+ */
+public class SmartRenderService {
+
+    /**
+     * The method adds subtitles from ASS file, only parts of the video with subtitles are re-encoded
+     *
+     * @param ffmpegPath          - a path to the app 'FFMPEG'
+     * @param ffprobePath         - a path to the app 'ffprobe' (the same bundle as 'ffmpeg')
+     * @param inputVideoFilePath  - a current video file, which has to be treatment
+     * @param subtitlesPath       - a path to the ASS file with subtitles
+     * @param subtitles           - the same subtitles as in the ASS file (their timestamps define parts to re-encode)
+     * @param outputVideoFilePath - a path of the new video file
+     * @param cancellationToken   - a token of the job
+     */
+    public static void addSubtitlesToVideo(String ffmpegPath, String ffprobePath, String inputVideoFilePath,
+                                           String subtitlesPath, List<SubtitleItem> subtitles,
+                                           String outputVideoFilePath, CancellationToken cancellationToken) {
+        // 1. Finds parts of the video, which have to be re-encoded (the same codec as the original one)
+        List<RenderSegment> segments = List.of();
+        String encoder = null;
+        String pixelFormat = null;
+        try {
+            var videoStream = probeVideoStream(ffprobePath, inputVideoFilePath, cancellationToken);
+            encoder = ProcessConfig.SMART_RENDER_ENCODERS.get(videoStream.optString("codec_name"));
+            pixelFormat = videoStream.optString("pix_fmt", "yuv420p");
+            if (encoder != null) {
+                segments = getRenderSegments(probeKeyframes(ffprobePath, inputVideoFilePath, cancellationToken),
+                        MediaProbeService.probeMedia(ffprobePath, inputVideoFilePath, cancellationToken)
+                                .durationSeconds(), subtitles);
+            }
+        } catch (IOException | ExternalProcessException e) {
+            System.out.println("The video can't be cut, the whole video is re-encoded: " + e.getMessage());
+        }
+        if (!isWorthCutting(segments)) {
+            ProcessRunnerService.await(VideoCollectorService.addSubtitlesToVideo(ffmpegPath, inputVideoFilePath,
+                    subtitlesPath, outputVideoFilePath), cancellationToken);
+            return;
+        }
+
+        // 2. Writes every part into a temp folder, then joins them and adds the original audio
+        Path partsFolder = null;
+        try {
+            partsFolder = Files.createTempDirectory(Path.of(outputVideoFilePath).toAbsolutePath().getParent(),
+                    "smart_render_");
+            var concatList = new StringBuilder();
+            for (int i = 0; i < segments.size(); i++) {
+                var partPath = partsFolder.resolve(String.format("part_%05d.ts", i));
+                ProcessRunnerService.await(ProcessRunnerService.run("ffmpeg", getPartCommand(ffmpegPath,
+                        inputVideoFilePath, subtitlesPath, segments.get(i), encoder, pixelFormat,
+                        partPath.toString()), ProcessConfig.SUBTITLES_BURNING_TIMEOUT_MILLIS), cancellationToken);
+                concatList.append("file '").append(partPath.toString().replace("'", "'\\''")).append("'\n");
+            }
+            var concatListPath = partsFolder.resolve("parts.txt");
+            Files.writeString(concatListPath, concatList.toString(), StandardCharsets.UTF_8);
+            // '-f concat' - parts are read one after another, '-map 1:a?' - the original audio (if it exists),
+            // '-c copy' - nothing is re-encoded
+            ProcessRunnerService.await(ProcessRunnerService.run("ffmpeg", List.of(ffmpegPath,
+                    "-f", "concat", "-safe", "0", "-i", concatListPath.toString(),
+                    "-i", inputVideoFilePath,
+                    "-map", "0:v:0", "-map", "1:a?",
+                    "-c", "copy",
+                    "-y", outputVideoFilePath), ProcessConfig.SUBTITLES_BURNING_TIMEOUT_MILLIS), cancellationToken);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to add subtitles by parts: " + e.getMessage(), e);
+        } finally {
+            deleteFolder(partsFolder);
+        }
+    }
+
+    // === Auxiliary methods ===
+
+    /**
+     * A part of a video between keyframes
+     *
+     * @param start         - a timestamp of the first keyframe of the part (seconds)
+     * @param end           - a timestamp of the keyframe after the part or the end of the video (seconds)
+     * @param withSubtitles - true, if the part is re-encoded with subtitles, false - if it's copied
+     */
+    record RenderSegment(double start, double end, boolean withSubtitles) {
+    }
+
+    /**
+     * The method marks every GOP, which is shown together with any subtitle, and joins neighbour GOPs of the same
+     * kind into one part
+     *
+     * @param keyframes       - sorted timestamps of keyframes, where the video can be cut (seconds)
+     * @param durationSeconds - a duration of the video
+     * @param subtitles       - subtitles with timestamps
+     * @return parts of the video one after another
+     */
+    static List<RenderSegment> getRenderSegments(double[] keyframes, double durationSeconds,
+                                                 List<SubtitleItem> subtitles) {
+        if (keyframes.length == 0) {
+            return List.of();
+        }
+        // 1. a subtitle marks all GOPs from the GOP of its start till the GOP of its end
+        boolean[] withSubtitles = new boolean[keyframes.length];
+        for (SubtitleItem subtitle : subtitles) {
+            int first = getGopIndex(keyframes, subtitle.start());
+            int last = getGopIndex(keyframes, subtitle.end());
+            for (int gop = Math.max(0, first); gop <= last; gop++) {
+                withSubtitles[gop] = true;
+            }
+        }
+        // 2. neighbour GOPs of the same kind are joined, so there are less parts (and processes of 'ffmpeg')
+        List<RenderSegment> segments = new ArrayList<>();
+        int partStart = 0;
+        for (int gop = 1; gop <= keyframes.length; gop++) {
+            if (gop == keyframes.length || withSubtitles[gop] != withSubtitles[partStart]) {
+                double end = gop == keyframes.length ? Math.max(durationSeconds, keyframes[gop - 1]) : keyframes[gop];
+                segments.add(new RenderSegment(keyframes[partStart], end, withSubtitles[partStart]));
+                partStart = gop;
+            }
+        }
+        return segments;
+    }
+
+    // an index of the GOP, which contains the moment (-1, if the moment is before the first keyframe)
+    private static int getGopIndex(double[] keyframes, double seconds) {
+        int index = Arrays.binarySearch(keyframes, seconds);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    // cutting pays off, when there are copied parts and they aren't too short in total
+    private static boolean isWorthCutting(List<RenderSegment> segments) {
+        double total = 0, withSubtitles = 0;
+        for (RenderSegment segment : segments) {
+            total += segment.end() - segment.start();
+            withSubtitles += segment.withSubtitles() ? segment.end() - segment.start() : 0;
+        }
+        return total > 0 && withSubtitles / total <= ProcessConfig.SMART_RENDER_MAX_SHARE_WITH_SUBTITLES;
+    }
+
+    private static List<String> getPartCommand(String ffmpegPath, String inputVideoFilePath, String subtitlesPath,
+                                               RenderSegment segment, String encoder, String pixelFormat,
+                                               String partPath) {
+        // '-ss' before '-i' - a fast seek to the keyframe, '-t' - a duration of the part, '-an' - without audio
+        // (the original audio is added to the joined video)
+        List<String> command = new ArrayList<>(List.of(ffmpegPath,
+                "-ss", formatSeconds(segment.start()), "-i", inputVideoFilePath,
+                "-t", formatSeconds(segment.end() - segment.start()),
+                "-map", "0:v:0", "-an"));
+        if (segment.withSubtitles()) {
+            // timestamps of the part start from 0 after the seek, they're shifted back for the 'ass' filter,
+            // so subtitles are shown at their own time, then timestamps start from 0 again
+            command.addAll(List.of("-vf", String.format(Locale.ROOT, "setpts=PTS+%s/TB,ass=%s,setpts=PTS-STARTPTS",
+                            formatSeconds(segment.start()),
+                            VideoCollectorService.getCorrectedPathDirectedToFfmpegAppIndependentOfOS(subtitlesPath)),
+                    "-c:v", encoder, "-pix_fmt", pixelFormat));
+        } else {
+            command.addAll(List.of("-c:v", "copy"));
+        }
+        command.addAll(List.of("-f", "mpegts", "-y", partPath));
+        return command;
+    }
+
+    // the codec and the pixel format of the first video stream
+    private static JSONObject probeVideoStream(String ffprobePath, String videoPath,
+                                               CancellationToken cancellationToken) throws IOException {
+        var output = ProcessRunnerService.await(ProcessRunnerService.run("ffprobe", List.of(ffprobePath,
+                "-v", "error", "-select_streams", "v:0", "-show_entries", "stream=codec_name,pix_fmt",
+                "-of", "json", videoPath), ProcessConfig.PROBE_TIMEOUT_MILLIS), cancellationToken).stdout();
+        try {
+            var streams = new JSONObject(output).optJSONArray("streams");
+            if (streams == null || streams.isEmpty()) {
+                throw new IOException("The file doesn't have a video stream: " + videoPath);
+            }
+            return streams.getJSONObject(0);
+        } catch (JSONException e) {
+            throw new IOException("The output of ffprobe wasn't parsed: " + e.getMessage(), e);
+        }
+    }
+
+    // timestamps of keyframes of closed GOPs: '-show_entries packet=pts_time,flags' - all packets in the order of
+    // decoding (they're only read, not decoded), 'K' in flags - a keyframe
+    private static double[] probeKeyframes(String ffprobePath, String videoPath, CancellationToken cancellationToken)
+            throws IOException {
+        var result = ProcessRunnerService.await(ProcessRunnerService.run("ffprobe", List.of(ffprobePath,
+                "-v", "error", "-select_streams", "v:0",
+                "-show_entries", "packet=pts_time,flags", "-of", "csv=p=0", videoPath),
+                ProcessConfig.KEYFRAMES_PROBE_TIMEOUT_MILLIS, ProcessConfig.KEYFRAMES_OUTPUT_BUFFER_SIZE),
+                cancellationToken);
+        // the first packets are lost and the first line can be cut in the middle of a number
+        if (result.isStdoutTruncated()) {
+            throw new IOException("The list of packets is longer than " +
+                    ProcessConfig.KEYFRAMES_OUTPUT_BUFFER_SIZE + " bytes: " + videoPath);
+        }
+        try {
+            double[] keyframes = getClosedGopKeyframes(result.stdout());
+            if (keyframes.length == 0) {
+                throw new IOException("Keyframes weren't found: " + videoPath);
+            }
+            return keyframes;
+        } catch (NumberFormatException e) {
+            throw new IOException("The list of packets wasn't parsed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The method finds keyframes, where a video can be cut. A keyframe of an open GOP (CRA of HEVC, a recovery point
+     * of H.264) is followed by leading frames: they're decoded after it, but shown before it, and they can refer to
+     * the previous GOP. So a keyframe is skipped, if any packet after it (till the next keyframe) is shown earlier.
+     * The first keyframe is always kept, there's nothing before it.
+     *
+     * @param packets - lines 'pts_time,flags' of the video stream in the order of decoding
+     * @return sorted timestamps of keyframes of closed GOPs (seconds)
+     */
+    static double[] getClosedGopKeyframes(String packets) {
+        List<Double> keyframes = new ArrayList<>();
+        double candidate = Double.NaN; // the last keyframe, while its GOP hasn't shown leading frames
+        for (String line : packets.lines().toList()) {
+            String[] fields = line.trim().split(",");
+            if (fields[0].isEmpty() || fields[0].equals("N/A")) {
+                continue;
+            }
+            double pts = Double.parseDouble(fields[0]);
+            if (fields.length > 1 && fields[1].startsWith("K")) {
+                if (!Double.isNaN(candidate)) {
+                    keyframes.add(candidate);
+                }
+                candidate = pts;
+            } else if (pts < candidate && !keyframes.isEmpty()) {
+                candidate = Double.NaN; // a leading frame: the GOP is open
+            }
+        }
+        if (!Double.isNaN(candidate)) {
+            keyframes.add(candidate);
+        }
+        return keyframes.stream().mapToDouble(Double::doubleValue).sorted().distinct().toArray();
+    }
+
+    private static String formatSeconds(double seconds) {
+        return String.format(Locale.ROOT, "%.6f", seconds);
+    }
+
+    private static void deleteFolder(Path folder) {
+        if (folder == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            System.out.println("The temp folder wasn't deleted: " + folder + "\n" + e.getMessage());
+        }
+    }
+}
@@ -2,20 +2,21 @@ package ru.home.video.service;
 
 import org.json.JSONException;
 import org.json.JSONObject;
-import org.vosk.Model;
-import org.vosk.Recognizer;
+import ru.home.video.exception.JobCancelledException;
+import ru.home.video.jfr.PhraseMergingEvent;
+import ru.home.video.jfr.RecognitionChunkEvent;
+import ru.home.video.jfr.ResultParsingEvent;
+import ru.home.video.model.fingerprint.RepeatedSegment;
 import ru.home.video.model.subtitles.SubtitleItem;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
-import static ru.home.video.config.SubtitleConfig.*;
+import static ru.home.video.config.FingerprintConfig.RECOGNITION_MARGIN_SECONDS;
+import static ru.home.video.config.SubtitleConfig.RECOGNITION_CHUNK_SIZE;
 
 public class SpeechRecognitionService {
 
@@ -28,32 +29,103 @@ public class SpeechRecognitionService {
      * @return the list with requested subtitles by user
      */
     public static List<SubtitleItem> recognizeSpeech(String audioPath, String modelPath) {
-        try {
-            // 1. initializes 'VOSK' model
-            var model = new Model(modelPath);
-            // 2. initializes recognizer ('16000.0f' - it's the standard for speech recognition)
-            var recognizer = new Recognizer(model, 16000.0f);
-            // 3. enables word-level timestamps (extremely important!)
-            recognizer.setWords(true);
-            // 4. creates a list with future subtitles
-            List<SubtitleItem> items = new ArrayList<>();
-            // 5. creates a buffer, if there will be a really large audio file (avoiding out of memory!)
-            byte[] buffer = new byte[16384]; // 16 KB (standard), where to a voice data is read
-            // 6. creates a new input stream with an audio file for handling it like a byte stream (for reading)
-            try (InputStream audioStream = Files.newInputStream(Paths.get(audioPath))) {
-                int bytesRead;
-                while ((bytesRead = audioStream.read(buffer)) != -1) {
-                    // 6.1 returns 'true' if there is enough collected data for an intermediate result
-                    if (recognizer.acceptWaveForm(buffer, bytesRead)) {
-                        // 6.2 extracts a recognized speech with timestamps for translating and creating subtitles
-                        fillSubtitlesByTextWithTimestamps(recognizer.getResult(), items); // intermediate results
+        return recognizeSpeech(audioPath, modelPath, RECOGNITION_CHUNK_SIZE);
+    }
+
+    /**
+     * The method prepares subtitles for a video, audio data is given to the recognizer by portions of the given size
+     *
+     * @param audioPath - a path with an audio file (by default: next to a base video) with the 'wav' extend
+     * @param modelPath - a path to a free language model 'VOSK' for recognizing a speech
+     * @param chunkSize - a size of a portion of audio (bytes), it's aligned to whole frames
+     * @return the list with requested subtitles by user
+     */
+    public static List<SubtitleItem> recognizeSpeech(String audioPath, String modelPath, int chunkSize) {
+        return recognizeSpeech(audioPath, modelPath, chunkSize, new CancellationToken());
+    }
+
+    /**
+     * The method prepares subtitles for a video, the recognition is stopped between portions of audio when the job
+     * is cancelled (native objects of 'VOSK' are released at once)
+     *
+     * @param audioPath         - a path with an audio file (by default: next to a base video) with the 'wav' extend
+     * @param modelPath         - a path to a free language model 'VOSK' for recognizing a speech
+     * @param chunkSize         - a size of a portion of audio (bytes), it's aligned to whole frames
+     * @param cancellationToken - a token of the job
+     * @return the list with requested subtitles by user
+     * @throws JobCancelledException if the job was cancelled
+     */
+    public static List<SubtitleItem> recognizeSpeech(String audioPath, String modelPath, int chunkSize,
+                                                     CancellationToken cancellationToken) {
+        return recognizeSpeech(audioPath, modelPath, chunkSize, List.of(), cancellationToken);
+    }
+
+    /**
+     * The method prepares subtitles for parts of a video: the given segments aren't recognized (their phrases are
+     * known), the audio between them is recognized with a margin, so words at the edges of segments aren't cut
+     * (words, which are in the middle within a segment, are dropped)
+     *
+     * @param audioPath         - a path with an audio file (by default: next to a base video) with the 'wav' extend
+     * @param modelPath         - a path to a free language model 'VOSK' for recognizing a speech
+     * @param chunkSize         - a size of a portion of audio (bytes), it's aligned to whole frames
+     * @param skippedSegments   - segments, which aren't recognized (in the order of time, they don't overlap)
+     * @param cancellationToken - a token of the job
+     * @return phrases of the recognized parts
+     * @throws JobCancelledException if the job was cancelled
+     */
+    public static List<SubtitleItem> recognizeSpeech(String audioPath, String modelPath, int chunkSize,
+                                                     List<RepeatedSegment> skippedSegments,
+                                                     CancellationToken cancellationToken) {
+        // 1. initializes 'VOSK' model, it holds native memory, so it's given back as soon as the recognition is
+        // finished or cancelled (the model is shared by jobs of the same language, it's closed by the last of them)
+        try (var model = VoskResourceService.acquireModel(modelPath);
+             // 2. maps audio data of the file (the header is checked and skipped, it isn't a voice data)
+             var audioSource = WavAudioSource.open(Paths.get(audioPath))) {
+            // 3. creates a list with future subtitles, words are merged into phrases while they are being recognized
+            List<SubtitleItem> phrases = new ArrayList<>();
+            var phraseMerger = new PhraseMerger(phrases::add);
+            // 4. creates a buffer, where to a voice data is copied by portions (avoiding out of memory!)
+            byte[] buffer = new byte[audioSource.getFrameAlignedSize(chunkSize)];
+            for (long[] stretch : getStretches(audioSource.getFrames(), audioSource.getSampleRate(),
+                    skippedSegments)) {
+                // 5. initializes a recognizer of the stretch ('16000.0f' - it's the standard for speech recognition),
+                // its timestamps begin at the beginning of the stretch
+                double stretchStart = (double) stretch[0] / audioSource.getSampleRate();
+                try (var recognizerHandle = VoskResourceService.createRecognizer(model, 16000.0f)) {
+                    var recognizer = recognizerHandle.get();
+                    // 5.1 enables word-level timestamps (extremely important!)
+                    recognizer.setWords(true);
+                    audioSource.seek(stretch[0]);
+                    long bytesLeft = (stretch[1] - stretch[0]) * audioSource.getFrameSize();
+                    int bytesRead;
+                    while (bytesLeft > 0 && (bytesRead = audioSource.read(buffer)) != -1) {
+                        cancellationToken.throwIfCancelled();
+                        int length = (int) Math.min(bytesRead, bytesLeft);
+                        bytesLeft -= length;
+                        // 5.2 returns 'true' if there is enough collected data for an intermediate result
+                        var chunkEvent = new RecognitionChunkEvent();
+                        chunkEvent.begin();
+                        boolean isResultReady = recognizer.acceptWaveForm(buffer, length);
+                        chunkEvent.end();
+                        if (chunkEvent.shouldCommit()) {
+                            chunkEvent.setBytes(length);
+                            chunkEvent.setResultReady(isResultReady);
+                            chunkEvent.commit();
+                        }
+                        if (isResultReady) {
+                            // 5.3 extracts a recognized speech with timestamps for translating and creating subtitles
+                            addRecognizedWords(recognizer.getResult(), stretchStart, skippedSegments, phraseMerger,
+                                    phrases);
+                        }
                     }
+                    // 6. returns rest of data (the last phrase, which wasn't treated in the above cycle)
+                    addRecognizedWords(recognizer.getFinalResult(), stretchStart, skippedSegments, phraseMerger,
+                            phrases);
                 }
-                // 7. returns rest of data (the last phrase, which wasn't treated in the above cycle)
-                fillSubtitlesByTextWithTimestamps(recognizer.getFinalResult(), items); // the final result
-                // 8. returns a list with the ready subtitles (not translated yet, but combined into whole phrases)
-                return mergeToPhrases(items);
             }
+            phraseMerger.flush();
+            // 7. returns a list with the ready subtitles (not translated yet, but combined into whole phrases)
+            return phrases;
         } catch (IOException e) {
             System.err.println("Method recognizeSpeech was failure.\nError: " + e.getMessage());
             return null;
@@ -62,15 +134,68 @@ public class SpeechRecognitionService {
 
     // === Auxiliary methods ===
 
-    // Method fills up a list of subtitles (a text isn't translated yet)
-    private static void fillSubtitlesByTextWithTimestamps(String jsonStr, List<SubtitleItem> items) {
+    // parses a result of the recognizer and merges its words into phrases (both steps are timed by JFR events),
+    // words of a stretch are shifted to the time of the file, words of skipped segments are dropped
+    private static void addRecognizedWords(String jsonStr, double stretchStart,
+                                           List<RepeatedSegment> skippedSegments, PhraseMerger phraseMerger,
+                                           List<SubtitleItem> phrases) {
+        var parsingEvent = new ResultParsingEvent();
+        parsingEvent.begin();
+        List<SubtitleItem> words = new ArrayList<>();
+        fillSubtitlesByTextWithTimestamps(jsonStr, word -> {
+            var shiftedWord = stretchStart == 0 ? word :
+                    new SubtitleItem(word.start() + stretchStart, word.end() + stretchStart, word.text(), null);
+            double middle = (shiftedWord.start() + shiftedWord.end()) / 2;
+            if (skippedSegments.stream().noneMatch(segment -> segment.contains(middle))) {
+                words.add(shiftedWord);
+            }
+        });
+        parsingEvent.end();
+        if (parsingEvent.shouldCommit()) {
+            parsingEvent.setResultChars(jsonStr.length());
+            parsingEvent.setWords(words.size());
+            parsingEvent.commit();
+        }
+
+        var mergingEvent = new PhraseMergingEvent();
+        mergingEvent.begin();
+        int phrasesBefore = phrases.size();
+        words.forEach(phraseMerger::accept);
+        mergingEvent.end();
+        if (mergingEvent.shouldCommit()) {
+            mergingEvent.setWords(words.size());
+            mergingEvent.setPhrases(phrases.size() - phrasesBefore);
+            mergingEvent.commit();
+        }
+    }
+
+    // parts of the audio between skipped segments (frames from/to), every part is widened by the margin
+    private static List<long[]> getStretches(long frames, int sampleRate, List<RepeatedSegment> skippedSegments) {
+        long margin = Math.round(RECOGNITION_MARGIN_SECONDS * sampleRate);
+        List<long[]> stretches = new ArrayList<>();
+        long stretchStart = 0;
+        for (var segment : skippedSegments) {
+            long segmentStart = Math.min(frames, Math.round(segment.start() * sampleRate));
+            if (segmentStart > stretchStart) {
+                stretches.add(new long[]{Math.max(0, stretchStart - margin), Math.min(frames, segmentStart + margin)});
+            }
+            stretchStart = Math.max(stretchStart, Math.round(segment.end() * sampleRate));
+        }
+        if (stretchStart < frames) {
+            stretches.add(new long[]{Math.max(0, stretchStart - margin), frames});
+        }
+        return stretches;
+    }
+
+    // Method gives recognized words one by one to the consumer (a text isn't translated yet)
+    static void fillSubtitlesByTextWithTimestamps(String jsonStr, Consumer<SubtitleItem> wordConsumer) {
         try {
             var result = new JSONObject(jsonStr);
             if (result.has("result")) {
                 var words = result.getJSONArray("result");
                 for (int i = 0; i < words.length(); i++) {
                     var word = words.getJSONObject(i);
-                    items.add(new SubtitleItem(
+                    wordConsumer.accept(new SubtitleItem(
                             word.getDouble("start"),
                             word.getDouble("end"),
                             word.getString("word"),
@@ -84,89 +209,11 @@ public class SpeechRecognitionService {
     }
 
     // combines separated words into phrases for translating and then creating subtitles
-    private static List<SubtitleItem> mergeToPhrases(List<SubtitleItem> words) {
-        if (!words.isEmpty()) {
-
-            List<SubtitleItem> phrases = new ArrayList<>();
-            var currentPhrase = new StringBuilder();
-            int phraseWordCount = 0;
-            SubtitleItem previousWord = null;
-            SubtitleItem phraseStartWord = words.getFirst();
-            SubtitleItem phraseEndWord = null;
-
-            for (SubtitleItem word : words) {
-                // Checking whether a new sentence needs to be started
-                if (isNecessaryToStartNewPhraseByParams(currentPhrase, previousWord, word, phraseWordCount)) {
-                    // Add the current phrase if it's not empty
-                    if (!currentPhrase.isEmpty() && phraseEndWord != null) {
-                        // Format and add the current phrase
-                        phrases.add(new SubtitleItem(
-                                phraseStartWord.start(),
-                                phraseEndWord.end(),
-                                formatPhraseText(
-                                        getBeginningSentenceWithCapitalLetter(
-                                                currentPhrase.toString().trim())
-                                ),
-                                null
-                        ));
-                    }
-                    // Start a new phrase
-                    currentPhrase.setLength(0);
-                    phraseStartWord = word;
-                    phraseWordCount = 0;
-                }
-                // Add a word to the current phrase
-                if (!currentPhrase.isEmpty()) currentPhrase.append(" ");
-                currentPhrase.append(word.text());
-                phraseEndWord = word;
-                phraseWordCount++;
-                previousWord = word;
-            }
-            // Add the last phrase
-            if (!currentPhrase.isEmpty() && phraseEndWord != null) {
-                phrases.add(new SubtitleItem(phraseStartWord.start(), phraseEndWord.end(),
-                        formatPhraseText(currentPhrase.toString().trim()), words.getFirst().style())
-                );
-            }
-
-            return phrases;
-        }
-        return Collections.emptyList();
-    }
-
-    // The method checks it has to be started a new phrase, return true/false
-    private static boolean isNecessaryToStartNewPhraseByParams(StringBuilder currentPhrase, SubtitleItem previousWord,
-                                                               SubtitleItem currentWord, int phraseWordCount) {
-
-        var previousText = (previousWord != null) ? previousWord.text() : "";
-        return  // checking the length of a phrase (characters)
-                currentPhrase.length() + currentWord.text().length() > QUANTITY_OF_CHARS_FOR_ONE_PORTION_SUBTITLES
-                        // checking the pause between words
-                        || (previousWord != null &&
-                        currentWord.start() - previousWord.end() > TYPICAL_SECONDS_BETWEEN_WORDS_AT_ONE_PHRASE)
-                        // checking the number of words in a phrase
-                        || phraseWordCount >= MAX_COUNT_OF_WORDS_FOR_ONE_PORTION_SUBTITLES
-                        // Checking for a sentence end mark in the previous word
-                        || (previousWord != null &&
-                        getPunctuationMarks().contains(previousText.charAt(previousText.length() - 1)));
-    }
-
-    // Method gives list with punctuation marks
-    private static List<Character> getPunctuationMarks() {
-        return Arrays.asList('.', '!', '?', ',', ':', ';');
-    }
-
-    // The method formats the text of a phrase, it adds a capital letter and return refreshed phrase text
-    private static String getBeginningSentenceWithCapitalLetter(String phraseText) {
-        var firstChar = phraseText.charAt(0);
-        if (Character.isLetter(firstChar) && Character.isLowerCase(firstChar)) {
-            phraseText = Character.toUpperCase(firstChar) + phraseText.substring(1);
-        }
-        return phraseText;
-    }
-
-    // The method formats the text of a phrase: it adds a dot if necessary.
-    private static String formatPhraseText(String phraseText) {
-        return !getPunctuationMarks().contains(phraseText.charAt(phraseText.length() - 1)) ? phraseText + "." : phraseText;
+    static List<SubtitleItem> mergeToPhrases(List<SubtitleItem> words) {
+        List<SubtitleItem> phrases = new ArrayList<>();
+        var phraseMerger = new PhraseMerger(phrases::add);
+        words.forEach(phraseMerger::accept);
+        phraseMerger.flush();
+        return phrases;
     }
 }
@@ -0,0 +1,160 @@
+package ru.home.video.service;
+
+import ru.home.video.model.subtitles.SubtitleItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * The immutable index of subtitles by their time, it's built once for ready subtitles and answers "which subtitles
+ * are shown at the moment" and "which subtitles are shown between two moments" without a scan of all of them.
+ * <p>
+ * Subtitles are sorted by their start and kept in primitive arrays, which are an implicit balanced tree: the root
+ * of a part of the arrays is its middle, its halves are the subtrees. Every node keeps the maximal end of its
+ * subtree, so a subtree, whose subtitles are over before a moment, is skipped at once, as well as a subtree, which
+ * starts after a range. A query visits only the nodes on the way to the found subtitles: O(log n) for a point and
+ * O(log n + k * log n) at worst for a range with k subtitles (a long subtitle, e.g. a sign for the whole video,
+ * doesn't make other queries slower). Queries don't allocate objects.
+ * <p>
+ * A subtitle is shown at the moment t, if start <= t < end.
+ */
+public class SubtitleIntervalIndex {
+
+    private final SubtitleItem[] items;
+    private final double[] starts;
+    private final double[] ends;
+    // the maximal end of the subtree, whose root is the subtitle i
+    private final double[] maxEnds;
+
+    /**
+     * @param subtitles - ready subtitles in any order (the order of equal starts is kept)
+     */
+    public SubtitleIntervalIndex(List<SubtitleItem> subtitles) {
+        items = subtitles.toArray(new SubtitleItem[0]);
+        Arrays.sort(items, Comparator.comparingDouble(SubtitleItem::start));
+        starts = new double[items.length];
+        ends = new double[items.length];
+        maxEnds = new double[items.length];
+        for (int i = 0; i < items.length; i++) {
+            starts[i] = items[i].start();
+            ends[i] = items[i].end();
+        }
+        fillMaxEnds(0, items.length);
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * @param index - an index of a subtitle in the order of starts (from queries of the index)
+     * @return the subtitle
+     */
+    public SubtitleItem get(int index) {
+        return items[index];
+    }
+
+    /**
+     * The method finds a subtitle, which is shown at the moment (the latest started one, if several are shown)
+     *
+     * @param time - a moment of the video (seconds)
+     * @return an index of the subtitle or -1, if nothing is shown
+     */
+    public int findActive(double time) {
+        return findLastActive(0, items.length, time);
+    }
+
+    /**
+     * The method gives every subtitle, which is shown at least for a moment between two moments
+     *
+     * @param from   - the start of the range (seconds)
+     * @param to     - the end of the range (it isn't included)
+     * @param action - it takes indexes of subtitles in the order of their starts
+     * @return a number of the subtitles
+     */
+    public int forEachInRange(double from, double to, IntConsumer action) {
+        return forEachInRange(0, items.length, from, to, action);
+    }
+
+    /**
+     * The method counts subtitles, which are shown at least for a moment between two moments
+     *
+     * @param from - the start of the range (seconds)
+     * @param to   - the end of the range (it isn't included)
+     * @return a number of the subtitles
+     */
+    public int countInRange(double from, double to) {
+        return forEachInRange(0, items.length, from, to, null);
+    }
+
+    /**
+     * The method gives subtitles, which are shown at least for a moment between two moments
+     *
+     * @param from - the start of the range (seconds)
+     * @param to   - the end of the range (it isn't included)
+     * @return a new list of the subtitles in the order of their starts
+     */
+    public List<SubtitleItem> getInRange(double from, double to) {
+        List<SubtitleItem> subtitles = new ArrayList<>();
+        forEachInRange(from, to, i -> subtitles.add(items[i]));
+        return subtitles;
+    }
+
+    // === Auxiliary methods ===
+
+    // the subtree of subtitles low..high-1 (its root is the middle), returns its maximal end
+    private double fillMaxEnds(int low, int high) {
+        if (low >= high) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        int middle = (low + high) >>> 1;
+        maxEnds[middle] = Math.max(ends[middle], Math.max(fillMaxEnds(low, middle), fillMaxEnds(middle + 1, high)));
+        return maxEnds[middle];
+    }
+
+    // the right subtree goes first: its subtitles have started later
+    private int findLastActive(int low, int high, double time) {
+        if (low >= high) {
+            return -1;
+        }
+        int middle = (low + high) >>> 1;
+        if (maxEnds[middle] <= time) { // everything of the subtree is over by then
+            return -1;
+        }
+        if (starts[middle] <= time) { // otherwise the root and the right subtree haven't started yet
+            int found = findLastActive(middle + 1, high, time);
+            if (found >= 0) {
+                return found;
+            }
+            if (ends[middle] > time) {
+                return middle;
+            }
+        }
+        return findLastActive(low, middle, time);
+    }
+
+    // subtitles in the order of starts (an action can be null, then they're only counted)
+    private int forEachInRange(int low, int high, double from, double to, IntConsumer action) {
+        if (low >= high) {
+            return 0;
+        }
+        int middle = (low + high) >>> 1;
+        if (maxEnds[middle] <= from) { // everything of the subtree is over before the range
+            return 0;
+        }
+        int count = forEachInRange(low, middle, from, to, action);
+        if (starts[middle] >= to) { // the root and the right subtree start after the range
+            return count;
+        }
+        if (ends[middle] > from) {
+            if (action != null) {
+                action.accept(middle);
+            }
+            count++;
+        }
+        return count + forEachInRange(middle + 1, high, from, to, action);
+    }
+}
@@ -6,7 +6,7 @@ import ru.home.video.model.subtitles.SubtitleItem;
 import ru.home.video.model.subtitles.SubtitleStyle;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 import static ru.home.video.config.SubtitleConfig.MAX_COUNT_OF_WORDS_FOR_ONE_PORTION_SUBTITLES;
 import static ru.home.video.config.SubtitleConfig.QUANTITY_OF_LINES_WITH_SUBTITLES;
@@ -38,6 +38,68 @@ public class SubtitleService {
         return "";
     }
 
+    /**
+     * The method gives the header of a WebVTT file, it has to be written once before the first cue
+     *
+     * @return - the header as a string
+     */
+    public static String createWebVttHeader() {
+        return "WEBVTT\n\n";
+    }
+
+    /**
+     * The method creates one WebVTT cue, so subtitles can be appended to a file while they are being recognized
+     *
+     * @param item - a ready subtitle (base entity with text and timestamp)
+     * @return - the cue as a string or an empty string, if there is no text
+     */
+    public static String createWebVttCue(SubtitleItem item) {
+        if (item.text() != null && !item.text().trim().isEmpty()) {
+            return String.format("%s --> %s\n%s\n\n",
+                    formatVttTime(item.start()),
+                    formatVttTime(item.end()),
+                    item.text().replace("\\N", "\n")
+            );
+        }
+        return "";
+    }
+
+    /**
+     * The method creates subtitles in WebVTT format
+     *
+     * @param subtitles - ready subtitles (base entities with text and timestamp)
+     * @return - subtitles as a string
+     */
+    public static String createWebVttSubtitles(List<SubtitleItem> subtitles) {
+        var vttBuilder = new StringBuilder(createWebVttHeader());
+        for (SubtitleItem item : subtitles) {
+            vttBuilder.append(createWebVttCue(item));
+        }
+        return vttBuilder.toString();
+    }
+
+    /**
+     * The method creates subtitles in SRT format (cues are numbered from 1)
+     *
+     * @param subtitles - ready subtitles (base entities with text and timestamp)
+     * @return - subtitles as a string
+     */
+    public static String createSrtSubtitles(List<SubtitleItem> subtitles) {
+        var srtBuilder = new StringBuilder();
+        int number = 1;
+        for (SubtitleItem item : subtitles) {
+            if (item.text() != null && !item.text().trim().isEmpty()) {
+                srtBuilder.append(String.format("%d\n%s --> %s\n%s\n\n",
+                        number++,
+                        formatVttTime(item.start()).replace('.', ','),
+                        formatVttTime(item.end()).replace('.', ','),
+                        item.text().replace("\\N", "\n")
+                ));
+            }
+        }
+        return srtBuilder.toString();
+    }
+
     /**
      * The method collects all subtitles base info into subtitle list
      *
@@ -45,13 +107,15 @@ public class SubtitleService {
      * @param originalVideoLanguage       - an initial video voice acting
      * @param subtitlesLanguage           - a language of subtitles
      * @param subtitleStyle               - a style of subtitle text
+     * @param cancellationToken           - a token of the job, the translation is stopped when it's cancelled
      * @return a list with subtitles (base information: starting of text, ending of text, text itself, text style)
      */
     public static List<SubtitleItem> getReadySubtitles(List<SubtitleItem> textExtractedFromAudioTrack,
                                                        LanguageType originalVideoLanguage, String subtitlesLanguage,
-                                                       SubtitleStyle subtitleStyle) {
+                                                       SubtitleStyle subtitleStyle,
+                                                       CancellationToken cancellationToken) {
 
-        return Optional.ofNullable(textExtractedFromAudioTrack)
+        var phrases = Optional.ofNullable(textExtractedFromAudioTrack)
                 .orElse(Collections.emptyList())
                 .stream()
                 .filter(Objects::nonNull)
@@ -59,18 +123,32 @@ public class SubtitleService {
                 .filter(text -> !text.text().trim().isBlank())
                 .filter(text ->
                         text.end() - text.start() >= SubtitleConfig.MIN_DURATION_OF_SECONDS_FOR_ONE_SUBTITLE_ON_THE_SCREEN)
-                .map(text -> {
-                    var translatedText = originalVideoLanguage.name().equalsIgnoreCase(subtitlesLanguage) ? text.text() :
-                            TranslatorService.translateWithLibre(text.text(), originalVideoLanguage, subtitlesLanguage);
-                    return new SubtitleItem(
-                            text.start(),
-                            text.end(),
-                            getDividedStringSubtitleByHalf(translatedText), // split subtitle text in several rows
-                            subtitleStyle
-                    );
-                })
-                .map(SubtitleService::simpleTrimForLongTimeSubtitlesOnTheScreen)
-                .collect(Collectors.toList());
+                .toList();
+        // all phrases are handed over at once, so they are sent by batches together with phrases of other jobs
+        boolean isTranslationNeeded = !originalVideoLanguage.name().equalsIgnoreCase(subtitlesLanguage);
+        var translations = phrases.stream()
+                .map(text -> isTranslationNeeded ?
+                        TranslationAggregatorService.translate(text.text(), originalVideoLanguage, subtitlesLanguage) :
+                        CompletableFuture.completedFuture(text.text()))
+                .toList();
+
+        List<SubtitleItem> readySubtitles = new ArrayList<>(phrases.size());
+        try {
+            for (int i = 0; i < phrases.size(); i++) {
+                var text = phrases.get(i);
+                var translatedText = TranslationAggregatorService.await(translations.get(i), cancellationToken);
+                readySubtitles.add(simpleTrimForLongTimeSubtitlesOnTheScreen(new SubtitleItem(
+                        text.start(),
+                        text.end(),
+                        getDividedStringSubtitleByHalf(translatedText), // split subtitle text in several rows
+                        subtitleStyle
+                )));
+            }
+        } finally {
+            // the job was cancelled or failed: its phrases, which are still queued, aren't sent for nothing
+            translations.forEach(translation -> translation.cancel(false));
+        }
+        return readySubtitles;
     }
 
     private static StringBuilder getStringBuilderWithHeaders(SubtitleStyle style) {
@@ -137,6 +215,15 @@ public class SubtitleService {
         return String.format("%d:%02d:%02d.%02d", hours, minutes, secs, milliseconds);
     }
 
+    /**
+     * Time formatting for WebVTT (SRT has the same format, but a comma before milliseconds)
+     */
+    private static String formatVttTime(double seconds) {
+        long totalMillis = Math.round(seconds * 1000);
+        return String.format("%02d:%02d:%02d.%03d", totalMillis / 3_600_000, (totalMillis / 60_000) % 60,
+                (totalMillis / 1000) % 60, totalMillis % 1000);
+    }
+
     /**
      * The method puts away long time being subtitles on the screen
      *
@@ -0,0 +1,176 @@
+package ru.home.video.service;
+
+import ru.home.video.model.subtitles.SubtitleItem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The class keeps a recognized transcript in a compact binary file, so it can be reused (translated into another
+ * language, rendered in another format) without recognizing the audio again.
+ * <p>
+ * Layout (little-endian):
+ * <ul>
+ *     <li>header (16 bytes): magic 'JSPT', a version, a number of phrases, a size of the text blob</li>
+ *     <li>phrases (16 bytes for every phrase): start (ms), end (ms), an offset and a length of the text in the blob</li>
+ *     <li>text blob: texts of all phrases in UTF-8</li>
+ * </ul>
+ * The file is mapped into memory, records are read by their offsets on demand, so loading doesn't depend on
+ * the number of phrases.
+ */
+public class TranscriptFile {
+
+    private static final int MAGIC = 0x5450534A; // 'JSPT' in little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final int phraseCount;
+    private final int textBlobOffset;
+
+    private TranscriptFile(ByteBuffer buffer, int phraseCount) {
+        this.buffer = buffer;
+        this.phraseCount = phraseCount;
+        this.textBlobOffset = HEADER_SIZE + phraseCount * RECORD_SIZE;
+    }
+
+    /**
+     * The method saves phrases into a binary transcript file (a style of phrases isn't saved)
+     *
+     * @param transcriptPath - a path of a new transcript file
+     * @param phrases        - phrases with timestamps
+     * @throws IOException if the file wasn't written
+     */
+    public static void save(Path transcriptPath, List<SubtitleItem> phrases) throws IOException {
+        // 1. Collects texts into the blob and records of phrases with references to the blob
+        var records = ByteBuffer.allocate(phrases.size() * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        var textBlob = new ByteArrayOutputStream();
+        for (SubtitleItem phrase : phrases) {
+            byte[] text = (phrase.text() == null ? "" : phrase.text()).getBytes(StandardCharsets.UTF_8);
+            records.putInt(toMillis(phrase.start()))
+                    .putInt(toMillis(phrase.end()))
+                    .putInt(textBlob.size())
+                    .putInt(text.length);
+            textBlob.write(text);
+        }
+        // 2. Writes the header, the records and the blob
+        var header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(phrases.size())
+                .putInt(textBlob.size());
+        try (var channel = FileChannel.open(transcriptPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            var parts = new ByteBuffer[]{header.flip(), records.flip(), ByteBuffer.wrap(textBlob.toByteArray())};
+            while (parts[0].hasRemaining() || parts[1].hasRemaining() || parts[2].hasRemaining()) {
+                channel.write(parts);
+            }
+        }
+    }
+
+    /**
+     * The method maps a transcript file into memory, only the header is checked
+     *
+     * @param transcriptPath - a path of a transcript file
+     * @return a transcript, its phrases are read from the mapped file
+     * @throws IOException if the file can't be read or it isn't a transcript of a supported version
+     */
+    public static TranscriptFile load(Path transcriptPath) throws IOException {
+        try (var channel = FileChannel.open(transcriptPath, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("The file is too short for a transcript: " + transcriptPath);
+            }
+            // the mapping stays valid after the channel is closed
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("The file isn't a transcript ('JSPT' wasn't found): " + transcriptPath);
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported version of the transcript: " + buffer.getInt(4));
+            }
+            int phraseCount = buffer.getInt(8);
+            long expectedSize = HEADER_SIZE + (long) phraseCount * RECORD_SIZE +
+                    Integer.toUnsignedLong(buffer.getInt(12));
+            if (phraseCount < 0 || expectedSize != fileSize) {
+                throw new IOException("The transcript is damaged (wrong size): " + transcriptPath);
+            }
+            return new TranscriptFile(buffer, phraseCount);
+        }
+    }
+
+    /**
+     * @return a number of phrases
+     */
+    public int size() {
+        return phraseCount;
+    }
+
+    /**
+     * @param index - an index of a phrase
+     * @return a beginning time of the phrase (seconds)
+     */
+    public double getStart(int index) {
+        return buffer.getInt(getRecordOffset(index)) / 1000.0;
+    }
+
+    /**
+     * @param index - an index of a phrase
+     * @return an ending time of the phrase (seconds)
+     */
+    public double getEnd(int index) {
+        return buffer.getInt(getRecordOffset(index) + 4) / 1000.0;
+    }
+
+    /**
+     * @param index - an index of a phrase
+     * @return a text of the phrase (it's decoded from the blob at every call)
+     */
+    public String getText(int index) {
+        int recordOffset = getRecordOffset(index);
+        byte[] text = new byte[buffer.getInt(recordOffset + 12)];
+        buffer.get(textBlobOffset + buffer.getInt(recordOffset + 8), text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param index - an index of a phrase
+     * @return the phrase without a style
+     */
+    public SubtitleItem getItem(int index) {
+        return new SubtitleItem(getStart(index), getEnd(index), getText(index), null);
+    }
+
+    /**
+     * @return all phrases without a style (the style is applied while subtitles are created)
+     */
+    public List<SubtitleItem> toSubtitleItems() {
+        List<SubtitleItem> items = new ArrayList<>(phraseCount);
+        for (int i = 0; i < phraseCount; i++) {
+            items.add(getItem(i));
+        }
+        return items;
+    }
+
+    // === Auxiliary methods ===
+
+    private int getRecordOffset(int index) {
+        if (index < 0 || index >= phraseCount) {
+            throw new IndexOutOfBoundsException("Phrase " + index + " of " + phraseCount);
+        }
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    private static int toMillis(double seconds) {
+        return (int) Math.round(seconds * 1000);
+    }
+}
@@ -0,0 +1,187 @@
+package ru.home.video.service;
+
+import ru.home.video.exception.TranslationFailedException;
+import ru.home.video.model.enums.CircuitState;
+import ru.home.video.model.enums.LanguageType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static ru.home.video.config.TranslationConfig.*;
+
+/**
+ * The class is the shared front of the translation service for all jobs of the app:
+ * <ul>
+ *     <li>single-flight - the same phrase, which is being translated for one job, isn't sent again for another job,
+ *     both of them get the same result; a phrase, which no job waits for anymore (all of them were cancelled),
+ *     isn't sent</li>
+ *     <li>micro-batches - phrases of all jobs are collected during a short window (or till a limit of a batch) and
+ *     sent by one request, so the translation service gets less requests when there are more jobs</li>
+ * </ul>
+ * Every language pair has its own collector thread, batches are sent by virtual threads through
+ * {@link TranslationBackendService} (an adaptive limit of concurrent requests, retries, a circuit breaker).
+ * A failed batch is split in halves, which are sent again, so a phrase, which the service can't translate,
+ * fails only the jobs waiting for it (while the circuit is open, the whole batch fails at once).
+ */
+public class TranslationAggregatorService {
+
+    private static final Map<String, PendingTranslation> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final Map<String, BlockingQueue<PendingTranslation>> QUEUES = new ConcurrentHashMap<>();
+    private static final ExecutorService BATCH_SENDERS = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * The method puts a phrase into the next batch of its language pair
+     *
+     * @param text            - the text which has to be translated
+     * @param initialLanguage - an initial language of the text
+     * @param targetLanguage  - a language of translation
+     * @return a future of the translated text for this caller, cancelling of it means that the caller doesn't wait
+     * for the text anymore (the phrase isn't sent, when nobody else waits for it)
+     */
+    public static CompletableFuture<String> translate(String text, LanguageType initialLanguage,
+                                                      String targetLanguage) {
+        var languagePair = initialLanguage.name() + "->" + targetLanguage;
+        var key = languagePair + "\n" + text;
+        var created = new PendingTranslation(key, text, new CompletableFuture<>(), JobContext.getCurrentJobId(),
+                new AtomicInteger());
+        // the waiter is added under the lock of the key, so the phrase can't be dropped at the same time
+        var pending = IN_FLIGHT.compute(key, (k, inFlight) -> {
+            var translation = inFlight != null ? inFlight : created;
+            translation.waiters().incrementAndGet();
+            return translation;
+        });
+        if (pending == created) { // the phrase isn't being translated yet
+            created.result().whenComplete((translated, e) -> IN_FLIGHT.remove(key, created));
+            QUEUES.computeIfAbsent(languagePair, pair -> startCollector(pair, initialLanguage, targetLanguage))
+                    .add(created);
+        }
+        var ownTranslation = pending.result().copy(); // cancelling of the copy doesn't touch other jobs
+        ownTranslation.whenComplete((translated, e) -> {
+            if (ownTranslation.isCancelled()) {
+                releaseWaiter(pending);
+            }
+        });
+        return ownTranslation;
+    }
+
+    /**
+     * The method waits for a translated text, the waiting is stopped when the job is cancelled
+     * (the phrase is still translated for other jobs)
+     *
+     * @param translation       - a future from {@link #translate} (it's cancelled, when the job is cancelled)
+     * @param cancellationToken - a token of the job
+     * @return the translated text
+     * @throws TranslationFailedException if the translation service didn't translate the phrase
+     */
+    public static String await(CompletableFuture<String> translation, CancellationToken cancellationToken) {
+        try (var registration = cancellationToken.onCancel(() -> translation.cancel(true))) {
+            return translation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Waiting for the translation was interrupted");
+        } catch (CancellationException e) {
+            cancellationToken.throwIfCancelled();
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TranslationFailedException translationFailure) {
+                throw translationFailure;
+            }
+            throw new RuntimeException("The text wasn't translated: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // === Auxiliary methods ===
+
+    // the job, which asked for the translation first (for JFR events), and a number of jobs waiting for it
+    private record PendingTranslation(String key, String text, CompletableFuture<String> result, String jobId,
+                                      AtomicInteger waiters) {
+    }
+
+    // the last waiter has gone: the phrase is dropped, a queued one is skipped by the collector
+    private static void releaseWaiter(PendingTranslation pending) {
+        IN_FLIGHT.computeIfPresent(pending.key(), (key, inFlight) -> {
+            if (inFlight != pending || pending.waiters().decrementAndGet() > 0) {
+                return inFlight;
+            }
+            pending.result().cancel(false);
+            return null;
+        });
+    }
+
+    private static BlockingQueue<PendingTranslation> startCollector(String languagePair,
+                                                                    LanguageType initialLanguage,
+                                                                    String targetLanguage) {
+        var queue = new LinkedBlockingQueue<PendingTranslation>();
+        // the collector serves all jobs, so it doesn't inherit the job of the thread, which started it
+        var collector = Thread.ofPlatform().daemon().inheritInheritableThreadLocals(false)
+                .name("TranslationBatcher-" + languagePair);
+        collector.start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    var batch = collectBatch(queue);
+                    BATCH_SENDERS.execute(() -> sendBatch(batch, initialLanguage, targetLanguage));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        return queue;
+    }
+
+    // waits for the first phrase, then collects others till the window is over or the batch is full
+    private static List<PendingTranslation> collectBatch(BlockingQueue<PendingTranslation> queue)
+            throws InterruptedException {
+        List<PendingTranslation> batch = new ArrayList<>();
+        var first = queue.take();
+        while (first.result().isDone()) { // phrases of cancelled jobs
+            first = queue.take();
+        }
+        batch.add(first);
+        int chars = first.text().length();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TRANSLATION_BATCH_WINDOW_MILLIS);
+        while (batch.size() < TRANSLATION_BATCH_MAX_SIZE && chars < TRANSLATION_BATCH_MAX_CHARS) {
+            var next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            if (next.result().isDone()) {
+                continue;
+            }
+            batch.add(next);
+            chars += next.text().length();
+        }
+        return batch;
+    }
+
+    // every caller gets its own text, a failed batch is bisected till the phrase, which fails it, is found
+    private static void sendBatch(List<PendingTranslation> allPendings, LanguageType initialLanguage,
+                                  String targetLanguage) {
+        var batch = allPendings.stream().filter(pending -> !pending.result().isDone()).toList();
+        if (batch.isEmpty()) { // all jobs of the batch were cancelled in the meantime
+            return;
+        }
+        try {
+            var jobIds = batch.stream().map(PendingTranslation::jobId).filter(Objects::nonNull).distinct()
+                    .collect(Collectors.joining(","));
+            var translatedTexts = TranslationBackendService.translateBatch(
+                    batch.stream().map(PendingTranslation::text).toList(), initialLanguage, targetLanguage, jobIds);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(translatedTexts.get(i));
+            }
+        } catch (RuntimeException e) {
+            // the service is unavailable, smaller batches would fail the same way
+            if (batch.size() == 1 || TranslationBackendService.getMetrics().circuitState() == CircuitState.OPEN) {
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+                return;
+            }
+            int middle = batch.size() / 2;
+            sendBatch(batch.subList(0, middle), initialLanguage, targetLanguage);
+            sendBatch(batch.subList(middle, batch.size()), initialLanguage, targetLanguage);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ru.home.video.service;
+
+import ru.home.video.exception.TranslationFailedException;
+import ru.home.video.exception.TranslationRejectedException;
+import ru.home.video.jfr.TranslationRequestEvent;
+import ru.home.video.model.enums.LanguageType;
+import ru.home.video.model.translation.TranslationBackendMetrics;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static ru.home.video.config.TranslationConfig.*;
+
+/**
+ * The class guards the translation service (LibreTranslate on a CPU slows down sharply, when it gets too many
+ * requests at once):
+ * <ul>
+ *     <li>the number of concurrent requests is adapted by their latency (see {@link AdaptiveConcurrencyLimiter})</li>
+ *     <li>a failed request is repeated after a random pause, which grows with every attempt</li>
+ *     <li>after several failures in a row requests aren't sent for a while (see {@link CircuitBreaker}), a batch
+ *     waits till the circuit lets requests through again (it doesn't spend its attempts on the open circuit)</li>
+ * </ul>
+ * When all attempts failed, the texts aren't translated and {@link TranslationFailedException} is thrown.
+ * A request rejected by the service ({@link TranslationRejectedException}) fails at once: it isn't repeated and
+ * it isn't a failure for the limiter and the circuit breaker (the service answered, the batch itself is wrong).
+ */
+public class TranslationBackendService {
+
+    private static final AdaptiveConcurrencyLimiter LIMITER = new AdaptiveConcurrencyLimiter(
+            TRANSLATION_INITIAL_CONCURRENCY, TRANSLATION_MIN_CONCURRENCY, TRANSLATION_MAX_CONCURRENCY,
+            TRANSLATION_CONCURRENCY_BACKOFF_RATIO, TRANSLATION_LATENCY_TOLERANCE, TRANSLATION_BASELINE_LATENCY_DRIFT,
+            getLatencyClass(TRANSLATION_BATCH_MAX_SIZE) + 1);
+    private static final CircuitBreaker CIRCUIT_BREAKER = new CircuitBreaker(
+            TRANSLATION_BREAKER_FAILURE_THRESHOLD, TRANSLATION_BREAKER_OPEN_MILLIS);
+    private static final AtomicLong SUCCEEDED = new AtomicLong();
+    private static final AtomicLong FAILED = new AtomicLong();
+    private static final AtomicLong RETRIED = new AtomicLong();
+    private static final AtomicLong REJECTED = new AtomicLong();
+
+    /**
+     * The method translates several texts by one request, the request is repeated when it fails
+     *
+     * @param texts           - texts which have to be translated
+     * @param initialLanguage - an initial language of the texts
+     * @param targetLanguage  - a language of translation
+     * @param jobIds          - jobs, whose texts are in the batch (comma separated, for JFR events)
+     * @return translated texts in the same order
+     * @throws TranslationFailedException   if all attempts failed or the circuit stayed open too long (see
+     *                                      TRANSLATION_CIRCUIT_MAX_WAIT_MILLIS)
+     * @throws TranslationRejectedException if the service rejected the request (it isn't repeated)
+     */
+    public static List<String> translateBatch(List<String> texts, LanguageType initialLanguage,
+                                              String targetLanguage, String jobIds) {
+        TranslationFailedException lastFailure = null;
+        long circuitDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TRANSLATION_CIRCUIT_MAX_WAIT_MILLIS);
+        int attempt = 1;
+        while (attempt <= TRANSLATION_MAX_ATTEMPTS) {
+            // every attempt is an event: its latency, its payload and its outcome
+            var requestEvent = new TranslationRequestEvent();
+            requestEvent.begin();
+            if (requestEvent.isEnabled()) {
+                requestEvent.setJobIds(jobIds);
+                requestEvent.setLanguagePair(initialLanguage.name() + "->" + targetLanguage);
+                requestEvent.setTexts(texts.size());
+                requestEvent.setPayloadChars(texts.stream().mapToInt(String::length).sum());
+                requestEvent.setAttempt(attempt);
+            }
+            if (!CIRCUIT_BREAKER.tryAcquirePermission()) {
+                REJECTED.incrementAndGet();
+                commitRequestEvent(requestEvent, "REJECTED");
+                lastFailure = new TranslationFailedException("the translation service is unavailable " +
+                        "(the circuit is " + CIRCUIT_BREAKER.getState() + ")", lastFailure);
+                // a rejected request isn't an attempt: it waits till the circuit lets requests through again
+                if (!waitForCircuit(circuitDeadline, lastFailure)) {
+                    break;
+                }
+                continue;
+            }
+            try {
+                var translatedTexts = sendBatch(texts, initialLanguage, targetLanguage);
+                commitRequestEvent(requestEvent, "OK");
+                return translatedTexts;
+            } catch (TranslationRejectedException e) {
+                commitRequestEvent(requestEvent, "REJECTED_BY_SERVICE");
+                throw e;
+            } catch (TranslationFailedException e) {
+                commitRequestEvent(requestEvent, "FAILED");
+                lastFailure = e;
+            }
+            if (++attempt <= TRANSLATION_MAX_ATTEMPTS) {
+                RETRIED.incrementAndGet();
+                sleepBeforeAttempt(attempt, lastFailure);
+            }
+        }
+        throw lastFailure;
+    }
+
+    /**
+     * @return the current state of requests to the translation service
+     */
+    public static TranslationBackendMetrics getMetrics() {
+        double baselineNanos = LIMITER.getBaselineLatencyNanos(getLatencyClass(TRANSLATION_BATCH_MAX_SIZE));
+        return new TranslationBackendMetrics(LIMITER.getLimit(), LIMITER.getInFlight(), CIRCUIT_BREAKER.getState(),
+                baselineNanos < 0 ? -1 : baselineNanos / 1_000_000, SUCCEEDED.get(), FAILED.get(), RETRIED.get(),
+                REJECTED.get());
+    }
+
+    // === Auxiliary methods ===
+
+    private static void commitRequestEvent(TranslationRequestEvent requestEvent, String outcome) {
+        if (requestEvent.shouldCommit()) {
+            requestEvent.setOutcome(outcome);
+            requestEvent.commit();
+        }
+    }
+
+    // one attempt within the adaptive limit, its latency is compared with batches of a similar size only
+    private static List<String> sendBatch(List<String> texts, LanguageType initialLanguage, String targetLanguage) {
+        boolean isLoaded;
+        try {
+            isLoaded = LIMITER.acquire();
+        } catch (InterruptedException e) {
+            CIRCUIT_BREAKER.releasePermission(); // the service wasn't asked
+            Thread.currentThread().interrupt();
+            throw new TranslationFailedException("waiting for a free request was interrupted", e);
+        }
+        long started = System.nanoTime();
+        try {
+            var translatedTexts = TranslatorService.translateBatchWithLibre(texts, initialLanguage, targetLanguage);
+            LIMITER.onSuccess(System.nanoTime() - started, getLatencyClass(texts.size()), isLoaded);
+            CIRCUIT_BREAKER.onSuccess();
+            SUCCEEDED.incrementAndGet();
+            return translatedTexts;
+        } catch (TranslationRejectedException e) {
+            LIMITER.onIgnore(); // a quick answer about a wrong request says nothing about the load of the service
+            CIRCUIT_BREAKER.releasePermission();
+            FAILED.incrementAndGet();
+            System.out.println(e.getMessage() + " (texts: " + texts.size() + ")");
+            throw e;
+        } catch (TranslationFailedException e) {
+            LIMITER.onFailure();
+            CIRCUIT_BREAKER.onFailure();
+            FAILED.incrementAndGet();
+            System.out.println(e.getMessage() + " (texts: " + texts.size() + ", the limit of concurrent requests: " +
+                    String.format("%.1f", LIMITER.getLimit()) + ")");
+            throw e;
+        } catch (RuntimeException e) {
+            LIMITER.onIgnore();
+            CIRCUIT_BREAKER.releasePermission();
+            throw e;
+        }
+    }
+
+    // batches of 1, 2, 3-4, 5-8, ... texts: a batch isn't translated text by text, so its latency isn't
+    // proportional to its size, but batches within a class are close enough to be compared
+    private static int getLatencyClass(int batchSize) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(1, batchSize) - 1);
+    }
+
+    // waits for the end of the open time of the circuit (or a pause, while a probe is in flight), 'false' if
+    // the circuit hasn't let requests through till the deadline
+    private static boolean waitForCircuit(long deadlineNanos, TranslationFailedException lastFailure) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (remainingMillis <= 0) {
+            return false;
+        }
+        // the jitter spreads requests of many batches, which wait for the same moment
+        long pause = Math.max(CIRCUIT_BREAKER.getRemainingOpenMillis(), TRANSLATION_RETRY_BASE_DELAY_MILLIS) +
+                ThreadLocalRandom.current().nextLong(TRANSLATION_RETRY_BASE_DELAY_MILLIS + 1);
+        try {
+            Thread.sleep(Math.min(pause, remainingMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TranslationFailedException("waiting for the translation service was interrupted", lastFailure);
+        }
+        return true;
+    }
+
+    // "full jitter": a random pause from 0 to (base * 2^attempt), so repeated requests of many jobs are spread
+    private static void sleepBeforeAttempt(int attempt, TranslationFailedException lastFailure) {
+        long maxDelay = Math.min(TRANSLATION_RETRY_MAX_DELAY_MILLIS,
+                TRANSLATION_RETRY_BASE_DELAY_MILLIS << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxDelay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TranslationFailedException("waiting for the next attempt was interrupted", lastFailure);
+        }
+    }
+}
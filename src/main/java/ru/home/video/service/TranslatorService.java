@@ -1,11 +1,18 @@
 package ru.home.video.service;
 
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import ru.home.video.config.JavaSubProviderAppConfig;
+import ru.home.video.exception.JobCancelledException;
+import ru.home.video.exception.TranslationFailedException;
+import ru.home.video.exception.TranslationRejectedException;
 import ru.home.video.model.enums.LanguageType;
 
 import java.io.File;
@@ -15,6 +22,8 @@ import java.nio.file.Files;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static ru.home.video.config.TranslationConfig.TRANSLATION_REQUEST_TIMEOUT_MILLIS;
+
 public class TranslatorService {
 
     /**
@@ -23,32 +32,98 @@ public class TranslatorService {
      * @param text            - the text which has to be translated
      * @param initialLanguage - an initial language which has to be translated by LibreTranslate service
      * @param targetLanguage  - a language of translation
-     * @return a translated text or null
+     * @return a translated text
+     * @throws TranslationFailedException if the service didn't translate the text
      */
     public static String translateWithLibre(String text, LanguageType initialLanguage, String targetLanguage) {
+        return translateWithLibre(text, initialLanguage, targetLanguage, new CancellationToken());
+    }
+
+    /**
+     * The method provides access to translator service, a request in progress is aborted when the job is cancelled
+     *
+     * @param text              - the text which has to be translated
+     * @param initialLanguage   - an initial language which has to be translated by LibreTranslate service
+     * @param targetLanguage    - a language of translation
+     * @param cancellationToken - a token of the job
+     * @return a translated text
+     * @throws JobCancelledException      if the job was cancelled
+     * @throws TranslationFailedException if the service didn't translate the text
+     */
+    public static String translateWithLibre(String text, LanguageType initialLanguage, String targetLanguage,
+                                            CancellationToken cancellationToken) {
+        cancellationToken.throwIfCancelled();
         // 1. get a query for the translation service
         var request = getReadyRequestForTranslateService(text, initialLanguage, targetLanguage);
-        try {
+        try (var httpClient = HttpClients.createDefault();
+             var registration = cancellationToken.onCancel(request::abort)) {
             // 2. executes the query on translating
-            var response = EntityUtils.toString(HttpClients.createDefault().execute(request).getEntity());
+            var response = getResponseBody(httpClient.execute(request));
             // 3. returns the translated text
             return new JSONObject(response).getString("translatedText");
-        } catch (IOException e) {
-            System.out.println("Method translateWithLibre was failure.\n Text: " + text + " \n error: " + e.getMessage());
-            return text;
+        } catch (IOException | JSONException e) {
+            cancellationToken.throwIfCancelled(); // the request was aborted
+            throw new TranslationFailedException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The method translates several texts by one request (LibreTranslate accepts an array of texts)
+     *
+     * @param texts           - texts which have to be translated
+     * @param initialLanguage - an initial language which has to be translated by LibreTranslate service
+     * @param targetLanguage  - a language of translation
+     * @return translated texts in the same order
+     * @throws TranslationFailedException   if the service didn't translate the texts
+     * @throws TranslationRejectedException if the service rejected the request ('4xx')
+     */
+    public static List<String> translateBatchWithLibre(List<String> texts, LanguageType initialLanguage,
+                                                       String targetLanguage) {
+        var request = getReadyRequestForTranslateService(new JSONArray(texts), initialLanguage, targetLanguage);
+        try (var httpClient = HttpClients.createDefault()) {
+            var response = getResponseBody(httpClient.execute(request));
+            var translatedTexts = new JSONObject(response).getJSONArray("translatedText");
+            if (translatedTexts.length() != texts.size()) {
+                throw new JSONException("Expected " + texts.size() + " texts, but got " + translatedTexts.length());
+            }
+            List<String> result = new ArrayList<>(texts.size());
+            for (int i = 0; i < translatedTexts.length(); i++) {
+                result.add(translatedTexts.getString(i));
+            }
+            return result;
+        } catch (IOException | JSONException e) {
+            throw new TranslationFailedException(e.getMessage(), e);
+        }
+    }
+
+    // a response with an error (e.g. '500' of an overloaded service) is a failure, not a text,
+    // '4xx' is a fault of the request itself (it fails again, when it's repeated)
+    private static String getResponseBody(HttpResponse response) throws IOException {
+        var body = EntityUtils.toString(response.getEntity());
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode / 100 == 4) {
+            throw new TranslationRejectedException(statusCode, body);
+        }
+        if (statusCode / 100 != 2) {
+            throw new IOException("the translation service responded " + statusCode + ": " + body);
         }
+        return body;
     }
 
     // returns a ready request towards translate service (deployed locally by the docker desktop app)
-    private static HttpPost getReadyRequestForTranslateService(String text,
+    private static HttpPost getReadyRequestForTranslateService(Object text,
                                                                LanguageType initialLanguage, String targetLanguage) {
         var body = new JSONObject();
-        body.put("q", text); // a text for translating
+        body.put("q", text); // a text for translating (or an array of texts)
         body.put("source", initialLanguage);
         body.put("target", targetLanguage);
         body.put("format", "text");
 
         var request = new HttpPost(JavaSubProviderAppConfig.LIBRE_URL);
+        request.setConfig(RequestConfig.custom() // a stalled service doesn't hang the request
+                .setConnectTimeout(TRANSLATION_REQUEST_TIMEOUT_MILLIS)
+                .setSocketTimeout(TRANSLATION_REQUEST_TIMEOUT_MILLIS)
+                .build());
         request.setHeader("Content-Type", "application/json");
         request.setEntity(new StringEntity(body.toString(), StandardCharsets.UTF_8));
         return request;
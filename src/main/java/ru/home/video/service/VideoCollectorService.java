@@ -1,8 +1,11 @@
 package ru.home.video.service;
 
-import java.io.IOException;
+import ru.home.video.config.ProcessConfig;
+import ru.home.video.model.process.ProcessResult;
+
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The class combines video with subtitles, responds for interaction with external app 'ffmpeg'.
@@ -12,36 +15,26 @@ public class VideoCollectorService {
     /**
      * The method adds subtitles from ASS file (all styles already in the file)
      *
-     * @param ffmpegPath          -
+     * @param ffmpegPath          - a path to the app 'FFMPEG'
      * @param inputVideoFilePath  - a current video file, which has to be treatment
-     * @param subtitlesPath       -
+     * @param subtitlesPath       - a path to the ASS file with subtitles
      * @param outputVideoFilePath - a directory (folder) where a new video file (with subtitles) has to be saved
+     * @return a future, which is completed when the new video is fully written
+     * (it's failed by 'ExternalProcessException', if subtitles weren't added)
      */
-    public static void addSubtitlesToVideo(String ffmpegPath, String inputVideoFilePath,
-                                           String subtitlesPath, String outputVideoFilePath) {
-        try {
-            List<String> command = Arrays.asList(
-                    ffmpegPath,
-                    "-i", inputVideoFilePath,
-                    "-filter_complex", "ass=" + getCorrectedPathDirectedToFfmpegAppIndependentOfOS(subtitlesPath),
-                    "-c:a", "copy",
-                    "-y",
-                    outputVideoFilePath
-            );
-
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.redirectErrorStream(true);
-            Process process = pb.start();
-
-            try (var in = process.getInputStream()) {
-                in.transferTo(System.out); // reads the output data to avoid flow's blocking.
-            }
-
-            process.waitFor(); // the main flow await ending of the ffmpeg app finish his work
-
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException("Error: " + e.getMessage(), e);
-        }
+    public static CompletableFuture<ProcessResult> addSubtitlesToVideo(String ffmpegPath, String inputVideoFilePath,
+                                                                       String subtitlesPath,
+                                                                       String outputVideoFilePath) {
+        List<String> command = Arrays.asList(
+                ffmpegPath,
+                "-i", inputVideoFilePath,
+                "-filter_complex", "ass=" + getCorrectedPathDirectedToFfmpegAppIndependentOfOS(subtitlesPath),
+                "-c:a", "copy",
+                "-y",
+                outputVideoFilePath
+        );
+        // the output is drained by the runner, so the app isn't blocked and no thread waits for it
+        return ProcessRunnerService.run("ffmpeg", command, ProcessConfig.SUBTITLES_BURNING_TIMEOUT_MILLIS);
     }
 
     /**
@@ -50,7 +43,7 @@ public class VideoCollectorService {
      * @param path - an initial path
      * @return natural path for speaking with Ffmpeg app
      */
-    private static String getCorrectedPathDirectedToFfmpegAppIndependentOfOS(String path) {
+    static String getCorrectedPathDirectedToFfmpegAppIndependentOfOS(String path) {
         if (System.getProperty("os.name").toLowerCase().contains("win")) {
             return "'" + path.replace("\\", "/").replace(":", "\\:") + "'";
         } else { // Linux/Mac:
@@ -0,0 +1,215 @@
+package ru.home.video.service;
+
+import ru.home.video.config.JavaSubProviderAppConfig;
+import ru.home.video.config.SchedulerConfig;
+import ru.home.video.config.ServerConfig;
+import ru.home.video.model.enums.JobStatus;
+import ru.home.video.model.jobs.MediaInfo;
+import ru.home.video.model.jobs.VideoJob;
+import ru.home.video.model.jobs.VideoJobState;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * The class runs submitted video jobs by a fixed number of workers. Jobs wait for a worker in a bounded queue:
+ * when the queue is full, a new job is rejected instead of piling up work. The queue is ordered by an estimated
+ * cost of jobs (shortest job first), the cost decreases while a job is waiting, so long jobs aren't starved.
+ * Finished jobs are kept for clients only for a while (see {@link ServerConfig#SERVER_FINISHED_JOB_TTL_MILLIS}).
+ */
+public class VideoJobService {
+
+    private final Map<String, VideoJobState> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor jobExecutor;
+    private final int queueCapacity;
+    private int probingJobs = 0; // jobs, which have taken a place in the queue and are being probed (guarded by this)
+    private final Deque<Double> recentEstimates = new ArrayDeque<>(); // (guarded by this)
+
+    /**
+     * @param workers       - a number of videos which are processed at the same time
+     * @param queueCapacity - a number of jobs which can wait for a worker
+     */
+    public VideoJobService(int workers, int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        this.jobExecutor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "VideoJobThread");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * The method takes a place in the queue, probes a video by 'ffprobe' and puts its job into the queue
+     *
+     * @param job - paths, languages and a style of subtitles
+     * @return the state of the job, which is updated while the job is being processed
+     * @throws RejectedExecutionException if the queue is full
+     * @throws IllegalArgumentException   if the video doesn't have an audio stream
+     */
+    public VideoJobState submitJob(VideoJob job) {
+        // 1. Takes a place before probing, so a burst of jobs doesn't start a process for every one of them
+        synchronized (this) { // the check and the taking are one action, so the capacity can't be exceeded
+            evictFinishedJobs();
+            if (jobExecutor.getQueue().size() + probingJobs >= queueCapacity) {
+                throw new RejectedExecutionException("The queue of jobs is full");
+            }
+            probingJobs++;
+        }
+        try {
+            // 2. Estimates the cost of the job, a video, which wasn't probed, is treated as a typical one
+            var state = new VideoJobState(job);
+            state.setEstimatedSeconds(estimateProcessingSeconds(job));
+            var task = new PrioritizedJobTask(state, MediaProbeService.getShortestJobFirstKey(
+                    state.getEstimatedSeconds(), System.currentTimeMillis()));
+
+            // 3. Puts the job into the place it has taken
+            synchronized (this) {
+                state.setFuture(task);
+                jobs.put(job.id(), state);
+                jobExecutor.execute(task);
+            }
+            return state;
+        } finally {
+            synchronized (this) {
+                probingJobs--;
+            }
+        }
+    }
+
+    /**
+     * @param jobId - an identifier of a job
+     * @return the state of the job or empty, if there is no such job
+     */
+    public Optional<VideoJobState> getJobState(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * The method cancels a job: a queued job won't be started, a running job is interrupted
+     *
+     * @param jobId - an identifier of a job
+     * @return the state of the job or empty, if there is no such job
+     */
+    public Optional<VideoJobState> cancelJob(String jobId) {
+        var state = jobs.get(jobId);
+        if (state != null && (state.compareAndSetStatus(JobStatus.QUEUED, JobStatus.CANCELLED)
+                || state.compareAndSetStatus(JobStatus.RUNNING, JobStatus.CANCELLED))) {
+            state.setMessage("Cancelled");
+            state.getCancellationToken().cancel(); // a running job frees its processes and its recognizer at once
+            var future = state.getFuture();
+            if (future != null) {
+                future.cancel(true);
+                jobExecutor.remove((Runnable) future); // a queued job frees its place in the queue at once
+            }
+        }
+        return Optional.ofNullable(state);
+    }
+
+    /**
+     * @return a number of jobs which wait for a worker
+     */
+    public int getQueuedJobs() {
+        return jobExecutor.getQueue().size();
+    }
+
+    /**
+     * The method stops workers, running jobs are interrupted
+     */
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    // === Auxiliary methods ===
+
+    // the cost of a probed video is remembered, a video, which wasn't probed, gets the median of the last costs
+    private double estimateProcessingSeconds(VideoJob job) {
+        try {
+            var mediaInfo = MediaProbeService.probeMedia(JavaSubProviderAppConfig.FFPROBE_PATH,
+                    job.inputVideoFilePath());
+            if (!mediaInfo.hasAudio()) { // the video is skipped before it takes a recognizer
+                throw new IllegalArgumentException("The video doesn't have an audio stream");
+            }
+            double estimatedSeconds = MediaProbeService.estimateProcessingSeconds(mediaInfo);
+            synchronized (this) {
+                recentEstimates.addLast(estimatedSeconds);
+                if (recentEstimates.size() > SchedulerConfig.RECENT_ESTIMATES_SIZE) {
+                    recentEstimates.removeFirst();
+                }
+            }
+            return estimatedSeconds;
+        } catch (IOException e) {
+            double estimatedSeconds = getTypicalEstimatedSeconds();
+            System.out.printf("The video wasn't probed, it's queued as a typical one (%.0f s): %s%n",
+                    estimatedSeconds, e.getMessage());
+            return estimatedSeconds;
+        }
+    }
+
+    private synchronized double getTypicalEstimatedSeconds() {
+        if (recentEstimates.isEmpty()) {
+            return MediaProbeService.estimateProcessingSeconds(
+                    new MediaInfo(SchedulerConfig.DEFAULT_VIDEO_DURATION_SECONDS, true));
+        }
+        double[] estimates = recentEstimates.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        return estimates[estimates.length / 2];
+    }
+
+    // finished jobs are removed after their time is over and the oldest ones are removed above the limit
+    private void evictFinishedJobs() {
+        long expiredMillis = System.currentTimeMillis() - ServerConfig.SERVER_FINISHED_JOB_TTL_MILLIS;
+        jobs.values().removeIf(state -> state.getFinishedMillis() != 0 && state.getFinishedMillis() < expiredMillis);
+        var finishedJobs = jobs.values().stream()
+                .filter(state -> state.getFinishedMillis() != 0)
+                .sorted(Comparator.comparingLong(VideoJobState::getFinishedMillis))
+                .toList();
+        for (int i = 0; i < finishedJobs.size() - ServerConfig.SERVER_MAX_FINISHED_JOBS; i++) {
+            jobs.remove(finishedJobs.get(i).getJob().id());
+        }
+    }
+
+    /**
+     * The task of a job, the queue of the executor gives away a task with the smallest key first
+     */
+    private static class PrioritizedJobTask extends FutureTask<Void> implements Comparable<PrioritizedJobTask> {
+
+        private final double orderingKey;
+
+        private PrioritizedJobTask(VideoJobState state, double orderingKey) {
+            super(() -> runJob(state), null);
+            this.orderingKey = orderingKey;
+        }
+
+        @Override
+        public int compareTo(PrioritizedJobTask other) {
+            return Double.compare(orderingKey, other.orderingKey);
+        }
+    }
+
+    private static void runJob(VideoJobState state) {
+        if (!state.compareAndSetStatus(JobStatus.QUEUED, JobStatus.RUNNING)) {
+            return; // it was cancelled while it was waiting
+        }
+        try {
+            var result = VideoProcessService.processVideo(state.getJob(), (progress, message) -> {
+                state.setProgress(progress);
+                state.setMessage(message);
+            }, state.getCancellationToken());
+            state.setResult(result); // it's set before the status, so a done job always has its result
+            if (!state.compareAndSetStatus(JobStatus.RUNNING, JobStatus.DONE)) {
+                state.setResult(null);
+            }
+        } catch (Exception e) {
+            if (state.getStatus() == JobStatus.RUNNING) {
+                state.setError(e.getMessage());
+                state.setMessage("Processing error");
+            }
+            state.compareAndSetStatus(JobStatus.RUNNING, JobStatus.FAILED);
+        }
+    }
+}
@@ -3,8 +3,19 @@ package ru.home.video.service;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextField;
+import ru.home.video.config.FingerprintConfig;
 import ru.home.video.config.JavaSubProviderAppConfig;
+import ru.home.video.config.ProcessConfig;
+import ru.home.video.config.SubtitleConfig;
+import ru.home.video.exception.JobCancelledException;
+import ru.home.video.jfr.AudioExtractionEvent;
+import ru.home.video.jfr.SubtitleBurningEvent;
+import ru.home.video.jfr.SubtitleGenerationEvent;
 import ru.home.video.model.enums.LanguageType;
+import ru.home.video.model.enums.ResourceClass;
+import ru.home.video.model.jobs.AudioTrack;
+import ru.home.video.model.jobs.VideoJob;
+import ru.home.video.model.jobs.VideoJobResult;
 import ru.home.video.model.subtitles.SubtitleItem;
 import ru.home.video.model.subtitles.SubtitleStyle;
 
@@ -15,9 +26,17 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
 
+import static ru.home.video.config.SubtitleConfig.RECOGNITION_CHUNK_SIZE;
 import static ru.home.video.service.SubtitleService.getReadySubtitles;
 import static ru.home.video.utils.AppStatusProviderUtils.*;
 
@@ -36,59 +55,181 @@ public class VideoProcessService {
      * @param subtitleStyle         - styling parameters for subtitles
      * @param progressBar           - a visual elem of user form, which says about status of a video treatment process
      * @param progressLabel         - a label for progress status
+     * @param cancellationToken     - a token, which is cancelled when the user clears the form
      */
     public static void processVideo(TextField inputVideoFilePath, TextField outputVideoFilePath,
                                     String originalVideoLanguage, String subtitlesLanguage,
-                                    SubtitleStyle subtitleStyle, ProgressBar progressBar, Label progressLabel) {
+                                    SubtitleStyle subtitleStyle, ProgressBar progressBar, Label progressLabel,
+                                    CancellationToken cancellationToken) {
 
-        // 1. Generates paths for temp files
-        var audioPath = outputVideoFilePath.getText() + File.separator + "temp_audio.wav";
-        var subtitlesPath = outputVideoFilePath.getText() + File.separator + "subtitles.ass";
-        var outputVideoPath = outputVideoFilePath.getText() + File.separator +
-                getNewVideoFileNameWithLanguagePrefixAndExtension(inputVideoFilePath, subtitlesLanguage);
+        var job = new VideoJob(UUID.randomUUID().toString(), inputVideoFilePath.getText(),
+                outputVideoFilePath.getText(), originalVideoLanguage, subtitlesLanguage, subtitleStyle);
         try {
+            var result = processVideo(job, (progress, message) ->
+                    updateProgress(progress, message, progressBar, progressLabel), cancellationToken);
+            showSuccess("The video has been processed successfully!\nSaved in: " + result.outputVideoPath());
+        } catch (JobCancelledException e) {
+            System.out.println("The video processing was cancelled: " + job.inputVideoFilePath());
+        } catch (Exception e) {
+            updateProgress(0.0, "Processing error", progressBar, progressLabel);
+            showError("Error while processing video: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The method handles a video job without the user form (a terminal, workers, a server).
+     * Every stage waits for its own resource class (see {@link ResourceSchedulerService}), so several jobs can be
+     * processed at the same time without oversubscribing the machine.
+     *
+     * @param job              - paths, languages and a style of subtitles
+     * @param progressListener - a receiver of a status of the video treatment process
+     * @return a path to the new video file and the generated subtitles
+     * @throws RuntimeException if the video wasn't processed
+     */
+    public static VideoJobResult processVideo(VideoJob job, ProgressListener progressListener) {
+        return processVideo(job, progressListener, new CancellationToken());
+    }
+
+    /**
+     * The method handles a video job, which can be cancelled: the current stage is stopped at once (an external app
+     * is killed, the recognizer is closed, requests to the translation service are aborted), temp files and
+     * a partly written video are deleted, so the machine is free for the next job.
+     *
+     * @param job               - paths, languages and a style of subtitles
+     * @param progressListener  - a receiver of a status of the video treatment process
+     * @param cancellationToken - a token of the job
+     * @return a path to the new video file and the generated subtitles
+     * @throws JobCancelledException if the job was cancelled
+     * @throws RuntimeException      if the video wasn't processed
+     */
+    public static VideoJobResult processVideo(VideoJob job, ProgressListener progressListener,
+                                              CancellationToken cancellationToken) {
+
+        // 1. Generates paths for temp files (they are unique, so several jobs can share an output folder)
+        var audioPath = job.outputVideoFilePath() + File.separator + "temp_audio_" + job.id() + ".wav";
+        var subtitlesPath = job.outputVideoFilePath() + File.separator + "subtitles_" + job.id() + ".ass";
+        var outputVideoPath = job.outputVideoFilePath() + File.separator +
+                getNewVideoFileNameWithLanguagePrefixAndExtension(job.inputVideoFilePath(), job.subtitlesLanguage());
+        var previewPath = Paths.get(getPathWithExtension(outputVideoPath, SubtitleConfig.PREVIEW_SUBTITLES_EXTENSION));
+        Map<AudioTrack, String> audioPathsByTrack = new LinkedHashMap<>();
+        List<String> trackSubtitlesPaths = new ArrayList<>();
+        // native objects of 'VOSK' and JFR events of stages are marked by the job (objects are checked for leaks)
+        try (var jobContext = JobContext.enter(job.id());
+             var nativeHandles = NativeHandleTracker.openLeakCheck(job.id())) {
             // 2. Installs paths to tools depends on choose language
-            updateProgress(0.1, "Start processing...", progressBar, progressLabel);
-            var sourceLang = LanguageType.valueOf(originalVideoLanguage);
-            JavaSubProviderAppConfig.setAppComponentsByLanguageType(sourceLang);
+            progressListener.updateProgress(0.1, "Start processing...");
+            var sourceLang = LanguageType.valueOf(job.originalVideoLanguage());
+            var voskModelPath = JavaSubProviderAppConfig.getVoskModelPathByLanguageType(sourceLang);
+            // audio tracks of other languages are recognized together with the track of the original language
+            var tracks = SubtitleConfig.MULTI_TRACK_RECOGNITION ?
+                    MultiTrackRecognitionService.getTracksToRecognize(JavaSubProviderAppConfig.FFPROBE_PATH,
+                            job.inputVideoFilePath(), sourceLang) : List.<AudioTrack>of();
+            for (var track : tracks) {
+                audioPathsByTrack.put(track, track == tracks.get(0) ? audioPath : job.outputVideoFilePath() +
+                        File.separator + "temp_audio_" + job.id() + "_" + track.getLanguage() + ".wav");
+            }
 
             // 3. Extracts audio from provided video
-            updateProgress(0.2, "Extracting audio from the video...", progressBar, progressLabel);
-            AudioService.extractAudioTrack(JavaSubProviderAppConfig.FFMPEG_PATH, inputVideoFilePath.getText(), audioPath);
+            progressListener.updateProgress(0.2, "Extracting audio from the video...");
+            // the recognition is started only when the audio file is fully written
+            ResourceSchedulerService.runWithResource(ResourceClass.FFMPEG, cancellationToken, () -> {
+                var extractionEvent = new AudioExtractionEvent(); // timed without waiting for a slot
+                extractionEvent.begin();
+                ProcessRunnerService.await(tracks.isEmpty() ?
+                        AudioService.extractAudioTrack(JavaSubProviderAppConfig.FFMPEG_PATH, job.inputVideoFilePath(),
+                                audioPath) :
+                        AudioService.extractAudioTracks(JavaSubProviderAppConfig.FFMPEG_PATH, job.inputVideoFilePath(),
+                                audioPathsByTrack), cancellationToken);
+                extractionEvent.setVideoPath(job.inputVideoFilePath());
+                extractionEvent.commit();
+            });
 
-            // 4. Recognizes speech from audio
-            updateProgress(0.4, "Speech recognition...", progressBar, progressLabel);
-            List<SubtitleItem> textExtractedFromAudioTrack =
-                    SpeechRecognitionService.recognizeSpeech(audioPath, JavaSubProviderAppConfig.getVOSK_MODEL_PATH());
+            // 4. Recognizes speech from audio: several audio tracks are recognized at the same time. In the two-pass
+            // mode a small model gives preview subtitles at first, then the large model refines them in the background
+            // (segments, which were heard in earlier episodes of the series, can be skipped)
+            Map<AudioTrack, List<SubtitleItem>> phrasesByTrack = Map.of();
+            boolean isPreviewReady = false;
+            List<SubtitleItem> textExtractedFromAudioTrack;
+            if (!tracks.isEmpty()) {
+                progressListener.updateProgress(0.4, "Speech recognition of " + tracks.size() + " audio tracks...");
+                phrasesByTrack = MultiTrackRecognitionService.recognizeTracks(audioPathsByTrack, cancellationToken);
+                textExtractedFromAudioTrack = phrasesByTrack.get(tracks.get(0));
+            } else {
+                isPreviewReady = SubtitleConfig.TWO_PASS_RECOGNITION && createPreviewSubtitles(job, sourceLang,
+                        audioPath, previewPath, progressListener, cancellationToken);
+                progressListener.updateProgress(0.4, isPreviewReady ? "Preview subtitles: " + previewPath +
+                        ", refining them by the large model..." : "Speech recognition...");
+                Supplier<List<SubtitleItem>> recognition = () -> FingerprintConfig.REUSE_REPEATED_SEGMENTS ?
+                        RepeatedSegmentService.recognizeSpeech(job, audioPath, voskModelPath, cancellationToken) :
+                        SpeechRecognitionService.recognizeSpeech(audioPath, voskModelPath, RECOGNITION_CHUNK_SIZE,
+                                cancellationToken);
+                textExtractedFromAudioTrack = isPreviewReady ?
+                        ResourceSchedulerService.runWithBackgroundRecognizer(voskModelPath, cancellationToken,
+                                recognition) :
+                        ResourceSchedulerService.runWithRecognizer(voskModelPath, cancellationToken, recognition);
+            }
 
             // 5. Translates text and applies styling
-            updateProgress(0.6, "Preparation, packaging of subtitles...", progressBar, progressLabel);
+            progressListener.updateProgress(0.6, "Preparation, packaging of subtitles...");
             if (textExtractedFromAudioTrack == null || textExtractedFromAudioTrack.isEmpty()) {
-                updateProgress(0.0, "⚠ Speech recognition failed", progressBar, progressLabel);
-                showError("Unable to recognize speech in the video");
+                progressListener.updateProgress(0.0, "⚠ Speech recognition failed");
+                throw new IllegalStateException("Unable to recognize speech in the video");
+            }
+            if (SubtitleConfig.SAVE_TRANSCRIPT) { // the transcript can be reused without recognizing it again
+                saveTranscript(outputVideoPath, textExtractedFromAudioTrack);
             }
 
             // 6. Creates styled subtitles in ASS format
-            updateProgress(0.8, "Creating stylized subtitles...", progressBar, progressLabel);
-            var subtitles = SubtitleService.createStyledSubtitles(getReadySubtitles(textExtractedFromAudioTrack,
-                    LanguageType.valueOf(originalVideoLanguage), subtitlesLanguage, subtitleStyle), subtitleStyle);
+            progressListener.updateProgress(0.8, "Creating stylized subtitles...");
+            var readySubtitles = getReadySubtitles(textExtractedFromAudioTrack, sourceLang, job.subtitlesLanguage(),
+                    job.subtitleStyle(), cancellationToken);
+            var generationEvent = new SubtitleGenerationEvent();
+            generationEvent.begin();
+            var subtitles = SubtitleService.createStyledSubtitles(readySubtitles, job.subtitleStyle());
 
             // 7. Write subtitles into a temp file (extension is .ass)
             saveSubtitlesToASSFile(Paths.get(subtitlesPath), subtitles);
+            generationEvent.setSubtitles(readySubtitles.size());
+            generationEvent.setChars(subtitles.length());
+            generationEvent.commit();
+            if (isPreviewReady) { // a player, which shows the preview, gets refined subtitles after a reload
+                replaceSubtitlesFile(previewPath, subtitles);
+            }
+            // subtitles in the language of every audio track (they aren't translated)
+            phrasesByTrack.forEach((track, phrases) -> saveTrackSubtitles(job, track, phrases, outputVideoPath,
+                    trackSubtitlesPaths, cancellationToken));
 
             // 8. Adds subtitles to the video
-            updateProgress(0.9, "Adding subtitles to video...", progressBar, progressLabel);
-            VideoCollectorService.addSubtitlesToVideo(
-                    JavaSubProviderAppConfig.FFMPEG_PATH, inputVideoFilePath.getText(), subtitlesPath, outputVideoPath);
-            updateProgress(1.0, "✅ Processing completed!", progressBar, progressLabel);
-            showSuccess("The video has been processed successfully!\nSaved in: " + outputVideoPath);
+            progressListener.updateProgress(0.9, "Adding subtitles to video...");
+            ResourceSchedulerService.runWithResource(ResourceClass.FFMPEG, cancellationToken, () -> {
+                var burningEvent = new SubtitleBurningEvent();
+                burningEvent.begin();
+                if (ProcessConfig.SMART_RENDER) { // only parts of the video with subtitles are re-encoded
+                    SmartRenderService.addSubtitlesToVideo(JavaSubProviderAppConfig.FFMPEG_PATH,
+                            JavaSubProviderAppConfig.FFPROBE_PATH, job.inputVideoFilePath(), subtitlesPath,
+                            readySubtitles, outputVideoPath, cancellationToken);
+                } else {
+                    ProcessRunnerService.await(VideoCollectorService.addSubtitlesToVideo(
+                            JavaSubProviderAppConfig.FFMPEG_PATH, job.inputVideoFilePath(), subtitlesPath,
+                            outputVideoPath), cancellationToken);
+                }
+                burningEvent.setOutputPath(outputVideoPath);
+                burningEvent.setSmartRender(ProcessConfig.SMART_RENDER);
+                burningEvent.commit();
+            });
+            progressListener.updateProgress(1.0, "✅ Processing completed!");
+            return new VideoJobResult(outputVideoPath, subtitles);
 
-        } catch (Exception e) {
-            updateProgress(0.0, "Processing error", progressBar, progressLabel);
-            showError("Error while processing video: " + e.getMessage());
+        } catch (JobCancelledException e) {
+            progressListener.updateProgress(0.0, "Cancelled");
+            deleteTempFile(outputVideoPath); // 'ffmpeg' was killed, the video isn't finished
+            deleteTempFile(previewPath.toString());
+            trackSubtitlesPaths.forEach(VideoProcessService::deleteTempFile);
+            throw e;
         } finally {
-            // 9. Delete temp files (an audio track and subtitles)
+            // 9. Delete temp files (audio tracks and subtitles)
             deleteTempFile(audioPath);
+            audioPathsByTrack.values().forEach(VideoProcessService::deleteTempFile);
             deleteTempFile(subtitlesPath);
         }
     }
@@ -103,15 +244,90 @@ public class VideoProcessService {
             writer.flush();
 
         } catch (IOException e) {
-            showError("Failed to create subtitles: empty content");
-            throw new RuntimeException(e);
+            throw new RuntimeException("Failed to create subtitles: " + e.getMessage(), e);
         }
     }
 
-    private static String getNewVideoFileNameWithLanguagePrefixAndExtension(TextField inputVideoFilePath,
+    // recognizes the audio by a small model and saves preview subtitles, 'false' if there isn't a small model,
+    // nothing was recognized or the preview failed (then the large model works in the foreground, as in one pass)
+    private static boolean createPreviewSubtitles(VideoJob job, LanguageType sourceLang, String audioPath,
+                                                  Path previewPath, ProgressListener progressListener,
+                                                  CancellationToken cancellationToken) {
+        var smallModelPath = JavaSubProviderAppConfig.getSmallVoskModelPathByLanguageType(sourceLang);
+        if (!Files.isDirectory(Paths.get(smallModelPath))) {
+            System.out.println("There isn't a small model for preview subtitles: " + smallModelPath);
+            return false;
+        }
+        progressListener.updateProgress(0.3, "Preview recognition by the small model...");
+        try {
+            var phrases = ResourceSchedulerService.runWithRecognizer(smallModelPath, cancellationToken, () ->
+                    SpeechRecognitionService.recognizeSpeech(audioPath, smallModelPath, RECOGNITION_CHUNK_SIZE,
+                            cancellationToken));
+            if (phrases == null || phrases.isEmpty()) {
+                return false;
+            }
+            var readySubtitles = getReadySubtitles(phrases, sourceLang, job.subtitlesLanguage(), job.subtitleStyle(),
+                    cancellationToken);
+            replaceSubtitlesFile(previewPath, SubtitleService.createStyledSubtitles(readySubtitles,
+                    job.subtitleStyle()));
+            return true;
+        } catch (CancellationException e) { // including JobCancelledException
+            throw e;
+        } catch (RuntimeException e) { // e.g. the translation service is unavailable, the job doesn't fail
+            cancellationToken.throwIfCancelled();
+            System.out.println("Preview subtitles weren't made, the recognition is done in one pass: " +
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    // the file is replaced at once, so a reader never sees it half-written
+    private static void replaceSubtitlesFile(Path subtitlesPath, String subtitles) {
+        var tempPath = Paths.get(subtitlesPath + ".tmp");
+        saveSubtitlesToASSFile(tempPath, subtitles);
+        try {
+            Files.move(tempPath, subtitlesPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to replace subtitles: " + e.getMessage(), e);
+        }
+    }
+
+    // subtitles are saved next to the new video: '<new video name>.<language>.ass'
+    private static void saveTrackSubtitles(VideoJob job, AudioTrack track, List<SubtitleItem> phrases,
+                                           String outputVideoPath, List<String> trackSubtitlesPaths,
+                                           CancellationToken cancellationToken) {
+        if (phrases == null || phrases.isEmpty()) {
+            System.out.println("There aren't subtitles of the audio track " + track.index() + " (" +
+                    track.languageTag() + ")");
+            return;
+        }
+        var language = track.getLanguage();
+        var trackSubtitlesPath = getPathWithExtension(outputVideoPath, "." + language + ".ass");
+        var readySubtitles = getReadySubtitles(phrases, language, language.name(), job.subtitleStyle(),
+                cancellationToken);
+        trackSubtitlesPaths.add(trackSubtitlesPath);
+        saveSubtitlesToASSFile(Paths.get(trackSubtitlesPath),
+                SubtitleService.createStyledSubtitles(readySubtitles, job.subtitleStyle()));
+    }
+
+    private static void saveTranscript(String outputVideoPath, List<SubtitleItem> phrases) {
+        var transcriptPath = getPathWithExtension(outputVideoPath, SubtitleConfig.TRANSCRIPT_EXTENSION);
+        try {
+            TranscriptFile.save(Paths.get(transcriptPath), phrases);
+        } catch (IOException e) {
+            System.out.println("The transcript wasn't saved: " + transcriptPath + "\n" + e.getMessage());
+        }
+    }
+
+    // a file next to the new video with the same name and another extension
+    private static String getPathWithExtension(String outputVideoPath, String extension) {
+        return outputVideoPath.replaceAll("\\.[^.\\\\/]*$", "") + extension;
+    }
+
+    private static String getNewVideoFileNameWithLanguagePrefixAndExtension(String inputVideoFilePath,
                                                                             String subtitlesLanguage) {
 
-        var outputVideoPathArray = new File(inputVideoFilePath.getText()).getName().split("\\.");
+        var outputVideoPathArray = new File(inputVideoFilePath).getName().split("\\.");
         var languagePrefix = outputVideoPathArray[outputVideoPathArray.length - 2] + "_" + subtitlesLanguage;
         outputVideoPathArray[outputVideoPathArray.length - 2] = languagePrefix;
         return String.join(".", outputVideoPathArray);
@@ -129,4 +345,4 @@ public class VideoProcessService {
             System.out.println("There aren't temp file: - " + tempFile + " for deleting\n" + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,123 @@
+package ru.home.video.service;
+
+import org.vosk.Model;
+import org.vosk.Recognizer;
+import ru.home.video.model.resources.NativeHandleInfo;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static ru.home.video.config.SchedulerConfig.RECOGNIZER_APPROXIMATE_MEGABYTES;
+
+/**
+ * The class opens native objects of 'VOSK' with a known owner, so their native memory is freed deterministically:
+ * <ul>
+ *     <li>a model is shared by all jobs of its language: a job takes a lease of the model, the model is loaded by
+ *     the first lease and it's closed, when the last lease is closed (a model isn't kept without jobs)</li>
+ *     <li>a recognizer belongs to the job, which created it</li>
+ * </ul>
+ * Both of them are counted by {@link NativeHandleTracker}.
+ */
+public class VoskResourceService {
+
+    private static final Map<String, SharedModel> MODELS = new ConcurrentHashMap<>();
+
+    /**
+     * The method gives a model, it's loaded, if no job uses it at the moment
+     *
+     * @param modelPath - a path to a language model 'VOSK'
+     * @return a lease of the model, it has to be closed (try-with-resources)
+     * @throws IOException if the model wasn't loaded
+     */
+    public static ModelLease acquireModel(String modelPath) throws IOException {
+        var sharedModel = MODELS.computeIfAbsent(modelPath, SharedModel::new);
+        // a model is loaded for seconds, so jobs of other models don't wait for it (and virtual threads aren't pinned)
+        sharedModel.lock.lock();
+        try {
+            if (sharedModel.handle == null) {
+                sharedModel.handle = new NativeHandle<>(new Model(modelPath), NativeHandleTracker.registerShared(
+                        "VOSK model", modelPath, ResourceSchedulerService.getModelMegabytes(modelPath) * (1L << 20)));
+            }
+            sharedModel.leases++;
+            return new ModelLease(sharedModel, NativeHandleTracker.register("VOSK model lease", modelPath, 0));
+        } finally {
+            sharedModel.lock.unlock();
+        }
+    }
+
+    /**
+     * The method creates a recognizer of the current job
+     *
+     * @param model      - a lease of a model
+     * @param sampleRate - a sample rate of audio (16000.0f is the standard for speech recognition)
+     * @return a handle of the recognizer, it has to be closed before the lease of the model (try-with-resources)
+     * @throws IOException if the recognizer wasn't created
+     */
+    public static NativeHandle<Recognizer> createRecognizer(ModelLease model, float sampleRate) throws IOException {
+        return new NativeHandle<>(new Recognizer(model.getModel(), sampleRate), NativeHandleTracker.register(
+                "VOSK recognizer", model.sharedModel.modelPath, RECOGNIZER_APPROXIMATE_MEGABYTES * (1L << 20)));
+    }
+
+    /**
+     * A lease of a shared model
+     */
+    public static class ModelLease implements AutoCloseable {
+
+        private final SharedModel sharedModel;
+        private final NativeHandleInfo info;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private ModelLease(SharedModel sharedModel, NativeHandleInfo info) {
+            this.sharedModel = sharedModel;
+            this.info = info;
+        }
+
+        /**
+         * @return the model (it mustn't be closed directly)
+         * @throws IllegalStateException if the lease was closed
+         */
+        public Model getModel() {
+            if (closed.get()) {
+                throw new IllegalStateException("The lease of the model was closed: " + sharedModel.modelPath);
+            }
+            return sharedModel.handle.get();
+        }
+
+        /**
+         * The method gives the model back, the last lease closes the model
+         */
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            NativeHandleTracker.unregister(info);
+            sharedModel.lock.lock();
+            try {
+                if (--sharedModel.leases == 0) {
+                    sharedModel.handle.close();
+                    sharedModel.handle = null;
+                }
+            } finally {
+                sharedModel.lock.unlock();
+            }
+        }
+    }
+
+    // === Auxiliary methods ===
+
+    // a model of one path, it's loaded while it has leases
+    private static class SharedModel {
+        private final String modelPath;
+        private final ReentrantLock lock = new ReentrantLock();
+        private NativeHandle<Model> handle;
+        private int leases;
+
+        private SharedModel(String modelPath) {
+            this.modelPath = modelPath;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package ru.home.video.service;
+
+import ru.home.video.model.enums.LanguageType;
+import ru.home.video.model.jobs.VideoJob;
+import ru.home.video.model.jobs.VideoJobState;
+import ru.home.video.model.subtitles.SubtitleStyle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static ru.home.video.config.WatchConfig.*;
+
+/**
+ * The class turns videos, which are dropped into a folder (e.g. a share of a capture system), into jobs:
+ * <ul>
+ *     <li>a new file is taken, when it wasn't changed for a while (it's copied completely)</li>
+ *     <li>a file is identified by a fingerprint of its content, so a file, which was already processed (also before
+ *     a restart or under another name), is skipped</li>
+ *     <li>files are given to {@link VideoJobService} one by one and only while its queue is short, so a burst of
+ *     files waits in the watcher instead of launching 'ffprobe' and 'ffmpeg' for all of them at once</li>
+ * </ul>
+ * The watcher is single-threaded: events of the folder, checks of new files and states of jobs are handled by turns.
+ */
+public class WatchFolderService {
+
+    private final Path watchFolder;
+    private final Path outputFolder;
+    private final Path ledgerPath;
+    private final LanguageType originalVideoLanguage;
+    private final LanguageType subtitlesLanguage;
+    private final VideoJobService videoJobService;
+    private final Map<Path, CandidateFile> candidates = new HashMap<>(); // files which can be still copied
+    private final Deque<Path> readyFiles = new ArrayDeque<>(); // stable files in the order of their arrival
+    private final Map<String, VideoJobState> runningJobs = new HashMap<>(); // by fingerprints
+    private final Set<String> processedFingerprints = new HashSet<>();
+
+    /**
+     * @param watchFolder           - a folder where new videos appear
+     * @param outputFolder          - a folder where new videos with subtitles are saved (another folder)
+     * @param originalVideoLanguage - an original language of videos
+     * @param subtitlesLanguage     - a language of subtitles
+     * @param videoJobService       - a service which runs jobs
+     */
+    public WatchFolderService(Path watchFolder, Path outputFolder, LanguageType originalVideoLanguage,
+                              LanguageType subtitlesLanguage, VideoJobService videoJobService) throws IOException {
+        this.watchFolder = watchFolder.toAbsolutePath().normalize();
+        this.outputFolder = outputFolder.toAbsolutePath().normalize();
+        if (this.watchFolder.equals(this.outputFolder)) { // new videos would be taken as input
+            throw new IllegalArgumentException("The output folder has to differ from the watched folder");
+        }
+        Files.createDirectories(this.outputFolder);
+        this.ledgerPath = this.outputFolder.resolve(WATCH_LEDGER_FILE_NAME);
+        this.originalVideoLanguage = originalVideoLanguage;
+        this.subtitlesLanguage = subtitlesLanguage;
+        this.videoJobService = videoJobService;
+        if (Files.exists(ledgerPath)) {
+            for (String line : Files.readAllLines(ledgerPath, StandardCharsets.UTF_8)) {
+                processedFingerprints.add(line.split("\t")[0]);
+            }
+        }
+    }
+
+    /**
+     * The method watches the folder till the thread is interrupted, files which are already in the folder are
+     * taken too
+     */
+    public void watch() throws IOException, InterruptedException {
+        try (var watchService = FileSystems.getDefault().newWatchService()) {
+            watchFolder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            System.out.printf("Watching %s (%d file(s) were processed before)%n", watchFolder,
+                    processedFingerprints.size());
+            scanFolder();
+            while (!Thread.currentThread().isInterrupted()) {
+                // 1. new and changed files become candidates (their stability is checked from this moment)
+                var key = watchService.poll(WATCH_POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (var event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            scanFolder(); // events were lost, the folder itself is the truth
+                        } else {
+                            addCandidate(watchFolder.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+                }
+                // 2. files, which weren't changed for a while, are ready
+                checkCandidates();
+                // 3. finished jobs are recorded, ready files are given to the job service while its queue is short
+                checkRunningJobs();
+                submitReadyFiles();
+            }
+        }
+    }
+
+    // === Auxiliary methods ===
+
+    private static class CandidateFile {
+        private long size;
+        private long lastModifiedMillis;
+        private long unchangedSinceNanos;
+    }
+
+    private void scanFolder() throws IOException {
+        try (Stream<Path> files = Files.list(watchFolder)) {
+            files.forEach(this::addCandidate);
+        }
+    }
+
+    private void addCandidate(Path file) {
+        var fileName = file.getFileName().toString();
+        var extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        if (WATCH_VIDEO_EXTENSIONS.contains(extension) && !readyFiles.contains(file)) {
+            candidates.computeIfAbsent(file, path -> new CandidateFile()).unchangedSinceNanos = System.nanoTime();
+        }
+    }
+
+    // a file is stable, when its size and its time of modification are the same during the stable time
+    private void checkCandidates() {
+        var iterator = candidates.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            var candidate = entry.getValue();
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(entry.getKey(), BasicFileAttributes.class);
+            } catch (IOException e) {
+                iterator.remove(); // the file was deleted or renamed
+                continue;
+            }
+            long lastModifiedMillis = attributes.lastModifiedTime().toMillis();
+            if (attributes.size() != candidate.size || lastModifiedMillis != candidate.lastModifiedMillis) {
+                candidate.size = attributes.size();
+                candidate.lastModifiedMillis = lastModifiedMillis;
+                candidate.unchangedSinceNanos = System.nanoTime();
+            } else if (candidate.size > 0 &&
+                    System.nanoTime() - candidate.unchangedSinceNanos >= WATCH_STABLE_MILLIS * 1_000_000) {
+                iterator.remove();
+                readyFiles.addLast(entry.getKey());
+            }
+        }
+    }
+
+    private void checkRunningJobs() throws IOException {
+        var iterator = runningJobs.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            var state = entry.getValue();
+            switch (state.getStatus()) {
+                case DONE -> {
+                    iterator.remove();
+                    recordProcessedFile(entry.getKey(), state);
+                    System.out.println("Processed: " + state.getJob().inputVideoFilePath() + " -> " +
+                            state.getResult().outputVideoPath());
+                }
+                case FAILED, CANCELLED -> { // the file is tried again after a restart of the watcher
+                    iterator.remove();
+                    System.out.println("Not processed: " + state.getJob().inputVideoFilePath() + " (" +
+                            state.getStatus() + ": " + state.getError() + ")");
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void submitReadyFiles() {
+        while (!readyFiles.isEmpty() && videoJobService.getQueuedJobs() < WATCH_MAX_QUEUED_JOBS) {
+            var file = readyFiles.pollFirst();
+            String fingerprint;
+            try {
+                fingerprint = getFingerprint(file);
+            } catch (IOException e) {
+                System.out.println("The file was skipped, it wasn't read: " + file + "\n" + e.getMessage());
+                continue;
+            }
+            if (processedFingerprints.contains(fingerprint) || runningJobs.containsKey(fingerprint)) {
+                System.out.println("Skipped (the same video was already processed): " + file);
+                continue;
+            }
+            var job = new VideoJob(UUID.randomUUID().toString(), file.toString(), outputFolder.toString(),
+                    originalVideoLanguage.name(), subtitlesLanguage.name(), SubtitleStyle.getDefaultStyle());
+            try {
+                runningJobs.put(fingerprint, videoJobService.submitJob(job));
+                System.out.println("Queued: " + file + " (job " + job.id() + ")");
+            } catch (IllegalArgumentException e) {
+                processedFingerprints.add(fingerprint); // it isn't tried again during this run
+                System.out.println("Skipped: " + file + " (" + e.getMessage() + ")");
+            } catch (RejectedExecutionException e) {
+                readyFiles.addFirst(file); // the queue was filled by other clients, the file waits
+                return;
+            }
+        }
+    }
+
+    private void recordProcessedFile(String fingerprint, VideoJobState state) throws IOException {
+        processedFingerprints.add(fingerprint);
+        Files.writeString(ledgerPath, fingerprint + "\t" + state.getJob().inputVideoFilePath() + "\n",
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * The method gives a fingerprint of a file: SHA-256 of its size, its first and its last bytes
+     *
+     * @param file - a file
+     * @return the fingerprint (hex)
+     */
+    static String getFingerprint(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var digest = MessageDigest.getInstance("SHA-256");
+            long size = channel.size();
+            digest.update(ByteBuffer.allocate(Long.BYTES).putLong(size).flip());
+            var sample = ByteBuffer.allocate((int) Math.min(size, WATCH_FINGERPRINT_SAMPLE_BYTES));
+            for (long position : new long[]{0, Math.max(0, size - sample.capacity())}) {
+                sample.clear();
+                int bytesRead;
+                do { // a channel can give less bytes than it was asked
+                    bytesRead = channel.read(sample, position + sample.position());
+                } while (bytesRead > 0 && sample.hasRemaining());
+                digest.update(sample.flip());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 isn't supported", e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package ru.home.video.service;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static ru.home.video.config.SubtitleConfig.*;
+
+/**
+ * The class reads audio data of a WAV file for recognizing. The header is parsed (the format is checked) and only
+ * the 'data' chunk is mapped into memory, so the header bytes are never given to a recognizer as audio.
+ */
+public class WavAudioSource implements AutoCloseable {
+
+    private static final int PCM_FORMAT = 1;
+    private static final long MAX_MAPPED_WINDOW_SIZE = 1L << 30; // 1 GB, a single mapping can't exceed 2 GB
+
+    private final FileChannel channel;
+    @Getter
+    private final int sampleRate;
+    @Getter
+    private final int channels;
+    @Getter
+    private final int bitsPerSample;
+    @Getter
+    private final int frameSize; // bytes of one sample for all channels
+    private final long dataOffset;
+    @Getter
+    private final long dataSize;
+    private MappedByteBuffer window;
+    private long windowOffset; // a position of the current window inside the 'data' chunk
+
+    private WavAudioSource(FileChannel channel, int sampleRate, int channels, int bitsPerSample,
+                           long dataOffset, long dataSize) {
+        this.channel = channel;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.bitsPerSample = bitsPerSample;
+        this.frameSize = channels * bitsPerSample / 8;
+        this.dataOffset = dataOffset;
+        this.dataSize = dataSize;
+    }
+
+    /**
+     * The method opens a WAV file and checks it has the format, which is recognized by 'VOSK'
+     * (PCM, 16000 Hz, 16 bit, mono)
+     *
+     * @param audioPath - a path with an audio file with the 'wav' extend
+     * @return a ready source of audio data
+     * @throws IOException if the file can't be read or the format isn't supported
+     */
+    public static WavAudioSource open(Path audioPath) throws IOException {
+        var channel = FileChannel.open(audioPath, StandardOpenOption.READ);
+        try {
+            var source = parseHeader(channel);
+            if (source.sampleRate != AUDIO_SAMPLE_RATE || source.channels != AUDIO_CHANNELS ||
+                    source.bitsPerSample != AUDIO_BITS_PER_SAMPLE) {
+                throw new IOException(String.format("Unsupported WAV format: %d Hz, %d channel(s), %d bit " +
+                                "(expected: %d Hz, %d channel(s), %d bit)", source.sampleRate, source.channels,
+                        source.bitsPerSample, AUDIO_SAMPLE_RATE, AUDIO_CHANNELS, AUDIO_BITS_PER_SAMPLE));
+            }
+            return source;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The method gives the biggest size of a portion, which isn't bigger than requested and contains whole frames
+     *
+     * @param requestedSize - a requested size of a portion (bytes)
+     * @return the size aligned to frames (at least one frame)
+     */
+    public int getFrameAlignedSize(int requestedSize) {
+        return Math.max(frameSize, requestedSize - requestedSize % frameSize);
+    }
+
+    /**
+     * @return a duration of the audio (seconds)
+     */
+    public double getDurationSeconds() {
+        return (double) dataSize / frameSize / sampleRate;
+    }
+
+    /**
+     * @return a number of frames of the audio (a frame is a sample of all channels)
+     */
+    public long getFrames() {
+        return dataSize / frameSize;
+    }
+
+    /**
+     * The method moves to a frame, the next portion of audio data is read from it
+     *
+     * @param frame - a number of a frame from the beginning of audio data
+     */
+    public void seek(long frame) throws IOException {
+        long offset = Math.min(dataSize, Math.max(0, frame) * frameSize);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + offset,
+                Math.min(MAX_MAPPED_WINDOW_SIZE - MAX_MAPPED_WINDOW_SIZE % frameSize, dataSize - offset));
+        windowOffset = offset;
+    }
+
+    /**
+     * The method copies the next portion of audio data into the given buffer, a portion always contains whole frames
+     *
+     * @param buffer - a buffer, its length is aligned to frames (see {@link #getFrameAlignedSize})
+     * @return a number of read bytes or -1 at the end of audio data
+     */
+    public int read(byte[] buffer) throws IOException {
+        if (window == null || !window.hasRemaining()) {
+            if (!mapNextWindow()) {
+                return -1;
+            }
+        }
+        int length = Math.min(buffer.length - buffer.length % frameSize, window.remaining());
+        window.get(buffer, 0, length);
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null; // the mapping is released together with the buffer
+        channel.close();
+    }
+
+    // === Auxiliary methods ===
+
+    // maps the next part of the 'data' chunk, a big file is mapped by windows (it's aligned to frames)
+    private boolean mapNextWindow() throws IOException {
+        long nextOffset = window == null ? 0 : windowOffset + window.capacity();
+        if (nextOffset >= dataSize) {
+            return false;
+        }
+        long size = Math.min(MAX_MAPPED_WINDOW_SIZE - MAX_MAPPED_WINDOW_SIZE % frameSize, dataSize - nextOffset);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + nextOffset, size);
+        windowOffset = nextOffset;
+        return true;
+    }
+
+    // goes through RIFF chunks: the format is taken from 'fmt ', the audio data is in 'data'
+    private static WavAudioSource parseHeader(FileChannel channel) throws IOException {
+        var riffHeader = readBytes(channel, 0, 12);
+        if (!getChunkId(riffHeader, 0).equals("RIFF") || !getChunkId(riffHeader, 8).equals("WAVE")) {
+            throw new IOException("The file isn't a WAV file (RIFF/WAVE header wasn't found)");
+        }
+        int audioFormat = -1, channels = 0, sampleRate = 0, bitsPerSample = 0;
+        long position = 12;
+        long fileSize = channel.size();
+        while (position + 8 <= fileSize) {
+            var chunkHeader = readBytes(channel, position, 8);
+            var chunkId = getChunkId(chunkHeader, 0);
+            long chunkSize = Integer.toUnsignedLong(chunkHeader.getInt(4));
+            long chunkDataOffset = position + 8;
+            if (chunkId.equals("fmt ")) {
+                var fmt = readBytes(channel, chunkDataOffset, 16);
+                audioFormat = Short.toUnsignedInt(fmt.getShort(0));
+                channels = Short.toUnsignedInt(fmt.getShort(2));
+                sampleRate = fmt.getInt(4);
+                bitsPerSample = Short.toUnsignedInt(fmt.getShort(14));
+            } else if (chunkId.equals("data")) {
+                if (audioFormat != PCM_FORMAT) {
+                    throw new IOException("Unsupported WAV encoding (only PCM is supported): " + audioFormat);
+                }
+                // the size of the chunk can be wrong if the file wasn't finished by a writer ('ffmpeg' was stopped)
+                long dataSize = Math.min(chunkSize, fileSize - chunkDataOffset);
+                int frameSize = channels * bitsPerSample / 8;
+                if (frameSize <= 0) {
+                    throw new IOException("The WAV file has a wrong format description ('fmt ' chunk)");
+                }
+                return new WavAudioSource(channel, sampleRate, channels, bitsPerSample, chunkDataOffset,
+                        dataSize - dataSize % frameSize);
+            }
+            position = chunkDataOffset + chunkSize + (chunkSize & 1); // chunks are aligned to an even size
+        }
+        throw new IOException("The WAV file doesn't contain audio data ('data' chunk wasn't found)");
+    }
+
+    private static ByteBuffer readBytes(FileChannel channel, long position, int length) throws IOException {
+        var buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) == -1) {
+                throw new IOException("Unexpected end of the WAV header");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static String getChunkId(ByteBuffer buffer, int offset) {
+        byte[] id = new byte[4];
+        buffer.get(offset, id);
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+}